@@ -20,6 +20,7 @@ import nl.serviceplanet.tolgee.toolbox.cli.dagger.ApplicationComponent;
 import nl.serviceplanet.tolgee.toolbox.cli.dagger.DaggerApplicationComponent;
 import nl.serviceplanet.tolgee.toolbox.cli.picocli.PicoCliDaggerFactory;
 import nl.serviceplanet.tolgee.toolbox.cli.picocli.TolgeeToolboxCommand;
+import nl.serviceplanet.tolgee.toolbox.common.rest.http.TolgeeHttpClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
@@ -44,18 +45,26 @@ public final class Main {
 	}
 	
 	private final PicoCliDaggerFactory picoCliDaggerFactory;
+
+	private final TolgeeHttpClients tolgeeHttpClients;
 	
 	@Inject
-	public Main(PicoCliDaggerFactory picoCliDaggerFactory) {
+	public Main(PicoCliDaggerFactory picoCliDaggerFactory, TolgeeHttpClients tolgeeHttpClients) {
 		this.picoCliDaggerFactory = picoCliDaggerFactory;
+		this.tolgeeHttpClients = tolgeeHttpClients;
 	}
 	
 	private int run(String[] args) {
-		int exitCode = new CommandLine(new TolgeeToolboxCommand(), picoCliDaggerFactory)
-				.setUsageHelpAutoWidth(true)
-				.execute(args);
+		try {
+			int exitCode = new CommandLine(new TolgeeToolboxCommand(), picoCliDaggerFactory)
+					.setUsageHelpAutoWidth(true)
+					.execute(args);
 
-		return exitCode;
+			return exitCode;
+		} finally {
+			// The pooled HTTP clients are shared by all commands, so they are only closed once we are done.
+			tolgeeHttpClients.close();
+		}
 	}
 
 	/**
@@ -17,11 +17,18 @@ package nl.serviceplanet.tolgee.toolbox.cli.dagger;
 
 import dagger.Binds;
 import dagger.Module;
+import dagger.Provides;
 import jakarta.inject.Singleton;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ConfigService;
+import nl.serviceplanet.tolgee.toolbox.common.config.toml.ConfigCache;
 import nl.serviceplanet.tolgee.toolbox.common.config.toml.TomlConfigService;
+import nl.serviceplanet.tolgee.toolbox.common.io.CacheDirectory;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.AsyncTolgeeRestClient;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeRestClient;
-import nl.serviceplanet.tolgee.toolbox.common.rest.gson.GsonTolgeeRestClient;
+import nl.serviceplanet.tolgee.toolbox.common.rest.gson.CachingTolgeeRestClient;
+import nl.serviceplanet.tolgee.toolbox.common.rest.gson.GsonAsyncTolgeeRestClient;
+import nl.serviceplanet.tolgee.toolbox.common.rest.http.HttpClientSettings;
+import nl.serviceplanet.tolgee.toolbox.common.rest.http.MetadataCacheSettings;
 import nl.serviceplanet.tolgee.toolbox.common.services.DefaultPullService;
 import nl.serviceplanet.tolgee.toolbox.common.services.DefaultPushService;
 import nl.serviceplanet.tolgee.toolbox.common.services.api.PullService;
@@ -37,7 +44,11 @@ public abstract class ApplicationModule {
 	
 	@Binds
 	@Singleton
-	abstract TolgeeRestClient bindTolgeeRestClient(GsonTolgeeRestClient impl);
+	abstract TolgeeRestClient bindTolgeeRestClient(CachingTolgeeRestClient impl);
+
+	@Binds
+	@Singleton
+	abstract AsyncTolgeeRestClient bindAsyncTolgeeRestClient(GsonAsyncTolgeeRestClient impl);
 	
 	@Binds
 	@Singleton
@@ -50,5 +61,23 @@ public abstract class ApplicationModule {
 	@Binds
 	@Singleton
 	abstract PullService bindPullService(DefaultPullService impl);
+
+	@Provides
+	@Singleton
+	static HttpClientSettings provideHttpClientSettings() {
+		return HttpClientSettings.fromEnvironment();
+	}
+
+	@Provides
+	@Singleton
+	static MetadataCacheSettings provideMetadataCacheSettings() {
+		return MetadataCacheSettings.fromEnvironment();
+	}
+
+	@Provides
+	@Singleton
+	static ConfigCache provideConfigCache() {
+		return new ConfigCache(CacheDirectory.resolve("config"));
+	}
 	
 }
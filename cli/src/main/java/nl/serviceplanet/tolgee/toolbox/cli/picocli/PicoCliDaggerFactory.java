@@ -51,7 +51,8 @@ public final class PicoCliDaggerFactory implements CommandLine.IFactory {
 		} else if (cls.equals(PushSingleStepCommand.class)) {
 			return (K) pushSingleStepCommand;
 		} else {
-			throw new IllegalArgumentException();
+			// Collections and other helper objects picocli needs for options.
+			return CommandLine.defaultFactory().create(cls);
 		}
 	}
 }
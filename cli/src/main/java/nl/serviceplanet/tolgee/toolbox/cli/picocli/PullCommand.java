@@ -15,8 +15,16 @@
  */
 package nl.serviceplanet.tolgee.toolbox.cli.picocli;
 
+import com.google.common.collect.ImmutableSet;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ConfigService;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFilter;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectIndex;
+import nl.serviceplanet.tolgee.toolbox.common.services.ProjectScheduler;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencyBudget;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencySettings;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ExportMode;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.PullOptions;
 import nl.serviceplanet.tolgee.toolbox.common.services.api.PullService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +33,7 @@ import picocli.CommandLine;
 import javax.inject.Inject;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 
 @CommandLine.Command(
 		name = "pull",
@@ -41,6 +50,62 @@ public final class PullCommand implements Runnable {
 			names = "--base-path",
 			description = "Optional path to the project. If omitted the current working directory is used.")
 	private Path basePathArg;
+
+	@CommandLine.Option(
+			names = "--git-index",
+			description = "Only read the configuration files which are tracked by git, listed from the index of the git repository instead of searching all subdirectories.")
+	private boolean gitIndexArg;
+
+	@CommandLine.Option(
+			names = "--project-id",
+			split = ",",
+			description = "Only process the projects with one of these Tolgee project IDs.")
+	private List<Long> projectIdArgs;
+
+	@CommandLine.Option(
+			names = "--namespace",
+			split = ",",
+			description = "Only process the projects with one of these namespaces. Use an empty namespace for projects without a namespace.")
+	private List<String> namespaceArgs;
+
+	@CommandLine.Option(
+			names = "--path",
+			description = "Only process the projects whose path relative to the base path matches one of these glob patterns, for example 'modules/**'.")
+	private List<String> pathArgs;
+
+	@CommandLine.Option(
+			names = "--max-concurrent-exports",
+			defaultValue = "1",
+			description = "Maximum number of exports which are downloaded at the same time per project. Default: ${DEFAULT-VALUE}.")
+	private int maxConcurrentExportsArg;
+
+	@CommandLine.ArgGroup(exclusive = true, multiplicity = "0..1")
+	private ExportModeArgs exportModeArgs = new ExportModeArgs();
+
+	@CommandLine.Option(
+			names = "--fsync",
+			description = "Flush every written message file to disk before it replaces the existing message file.")
+	private boolean fsyncArg;
+
+	@CommandLine.Option(
+			names = "--batch",
+			description = "Download every distinct export (Tolgee project, language, namespace and format) only once for all projects, and write it to the message files of every target which needs it.")
+	private boolean batchArg;
+
+	@CommandLine.Option(
+			names = "--hard-links",
+			description = "Create message files of multiple targets which have the same content as hard links of a single file instead of copies, where the file system supports it.")
+	private boolean hardLinksArg;
+
+	@CommandLine.Option(
+			names = "--parallelism",
+			description = "Optional maximum number of projects and Tolgee requests which run at the same time across all projects. If omitted projects are processed one after another.")
+	private Integer parallelismArg;
+
+	@CommandLine.Option(
+			names = "--max-concurrent-per-host",
+			description = "Optional maximum number of Tolgee requests which run at the same time per Tolgee host. Only used together with --parallelism.")
+	private Integer maxConcurrentPerHostArg;
 	
 	@Inject
 	public PullCommand(PullService pullService, ConfigService configService) {
@@ -55,13 +120,67 @@ public final class PullCommand implements Runnable {
 			basePath = Path.of(System.getProperty("user.dir"));
 		}
 
+		ConcurrencyBudget budget = ConcurrencyBudget.unlimited();
+		int maxConcurrentProjects = 1;
+		if (parallelismArg != null) {
+			budget = new ConcurrencyBudget(parallelismArg,
+					maxConcurrentPerHostArg == null ? Integer.MAX_VALUE : maxConcurrentPerHostArg);
+			maxConcurrentProjects = parallelismArg;
+		}
+
+		PullOptions pullOptions = new PullOptions(exportModeArgs.exportMode(),
+				new PullOptions.WriteSettings(fsyncArg, hardLinksArg),
+				new ConcurrencySettings(maxConcurrentExportsArg, budget));
+
 		try {
 			// FIXME: Properly give feedback to user.
-			for(Project project: configService.loadProjects(basePath)) {
-				pullService.pullMessages(project);
+			ImmutableSet<Project> projects = new ProjectIndex(basePath, configService.loadProjects(basePath, gitIndexArg))
+					.select(ProjectFilter.of(projectIdArgs, namespaceArgs, pathArgs));
+			if (batchArg) {
+				pullService.pullMessages(projects, pullOptions);
+				return;
 			}
+
+			ProjectScheduler.run(projects, maxConcurrentProjects,
+					project -> project.projectTargets().size(),
+					project -> pullService.pullMessages(project, pullOptions));
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
+
+	/**
+	 * The ways of retrieving exports, of which at most one can be chosen.
+	 */
+	private static final class ExportModeArgs {
+
+		@CommandLine.Option(
+				names = "--zip-exports",
+				description = "Retrieve all languages of a message file format with a single zipped export, instead of one export per language.")
+		private boolean zipExportsArg;
+
+		@CommandLine.Option(
+				names = "--multi-namespace-exports",
+				description = "Retrieve all namespaces and languages of a Tolgee project which are needed in a message file format with a single zipped export, which is split into the message files of every namespace while it is downloaded. Most useful together with --batch.")
+		private boolean multiNamespaceExportsArg;
+
+		@CommandLine.Option(
+				names = "--convert-locally",
+				description = "Retrieve a language which is needed in multiple message file formats (JSON, JSON_TOLGEE, PROPERTIES and YAML) once, and convert it to those formats locally.")
+		private boolean convertLocallyArg;
+
+		private ExportMode exportMode() {
+			if (zipExportsArg) {
+				return ExportMode.ZIP;
+			}
+			if (multiNamespaceExportsArg) {
+				return ExportMode.MULTI_NAMESPACE_ZIP;
+			}
+			if (convertLocallyArg) {
+				return ExportMode.LOCAL_CONVERSION;
+			}
+
+			return ExportMode.PER_LANGUAGE;
+		}
+	}
 }
@@ -15,10 +15,17 @@
  */
 package nl.serviceplanet.tolgee.toolbox.cli.picocli;
 
+import com.google.common.collect.ImmutableSet;
 import jakarta.inject.Inject;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ConfigService;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFilter;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectIndex;
 import nl.serviceplanet.tolgee.toolbox.common.services.DefaultPushService;
+import nl.serviceplanet.tolgee.toolbox.common.services.ProjectScheduler;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencyBudget;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencySettings;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.PushOptions;
 import nl.serviceplanet.tolgee.toolbox.common.services.api.PushService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +33,7 @@ import picocli.CommandLine;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 
 @CommandLine.Command(
 		name = "push",
@@ -42,6 +50,56 @@ public final class PushCommand implements Runnable {
 			names = "--base-path",
 			description = "Optional path to the project. If omitted the current working directory is used.")
 	private Path basePathArg;
+
+	@CommandLine.Option(
+			names = "--git-index",
+			description = "Only read the configuration files which are tracked by git, listed from the index of the git repository instead of searching all subdirectories.")
+	private boolean gitIndexArg;
+
+	@CommandLine.Option(
+			names = "--project-id",
+			split = ",",
+			description = "Only process the projects with one of these Tolgee project IDs.")
+	private List<Long> projectIdArgs;
+
+	@CommandLine.Option(
+			names = "--namespace",
+			split = ",",
+			description = "Only process the projects with one of these namespaces. Use an empty namespace for projects without a namespace.")
+	private List<String> namespaceArgs;
+
+	@CommandLine.Option(
+			names = "--path",
+			description = "Only process the projects whose path relative to the base path matches one of these glob patterns, for example 'modules/**'.")
+	private List<String> pathArgs;
+
+	@CommandLine.Option(
+			names = "--max-concurrent-uploads",
+			defaultValue = "1",
+			description = "Maximum number of message files which are uploaded at the same time per project. Default: ${DEFAULT-VALUE}.")
+	private int maxConcurrentUploadsArg;
+
+	@CommandLine.Option(
+			names = "--parallelism",
+			description = "Optional maximum number of projects and Tolgee requests which run at the same time across all projects. If omitted projects are processed one after another.")
+	private Integer parallelismArg;
+
+	@CommandLine.Option(
+			names = "--max-concurrent-per-host",
+			description = "Optional maximum number of Tolgee requests which run at the same time per Tolgee host. Only used together with --parallelism.")
+	private Integer maxConcurrentPerHostArg;
+
+	@CommandLine.Option(
+			names = "--batch",
+			description = "Upload the message files of a project with as few requests as possible.")
+	private boolean batchArg;
+
+	@CommandLine.Option(
+			names = "--max-batch-size-kb",
+			defaultValue = "4096",
+			description = "Maximum combined size in KiB of the message files uploaded with a single request when using --batch. Default: ${DEFAULT-VALUE}.")
+	private long maxBatchSizeKbArg;
+
 	
 	@Inject
 	public PushCommand(PushService pushService, ConfigService configService) {
@@ -56,11 +114,25 @@ public final class PushCommand implements Runnable {
 			basePath = Path.of(System.getProperty("user.dir"));
 		}
 
+		ConcurrencyBudget budget = ConcurrencyBudget.unlimited();
+		int maxConcurrentProjects = 1;
+		if (parallelismArg != null) {
+			budget = new ConcurrencyBudget(parallelismArg,
+					maxConcurrentPerHostArg == null ? Integer.MAX_VALUE : maxConcurrentPerHostArg);
+			maxConcurrentProjects = parallelismArg;
+		}
+
+		PushOptions pushOptions = new PushOptions(new ConcurrencySettings(maxConcurrentUploadsArg, budget),
+				new PushOptions.BatchSettings(batchArg, maxBatchSizeKbArg * 1024),
+				PushOptions.StateSettings.defaults());
+
 		try {
 			// FIXME: Properly give feedback to user.
-			for (Project project : configService.loadProjects(basePath)) {
-				pushService.pushMessages(project);
-			}
+			ImmutableSet<Project> projects = new ProjectIndex(basePath, configService.loadProjects(basePath, gitIndexArg))
+					.select(ProjectFilter.of(projectIdArgs, namespaceArgs, pathArgs));
+			ProjectScheduler.run(projects, maxConcurrentProjects,
+					project -> project.projectSources().size(),
+					project -> pushService.pushMessages(project, pushOptions));
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
@@ -32,6 +32,15 @@ public interface ConfigService {
 	 */
 	ImmutableSet<Project> loadProjects(Path basePath) throws IOException;
 
+	/**
+	 * Same as {@link #loadProjects(Path)}, but optionally only reads the configuration files which are tracked by git.
+	 * These are listed from the index of the git repository instead of searching all subdirectories. Outside a git
+	 * repository all subdirectories are searched.
+	 */
+	default ImmutableSet<Project> loadProjects(Path basePath, boolean useGitIndex) throws IOException {
+		return loadProjects(basePath);
+	}
+
 	char[] getTolgeeApiKey();
 
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.config.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Controls which directories and files are searched for message files. Represents the {@code [discovery]} table in
+ * the {@code tolgee-toolbox.toml} file.
+ *
+ * @param defaultExcludes Names of directories which are never searched. {@link #DEFAULT_EXCLUDES} unless the project
+ *                        overrides them, for example to find message files below {@code target}.
+ * @param excludes Glob patterns of directories which are not searched, in addition to the {@code defaultExcludes}.
+ *                 Patterns without a {@code /} are matched against the directory name, other patterns against the path
+ *                 relative to the project path.
+ * @param gitIgnore Skip directories and files which are ignored by {@code .gitignore} files.
+ * @param gitIndex Only find files which are tracked by git, by reading the index of the git repository instead of
+ *                 searching the directory tree.
+ */
+public record DiscoverySettings(ImmutableSet<String> defaultExcludes,
+								ImmutableList<String> excludes,
+								boolean gitIgnore,
+								boolean gitIndex) {
+
+	/**
+	 * Names of directories which never contain message files which should be pushed. For example version control
+	 * metadata, IDE settings and build output (which contains copies of the message files).
+	 */
+	public static final ImmutableSet<String> DEFAULT_EXCLUDES =
+			ImmutableSet.of(".git", ".hg", ".svn", ".idea", ".gradle", "target", "node_modules");
+
+	public DiscoverySettings {
+		if (defaultExcludes == null) {
+			throw new IllegalArgumentException("'defaultExcludes' must not be null.");
+		}
+		if (excludes == null) {
+			throw new IllegalArgumentException("'excludes' must not be null.");
+		}
+	}
+
+	public static DiscoverySettings defaults() {
+		return new DiscoverySettings(DEFAULT_EXCLUDES, ImmutableList.of(), false, false);
+	}
+
+	public DiscoverySettings withDefaultExcludes(ImmutableSet<String> defaultExcludes) {
+		return new DiscoverySettings(defaultExcludes, excludes, gitIgnore, gitIndex);
+	}
+
+	public DiscoverySettings withExcludes(ImmutableList<String> excludes) {
+		return new DiscoverySettings(defaultExcludes, excludes, gitIgnore, gitIndex);
+	}
+
+	public DiscoverySettings withGitIgnore(boolean gitIgnore) {
+		return new DiscoverySettings(defaultExcludes, excludes, gitIgnore, gitIndex);
+	}
+
+	public DiscoverySettings withGitIndex(boolean gitIndex) {
+		return new DiscoverySettings(defaultExcludes, excludes, gitIgnore, gitIndex);
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.config.api;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link ProjectFilesDefinition} compiled for matching file paths (pushing) and rendering file paths (pulling).
+ * Compiled once when the configuration is loaded, so matching a file path only takes a single precompiled regex.
+ *
+ * A file path matches if it ends with the definition, so a definition without directories matches files with that name
+ * in any directory. Placeholders may occur in directory names as well as in the file name.
+ *
+ * Every occurrence of a locale placeholder in the definition is supported. When a definition contains multiple
+ * placeholders, a file path only matches if all of them contain the same locale.
+ */
+public final class FilesTemplate {
+
+	private static final String REGEX_LANGUAGE = "([a-z]{2})";
+
+	private static final String REGEX_SCRIPT = "([A-Z][a-z]{3})";
+
+	private static final String REGEX_REGION_LOWER = "([a-z]{2})";
+
+	private static final String REGEX_REGION_UPPER = "([A-Z]{2})";
+
+	/**
+	 * Part of the definition; either a literal text or a placeholder.
+	 *
+	 * @param literal The literal text, or {@code null} if this is a placeholder.
+	 * @param placeholder The placeholder, or {@code null} if this is a literal text.
+	 */
+	private record Segment(String literal, LocalePlaceholder placeholder) {}
+
+	private final String definition;
+
+	private final ImmutableList<Segment> segments;
+
+	private final int placeholderCount;
+
+	/**
+	 * Matches a slash separated file path. Every placeholder is captured by three groups: the language, the (optional)
+	 * script and the (optional) region.
+	 */
+	private final Pattern pattern;
+
+	/**
+	 * Matches the name of the files, the part of the definition after its last directory.
+	 */
+	private final Pattern fileNamePattern;
+
+	private FilesTemplate(String definition,
+						  ImmutableList<Segment> segments,
+						  int placeholderCount,
+						  Pattern pattern,
+						  Pattern fileNamePattern) {
+		this.definition = definition;
+		this.segments = segments;
+		this.placeholderCount = placeholderCount;
+		this.pattern = pattern;
+		this.fileNamePattern = fileNamePattern;
+	}
+
+	public static FilesTemplate compile(String definition, Collection<LocalePlaceholder> localePlaceholders) {
+		ImmutableList.Builder<Segment> segments = ImmutableList.builder();
+		StringBuilder regex = new StringBuilder();
+		StringBuilder fileNameRegex = new StringBuilder();
+		int placeholderCount = 0;
+
+		int position = 0;
+		while (position < definition.length()) {
+			// Find the placeholder which occurs first from the current position.
+			LocalePlaceholder nextPlaceholder = null;
+			int nextIndex = definition.length();
+			for (LocalePlaceholder localePlaceholder : localePlaceholders) {
+				int index = definition.indexOf(localePlaceholder.placeholder(), position);
+				if (index >= 0 && index < nextIndex) {
+					nextPlaceholder = localePlaceholder;
+					nextIndex = index;
+				}
+			}
+
+			if (nextIndex > position) {
+				String literal = definition.substring(position, nextIndex);
+				segments.add(new Segment(literal, null));
+				regex.append(Pattern.quote(literal));
+
+				int lastSlash = literal.lastIndexOf('/');
+				if (lastSlash >= 0) {
+					fileNameRegex.setLength(0);
+				}
+				fileNameRegex.append(Pattern.quote(literal.substring(lastSlash + 1)));
+			}
+			if (nextPlaceholder == null) {
+				break;
+			}
+
+			segments.add(new Segment(null, nextPlaceholder));
+			regex.append(toRegex(nextPlaceholder));
+			fileNameRegex.append(toRegex(nextPlaceholder));
+			placeholderCount++;
+			position = nextIndex + nextPlaceholder.placeholder().length();
+		}
+
+		if (placeholderCount < localePlaceholders.size()) {
+			throw new IllegalArgumentException(String.format("Not all locale placeholders occur in '%s'.", definition));
+		}
+
+		// The placeholders never match a slash, so the file path must end with the definition at a directory boundary.
+		return new FilesTemplate(definition, segments.build(), placeholderCount,
+				Pattern.compile("(?:.*/)?" + regex), Pattern.compile(fileNameRegex.toString()));
+	}
+
+	/**
+	 * Example regex for {@code ${locale separator=underscore, region_case=upper}}:
+	 * {@code ([a-z]{2})(?:_([A-Z][a-z]{3}))?(?:_([A-Z]{2}))?}
+	 */
+	private static String toRegex(LocalePlaceholder localePlaceholder) {
+		String separator = switch (localePlaceholder.separator()) {
+			case Dash -> "-";
+			case Underscore -> "_";
+			case null -> throw new IllegalArgumentException("Separator must never be 'null'.");
+		};
+		String region = switch (localePlaceholder.regionCase()) {
+			case Lower -> REGEX_REGION_LOWER;
+			case Upper -> REGEX_REGION_UPPER;
+			case null -> throw new IllegalArgumentException("Region case must never be 'null'.");
+		};
+
+		return REGEX_LANGUAGE + "(?:" + separator + REGEX_SCRIPT + ")?" + "(?:" + separator + region + ")?";
+	}
+
+	/**
+	 * The regex which matches the slash separated file paths of this template.
+	 */
+	public Pattern pattern() {
+		return pattern;
+	}
+
+	/**
+	 * The regex which matches the file names of this template. A file whose name matches only matches the template if
+	 * its path {@link #matches(CharSequence) matches} as well.
+	 */
+	public Pattern fileNamePattern() {
+		return fileNamePattern;
+	}
+
+	public boolean hasPlaceholders() {
+		return placeholderCount > 0;
+	}
+
+	/**
+	 * @param filePath A slash separated file path, for example relative to the project directory.
+	 */
+	public boolean matches(CharSequence filePath) {
+		return pattern.matcher(filePath).matches();
+	}
+
+	/**
+	 * Extracts the locale from a slash separated file path which matches this template.
+	 *
+	 * @return The locale in the file path, or {@code null} if the file path doesn't match the template, the template
+	 * has no placeholders or the placeholders contain different locales.
+	 */
+	public Locale matchLocale(CharSequence filePath) {
+		if (placeholderCount == 0) {
+			return null;
+		}
+
+		Matcher matcher = pattern.matcher(filePath);
+		if (!matcher.matches()) {
+			return null;
+		}
+
+		String language = matcher.group(1);
+		String script = matcher.group(2);
+		String region = matcher.group(3);
+		for (int x = 1; x < placeholderCount; x++) {
+			String otherScript = matcher.group(3 * x + 2);
+			String otherRegion = matcher.group(3 * x + 3);
+			if (!language.equals(matcher.group(3 * x + 1))
+					|| !Objects.equals(script, otherScript)
+					|| (region == null ? otherRegion != null : !region.equalsIgnoreCase(otherRegion))) {
+				return null;
+			}
+		}
+
+		if (script == null) {
+			return region == null ? Locale.of(language) : Locale.of(language, region.toUpperCase(Locale.ROOT));
+		}
+
+		Locale.Builder builder = new Locale.Builder()
+				.setLanguage(language)
+				.setScript(script);
+		if (region != null) {
+			builder.setRegion(region.toUpperCase(Locale.ROOT));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Replaces the placeholders with the locale. For example {@code Messages_nl_NL.properties} for
+	 * {@code Messages_${locale separator=underscore, region_case=upper}.properties}, or
+	 * {@code Messages_zh_Hant_TW.properties} for a locale with a script.
+	 */
+	public String render(Locale locale) {
+		if (placeholderCount == 0) {
+			return definition;
+		}
+
+		StringBuilder path = new StringBuilder(definition.length());
+		for (Segment segment : segments) {
+			if (segment.literal() != null) {
+				path.append(segment.literal());
+			} else {
+				segment.placeholder().appendTo(path, locale);
+			}
+		}
+
+		return path.toString();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof FilesTemplate that)) {
+			return false;
+		}
+		return definition.equals(that.definition) && segments.equals(that.segments);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(definition, segments);
+	}
+
+	@Override
+	public String toString() {
+		return pattern.pattern();
+	}
+}
@@ -40,22 +40,45 @@ public record LocalePlaceholder(String placeholder,
 	}
 
 	public String convertToString(Locale locale) {
-		StringBuilder localeString = new StringBuilder();
+		StringBuilder localeString = new StringBuilder(5);
+		appendTo(localeString, locale);
 
-		localeString.append(locale.getLanguage().toLowerCase());
+		return localeString.toString();
+	}
 
-		switch (separator) {
-			case Dash -> localeString.append("-");
-			case Underscore -> localeString.append("_");
+	/**
+	 * Appends the locale in the format of this placeholder. The script (for example {@code Hant} in {@code zh-Hant-TW})
+	 * is appended in title case and the region in the case of this placeholder. Only the language is appended if the
+	 * locale has neither a script nor a region.
+	 */
+	public void appendTo(StringBuilder text, Locale locale) {
+		text.append(locale.getLanguage());
+
+		String script = locale.getScript();
+		if (!script.isEmpty()) {
+			appendSeparator(text);
+			text.append(script);
 		}
 
-		switch (regionCase) {
-			case Lower -> localeString.append(locale.getCountry().toLowerCase());
-			case Upper -> localeString.append(locale.getCountry().toUpperCase());
+		String country = locale.getCountry();
+		if (country.isEmpty()) {
+			return;
 		}
 
-		return localeString.toString();
+		appendSeparator(text);
+		for (int x = 0; x < country.length(); x++) {
+			char c = country.charAt(x);
+			switch (regionCase) {
+				case Lower -> text.append(Character.toLowerCase(c));
+				case Upper -> text.append(Character.toUpperCase(c));
+			}
+		}
 	}
 
-
+	private void appendSeparator(StringBuilder text) {
+		switch (separator) {
+			case Dash -> text.append('-');
+			case Underscore -> text.append('_');
+		}
+	}
 }
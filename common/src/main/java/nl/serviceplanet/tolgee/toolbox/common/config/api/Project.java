@@ -32,5 +32,6 @@ public record Project(
 		String namespace,
 		long tolgeeProjectId,
 		ImmutableSet<ProjectFile> projectSources,
-		ImmutableSet<ProjectFile> projectTargets
+		ImmutableSet<ProjectFile> projectTargets,
+		DiscoverySettings discovery
 ) {}
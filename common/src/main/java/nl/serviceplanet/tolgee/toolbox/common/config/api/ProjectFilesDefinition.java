@@ -23,9 +23,15 @@ import com.google.common.collect.ImmutableSet;
  * 
  * @param projectFileDefinition The definition as present in the configuration.
  * @param localePlaceholders The parsed locale placeholders in the {@code projectFileDefinition}.
+ * @param template The compiled {@code projectFileDefinition}.
  * 
  * @author Jasper Siepkes <siepkes@serviceplanet.nl>
  */
 public record ProjectFilesDefinition(String projectFileDefinition,
-									 ImmutableSet<LocalePlaceholder> localePlaceholders) {
+									 ImmutableSet<LocalePlaceholder> localePlaceholders,
+									 FilesTemplate template) {
+
+	public ProjectFilesDefinition(String projectFileDefinition, ImmutableSet<LocalePlaceholder> localePlaceholders) {
+		this(projectFileDefinition, localePlaceholders, FilesTemplate.compile(projectFileDefinition, localePlaceholders));
+	}
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.config.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collection;
+
+/**
+ * Selects which of the loaded projects are processed. A project is selected if it matches every criterion which is
+ * not empty, and any of the values of that criterion.
+ *
+ * @param projectIds IDs of the projects in Tolgee.
+ * @param namespaces Namespaces of the projects. An empty string selects projects without a namespace.
+ * @param pathGlobs Glob patterns which are matched against the project path relative to the base path. The project at
+ *                  the base path itself has an empty relative path.
+ */
+public record ProjectFilter(ImmutableSet<Long> projectIds, ImmutableSet<String> namespaces, ImmutableList<String> pathGlobs) {
+
+	public ProjectFilter {
+		if (projectIds == null) {
+			throw new IllegalArgumentException("'projectIds' must not be null.");
+		}
+		if (namespaces == null) {
+			throw new IllegalArgumentException("'namespaces' must not be null.");
+		}
+		if (pathGlobs == null) {
+			throw new IllegalArgumentException("'pathGlobs' must not be null.");
+		}
+	}
+
+	/**
+	 * Selects all projects.
+	 */
+	public static ProjectFilter all() {
+		return new ProjectFilter(ImmutableSet.of(), ImmutableSet.of(), ImmutableList.of());
+	}
+
+	/**
+	 * Creates a filter from optional criteria, {@code null} selects projects regardless of that criterion.
+	 */
+	public static ProjectFilter of(Collection<Long> projectIds, Collection<String> namespaces, Collection<String> pathGlobs) {
+		return new ProjectFilter(
+				projectIds == null ? ImmutableSet.of() : ImmutableSet.copyOf(projectIds),
+				namespaces == null ? ImmutableSet.of() : ImmutableSet.copyOf(namespaces),
+				pathGlobs == null ? ImmutableList.of() : ImmutableList.copyOf(pathGlobs));
+	}
+
+	public ProjectFilter withProjectIds(ImmutableSet<Long> projectIds) {
+		return new ProjectFilter(projectIds, namespaces, pathGlobs);
+	}
+
+	public ProjectFilter withNamespaces(ImmutableSet<String> namespaces) {
+		return new ProjectFilter(projectIds, namespaces, pathGlobs);
+	}
+
+	public ProjectFilter withPathGlobs(ImmutableList<String> pathGlobs) {
+		return new ProjectFilter(projectIds, namespaces, pathGlobs);
+	}
+
+	/**
+	 * @return {@code true} if this filter selects all projects.
+	 */
+	public boolean isAll() {
+		return projectIds.isEmpty() && namespaces.isEmpty() && pathGlobs.isEmpty();
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.config.api;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimaps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The projects loaded from a base path, indexed by their Tolgee project ID and namespace so a {@link ProjectFilter}
+ * can select projects without looking at every project.
+ */
+public final class ProjectIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(ProjectIndex.class);
+
+	private final Path basePath;
+
+	private final ImmutableSet<Project> projects;
+
+	private final ImmutableListMultimap<Long, Project> projectsById;
+
+	/**
+	 * Projects without a namespace are indexed under the empty string.
+	 */
+	private final ImmutableListMultimap<String, Project> projectsByNamespace;
+
+	public ProjectIndex(Path basePath, ImmutableSet<Project> projects) {
+		this.basePath = basePath.toAbsolutePath().normalize();
+		this.projects = projects;
+		this.projectsById = Multimaps.index(projects, Project::tolgeeProjectId);
+		this.projectsByNamespace = Multimaps.index(projects, project -> Strings.nullToEmpty(project.namespace()));
+	}
+
+	public ImmutableSet<Project> projects() {
+		return projects;
+	}
+
+	/**
+	 * @return The selected projects, in the order in which they were loaded.
+	 */
+	public ImmutableSet<Project> select(ProjectFilter filter) {
+		if (filter.isAll()) {
+			return projects;
+		}
+
+		// Start from the smallest indexed candidate set; the remaining criteria are checked per candidate.
+		Set<Project> candidates = null;
+		if (!filter.projectIds().isEmpty()) {
+			candidates = lookup(projectsById, filter.projectIds());
+		}
+		if (!filter.namespaces().isEmpty()) {
+			Set<Project> namespaceCandidates = lookup(projectsByNamespace, filter.namespaces());
+			if (candidates == null) {
+				candidates = namespaceCandidates;
+			} else {
+				candidates.retainAll(namespaceCandidates);
+			}
+		}
+
+		List<PathMatcher> pathMatchers = pathMatchers(filter.pathGlobs());
+		Set<Project> candidateProjects = candidates == null ? projects : candidates;
+		ImmutableSet<Project> selectedProjects = projects.stream()
+				.filter(candidateProjects::contains)
+				.filter(project -> pathMatchers.isEmpty() || matchesPath(project, pathMatchers))
+				.collect(ImmutableSet.toImmutableSet());
+
+		if (selectedProjects.isEmpty()) {
+			log.warn("None of the {} projects in '{}' match {}.", projects.size(), basePath, filter);
+		} else {
+			log.info("Selected {} of {} projects in '{}'.", selectedProjects.size(), projects.size(), basePath);
+		}
+
+		return selectedProjects;
+	}
+
+	private static <K> Set<Project> lookup(ImmutableListMultimap<K, Project> index, Set<K> keys) {
+		Set<Project> projects = new HashSet<>();
+		for (K key : keys) {
+			projects.addAll(index.get(key));
+		}
+
+		return projects;
+	}
+
+	private List<PathMatcher> pathMatchers(ImmutableList<String> pathGlobs) {
+		FileSystem fileSystem = basePath.getFileSystem();
+		return pathGlobs.stream()
+				.map(glob -> fileSystem.getPathMatcher("glob:" + glob))
+				.collect(Collectors.toList());
+	}
+
+	private boolean matchesPath(Project project, List<PathMatcher> pathMatchers) {
+		Path relativePath = basePath.relativize(project.projectPath().toAbsolutePath().normalize());
+		for (PathMatcher pathMatcher : pathMatchers) {
+			if (pathMatcher.matches(relativePath)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.config.toml;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.LocalePlaceholder;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFile;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFilesDefinition;
+import nl.serviceplanet.tolgee.toolbox.common.io.AtomicFileWriter;
+import nl.serviceplanet.tolgee.toolbox.common.io.FileHashes;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the projects loaded from the config files under a base path on disk, so a later run in the same workspace can
+ * skip searching and parsing the config files.
+ *
+ * The cache records the modification time of every searched directory and the size, modification time and content
+ * hash of every config file. It is only used when none of the directories changed (a new or removed config file
+ * changes the modification time of its directory) and all config files have the same content. Since writing message
+ * files also changes the modification time of a directory, a directory whose modification time changed is listed
+ * again; it is still considered unchanged if it has the same subdirectories and config file as before. Modification
+ * times from shortly before the cache was created are never trusted, since a file system may not record modification
+ * times precisely enough to notice a change made in the same instant.
+ */
+public final class ConfigCache {
+
+	private static final Logger log = LoggerFactory.getLogger(ConfigCache.class);
+
+	private static final int VERSION = 3;
+
+	/**
+	 * Modification times this close to the start of loading the config are considered unreliable.
+	 */
+	private static final long RACY_MILLIS = 2000;
+
+	private static final Gson gson = new Gson();
+
+	/**
+	 * The state of a config file when it was parsed.
+	 */
+	record ConfigFileState(long size, long lastModifiedMillis, String sha256) {}
+
+	/**
+	 * @param fingerprint Hash of the names of the (not excluded) subdirectories and whether the directory contains a
+	 *                    config file.
+	 */
+	private record DirectoryEntry(String path, long lastModifiedMillis, String fingerprint) {}
+
+	private record ConfigFileEntry(String path, long size, long lastModifiedMillis, String sha256) {}
+
+	private record PlaceholderEntry(String placeholder, LocalePlaceholder.Case regionCase, LocalePlaceholder.Separator separator) {}
+
+	private record ProjectFileEntry(String files,
+									List<PlaceholderEntry> placeholders,
+									ImportMessageFormatType sourceMessageFormatType,
+									ExportMessageFormatType targetMessageFormatType,
+									String locale,
+									List<String> excludedLocales) {}
+
+	private record ProjectEntry(String path,
+								String tolgeeApiUri,
+								boolean missingNamespaceFail,
+								String namespace,
+								long tolgeeProjectId,
+								List<ProjectFileEntry> sources,
+								List<ProjectFileEntry> targets,
+								List<String> discoveryDefaultExcludes,
+								List<String> discoveryExcludes,
+								boolean discoveryGitIgnore,
+								boolean discoveryGitIndex) {}
+
+	/**
+	 * @param loadStartedMillis When loading the config, whose result is cached, started.
+	 */
+	private record CacheFile(int version,
+							 long loadStartedMillis,
+							 List<DirectoryEntry> directories,
+							 List<ConfigFileEntry> configFiles,
+							 List<ProjectEntry> projects) {}
+
+	private final Path cacheDirectory;
+
+	/**
+	 * @param cacheDirectory The directory with the cache files. When {@code null} nothing is cached.
+	 */
+	public ConfigCache(Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	public static ConfigCache disabled() {
+		return new ConfigCache(null);
+	}
+
+	/**
+	 * @return The cached projects under the base path, if they are still up-to-date.
+	 */
+	Optional<ImmutableSet<Project>> load(Path basePath) {
+		if (cacheDirectory == null) {
+			return Optional.empty();
+		}
+
+		Path cacheFile = cacheDirectory.resolve(cacheFileName(basePath));
+		CacheFile cache;
+		try (Reader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+			cache = gson.fromJson(reader, CacheFile.class);
+		} catch (NoSuchFileException e) {
+			log.debug("No cached configuration for '{}' yet.", basePath);
+			return Optional.empty();
+		} catch (IOException | JsonParseException e) {
+			log.warn("Ignoring unreadable configuration cache '{}'.", cacheFile, e);
+			return Optional.empty();
+		}
+
+		if (cache == null || cache.version() != VERSION) {
+			return Optional.empty();
+		}
+
+		try {
+			if (!isUpToDate(basePath, cache)) {
+				log.debug("Cached configuration for '{}' is out-of-date.", basePath);
+				return Optional.empty();
+			}
+
+			return Optional.of(cache.projects().stream()
+					.map(projectEntry -> toProject(basePath, projectEntry))
+					.collect(ImmutableSet.toImmutableSet()));
+		} catch (RuntimeException e) {
+			log.warn("Ignoring unusable configuration cache '{}'.", cacheFile, e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Stores the projects under the base path. Failing to store the projects is logged, but not fatal.
+	 *
+	 * @param loadStartedMillis When searching the directories and parsing the config files started.
+	 */
+	void save(Path basePath,
+			  long loadStartedMillis,
+			  ImmutableSet<Project> projects,
+			  Map<Path, Long> directories,
+			  Map<Path, ConfigFileState> configFiles) {
+		if (cacheDirectory == null) {
+			return;
+		}
+
+		// The searched subdirectories are exactly the subdirectories which are not excluded.
+		ListMultimap<Path, String> subdirectories = MultimapBuilder.hashKeys().arrayListValues().build();
+		for (Path directory : directories.keySet()) {
+			if (!directory.equals(basePath)) {
+				subdirectories.put(directory.getParent(), directory.getFileName().toString());
+			}
+		}
+
+		ImmutableList.Builder<DirectoryEntry> directoryEntries = ImmutableList.builderWithExpectedSize(directories.size());
+		directories.forEach((directory, lastModifiedMillis) -> directoryEntries.add(new DirectoryEntry(
+				relativize(basePath, directory),
+				lastModifiedMillis,
+				fingerprint(subdirectories.get(directory), configFiles.containsKey(directory.resolve(TomlConfigService.TOLGEE_TOOLBOX))))));
+
+		ImmutableList.Builder<ConfigFileEntry> configFileEntries = ImmutableList.builderWithExpectedSize(configFiles.size());
+		configFiles.forEach((configFile, state) -> configFileEntries.add(new ConfigFileEntry(
+				relativize(basePath, configFile), state.size(), state.lastModifiedMillis(), state.sha256())));
+
+		CacheFile cache = new CacheFile(VERSION,
+				loadStartedMillis,
+				directoryEntries.build(),
+				configFileEntries.build(),
+				projects.stream()
+						.map(project -> toProjectEntry(basePath, project))
+						.collect(ImmutableList.toImmutableList()));
+
+		Path cacheFile = cacheDirectory.resolve(cacheFileName(basePath));
+		try {
+			byte[] json = gson.toJson(cache).getBytes(StandardCharsets.UTF_8);
+			AtomicFileWriter.write(cacheFile, new ByteArrayInputStream(json), false);
+		} catch (IOException e) {
+			log.warn("Unable to write configuration cache '{}'.", cacheFile, e);
+		}
+	}
+
+	/**
+	 * Checks the directories and config files in parallel.
+	 */
+	private static boolean isUpToDate(Path basePath, CacheFile cache) {
+		long racyAfterMillis = cache.loadStartedMillis() - RACY_MILLIS;
+
+		return cache.directories().parallelStream().allMatch(entry -> {
+			Path directory = basePath.resolve(entry.path());
+			try {
+				long lastModifiedMillis = Files.getLastModifiedTime(directory).toMillis();
+				if (lastModifiedMillis == entry.lastModifiedMillis() && lastModifiedMillis < racyAfterMillis) {
+					return true;
+				}
+
+				// Modified (or racy), but possibly only message files were written.
+				return currentFingerprint(directory).equals(entry.fingerprint());
+			} catch (NoSuchFileException e) {
+				return false;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}) && cache.configFiles().parallelStream().allMatch(entry -> {
+			Path configFile = basePath.resolve(entry.path());
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(configFile, BasicFileAttributes.class);
+				if (attributes.size() != entry.size()) {
+					return false;
+				}
+
+				long lastModifiedMillis = attributes.lastModifiedTime().toMillis();
+				if (lastModifiedMillis == entry.lastModifiedMillis() && lastModifiedMillis < racyAfterMillis) {
+					return true;
+				}
+
+				// Touched (or racy), but possibly with the same content.
+				return FileHashes.sha256(configFile).equals(entry.sha256());
+			} catch (NoSuchFileException e) {
+				return false;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	private static String currentFingerprint(Path directory) throws IOException {
+		List<String> subdirectoryNames = new ArrayList<>();
+		boolean hasConfigFile = false;
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+			for (Path entry : entries) {
+				String name = entry.getFileName().toString();
+				if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+					if (!DiscoverySettings.DEFAULT_EXCLUDES.contains(name)) {
+						subdirectoryNames.add(name);
+					}
+				} else if (name.equals(TomlConfigService.TOLGEE_TOOLBOX)) {
+					hasConfigFile = true;
+				}
+			}
+		}
+
+		return fingerprint(subdirectoryNames, hasConfigFile);
+	}
+
+	private static String fingerprint(Collection<String> subdirectoryNames, boolean hasConfigFile) {
+		List<String> sortedNames = new ArrayList<>(subdirectoryNames);
+		Collections.sort(sortedNames);
+		sortedNames.add(String.valueOf(hasConfigFile));
+
+		return Hashing.sha256().hashString(String.join("\n", sortedNames), StandardCharsets.UTF_8).toString();
+	}
+
+	private static ProjectEntry toProjectEntry(Path basePath, Project project) {
+		return new ProjectEntry(relativize(basePath, project.projectPath()),
+				project.tolgeeApiURI().toString(),
+				project.missingNamespaceFail(),
+				project.namespace(),
+				project.tolgeeProjectId(),
+				project.projectSources().stream().map(ConfigCache::toProjectFileEntry).toList(),
+				project.projectTargets().stream().map(ConfigCache::toProjectFileEntry).toList(),
+				project.discovery().defaultExcludes().asList(),
+				project.discovery().excludes(),
+				project.discovery().gitIgnore(),
+				project.discovery().gitIndex());
+	}
+
+	private static ProjectFileEntry toProjectFileEntry(ProjectFile projectFile) {
+		return new ProjectFileEntry(projectFile.files().projectFileDefinition(),
+				projectFile.files().localePlaceholders().stream()
+						.map(placeholder -> new PlaceholderEntry(placeholder.placeholder(), placeholder.regionCase(),
+								placeholder.separator()))
+						.toList(),
+				projectFile.sourceMessageFormatType(),
+				projectFile.targetMessageFormatType(),
+				projectFile.locale() == null ? null : projectFile.locale().toLanguageTag(),
+				projectFile.excludedLocales().stream().map(Locale::toLanguageTag).toList());
+	}
+
+	private static Project toProject(Path basePath, ProjectEntry entry) {
+		return new Project(basePath.resolve(entry.path()),
+				URI.create(entry.tolgeeApiUri()),
+				entry.missingNamespaceFail(),
+				entry.namespace(),
+				entry.tolgeeProjectId(),
+				entry.sources().stream().map(ConfigCache::toProjectFile).collect(ImmutableSet.toImmutableSet()),
+				entry.targets().stream().map(ConfigCache::toProjectFile).collect(ImmutableSet.toImmutableSet()),
+				new DiscoverySettings(ImmutableSet.copyOf(entry.discoveryDefaultExcludes()),
+						ImmutableList.copyOf(entry.discoveryExcludes()), entry.discoveryGitIgnore(),
+						entry.discoveryGitIndex()));
+	}
+
+	private static ProjectFile toProjectFile(ProjectFileEntry entry) {
+		ImmutableSet<LocalePlaceholder> placeholders = entry.placeholders().stream()
+				.map(placeholder -> new LocalePlaceholder(placeholder.placeholder(), placeholder.regionCase(),
+						placeholder.separator()))
+				.collect(ImmutableSet.toImmutableSet());
+
+		return new ProjectFile(new ProjectFilesDefinition(entry.files(), placeholders),
+				entry.sourceMessageFormatType(),
+				entry.targetMessageFormatType(),
+				entry.locale() == null ? null : Locale.forLanguageTag(entry.locale()),
+				entry.excludedLocales().stream().map(Locale::forLanguageTag).collect(ImmutableSet.toImmutableSet()));
+	}
+
+	/**
+	 * Paths are stored relative to the base path, so the cached projects have the same paths as freshly loaded
+	 * projects, whether the base path is absolute or relative.
+	 */
+	private static String relativize(Path basePath, Path path) {
+		return basePath.relativize(path).toString();
+	}
+
+	private static String cacheFileName(Path basePath) {
+		String basePathKey = basePath.toAbsolutePath().normalize().toString();
+
+		return Hashing.sha256().hashString(basePathKey, StandardCharsets.UTF_8) + ".json";
+	}
+}
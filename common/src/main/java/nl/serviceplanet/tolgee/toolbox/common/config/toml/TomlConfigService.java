@@ -17,14 +17,21 @@ package nl.serviceplanet.tolgee.toolbox.common.config.toml;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import nl.serviceplanet.tolgee.toolbox.common.config.AbstractConfigService;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ConfigService;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFile;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFilesDefinition;
+import nl.serviceplanet.tolgee.toolbox.common.discovery.DirectoryIndex;
+import nl.serviceplanet.tolgee.toolbox.common.discovery.DirectoryIndexes;
+import nl.serviceplanet.tolgee.toolbox.common.discovery.FileDiscovery;
 import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
 import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
 import nl.serviceplanet.tolgee.toolbox.common.model.ProjectType;
@@ -36,15 +43,25 @@ import org.tomlj.TomlParseResult;
 import org.tomlj.TomlTable;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * @author Jasper Siepkes <siepkes@serviceplanet.nl>
@@ -54,57 +71,162 @@ public final class TomlConfigService extends AbstractConfigService implements Co
 
 	private static final Logger log = LoggerFactory.getLogger(TomlConfigService.class);
 
-	private static final String TOLGEE_TOOLBOX = "tolgee-toolbox.toml";
+	static final String TOLGEE_TOOLBOX = "tolgee-toolbox.toml";
 	
-	@Inject
+	private final ConfigCache configCache;
+
+	private final DirectoryIndexes directoryIndexes;
+
+	/**
+	 * Creates a config service which doesn't cache the loaded projects.
+	 */
 	public TomlConfigService() {
+		this(ConfigCache.disabled(), new DirectoryIndexes());
+	}
+
+	/**
+	 * @param directoryIndexes Receives the index of the directory tree below the base path, so the message files can
+	 *                         be found without walking the directory tree again.
+	 */
+	@Inject
+	public TomlConfigService(ConfigCache configCache, DirectoryIndexes directoryIndexes) {
+		this.configCache = configCache;
+		this.directoryIndexes = directoryIndexes;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	public ImmutableSet<Project> loadProjects(Path basePath) throws IOException {
-		// Find all .tolgee-toolbox files under the base path.
-		ImmutableList<Path> configFiles = Files.walk(basePath, 1000)
-				.filter(path -> path.getFileName().toString().equals(TOLGEE_TOOLBOX))
-				.collect(ImmutableList.toImmutableList());
+		return loadProjects(basePath, false);
+	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The projects are only cached when the directory tree is searched; reading the git index is already fast and
+	 * changes to the index can't be detected cheaply.
+	 */
+	@Override
+	public ImmutableSet<Project> loadProjects(Path basePath, boolean useGitIndex) throws IOException {
+		if (!useGitIndex) {
+			Optional<ImmutableSet<Project>> cachedProjects = configCache.load(basePath);
+			if (cachedProjects.isPresent()) {
+				log.debug("Using cached configuration for '{}'.", basePath);
+				directoryIndexes.addLazily(basePath);
+				return cachedProjects.get();
+			}
+		}
+
+		long loadStartedMillis = System.currentTimeMillis();
+
+		// Find all tolgee-toolbox.toml files under the base path, without descending into build output such as
+		// 'target/' (Maven copies the config files to the Java build target path).
+		ImmutableMap<String, Pattern> configFilePattern =
+				ImmutableMap.of(TOLGEE_TOOLBOX, Pattern.compile(Pattern.quote(TOLGEE_TOOLBOX)));
+		Map<Path, Long> directories = new ConcurrentHashMap<>();
+		ImmutableList<Path> configFiles;
+		if (useGitIndex) {
+			configFiles = FileDiscovery.find(basePath, configFilePattern, DiscoverySettings.defaults().withGitIndex(true))
+					.get(TOLGEE_TOOLBOX);
+		} else {
+			// The same walk indexes the candidate message files of all projects.
+			DirectoryIndex directoryIndex = DirectoryIndex.build(basePath,
+					(directory, attributes) -> directories.put(directory, attributes.lastModifiedTime().toMillis()));
+			directoryIndexes.add(basePath, directoryIndex);
+			configFiles = directoryIndex.find(basePath, configFilePattern, DiscoverySettings.defaults())
+					.get(TOLGEE_TOOLBOX);
+		}
+
+		Map<Path, ParsedConfigFile> parsedConfigFiles = parseConfigFiles(configFiles);
+
+		// Resolve the settings of parent directories first, so every config file only has to look at its nearest
+		// parent config file.
+		List<Path> parentsFirst = new ArrayList<>(configFiles);
+		parentsFirst.sort(Comparator.comparingInt(Path::getNameCount));
+
+		Map<Path, InheritedSettings> settingsByConfigFile = new HashMap<>();
 		ImmutableSet.Builder<Project> projects = ImmutableSet.builder();
+		for (Path configFile : parentsFirst) {
+			TomlParseResult result = parsedConfigFiles.get(configFile).result();
 
-		for (Path configFile : configFiles) {
-			if (configFile.toString().contains("/target/classes/")) {
-				// Prevents tolgee-toolbox from picking up config files copied by Maven to the Java build target path.
-				log.trace("Ignoring build artifact path '{}'.", configFile);
-				continue;
+			InheritedSettings settings = InheritedSettings.of(result);
+			Path parentConfigFile = findParentConfigFile(basePath, configFile, parsedConfigFiles.keySet());
+			if (parentConfigFile != null) {
+				settings = settings.inherit(settingsByConfigFile.get(parentConfigFile));
 			}
-			
-			List<Path> configFileHierarchy = new ArrayList<>();
-
-			// Find all .tolgee-toolbox files which are in parent directories of this .tolgee-toolbox file.
-			Path parentPath = configFile.getParent();
-			while(parentPath != null) {
-				Path parentTolgeeToolboxPath = parentPath.resolve(TOLGEE_TOOLBOX);
-				if (configFiles.contains(parentTolgeeToolboxPath)) {
-					configFileHierarchy.add(parentTolgeeToolboxPath);
-				}
+			settingsByConfigFile.put(configFile, settings);
+
+			projects.addAll(createProjects(configFile, result, settings));
+		}
+
+		ImmutableSet<Project> loadedProjects = projects.build();
+		if (!useGitIndex) {
+			configCache.save(basePath, loadStartedMillis, loadedProjects, directories,
+					Maps.transformValues(parsedConfigFiles, ParsedConfigFile::state));
+		}
+
+		return loadedProjects;
+	}
+
+	/**
+	 * @param state The state of the config file when it was read, for {@link ConfigCache}.
+	 */
+	private record ParsedConfigFile(TomlParseResult result, ConfigCache.ConfigFileState state) {}
 
-				if (parentPath.getParent() != null && parentPath.getParent().startsWith(basePath)) {
-					parentPath = parentPath.getParent();
-				} else {
-					parentPath = null;
+	/**
+	 * Reads and parses every config file exactly once. The files are parsed in parallel.
+	 */
+	private static Map<Path, ParsedConfigFile> parseConfigFiles(List<Path> configFiles) throws IOException {
+		try {
+			return configFiles.parallelStream().collect(Collectors.toMap(Function.identity(), configFile -> {
+				try {
+					// Read before the content, so a change while reading results in a different modification time.
+					BasicFileAttributes attributes = Files.readAttributes(configFile, BasicFileAttributes.class);
+					byte[] content = Files.readAllBytes(configFile);
+
+					TomlParseResult result = Toml.parse(new String(content, StandardCharsets.UTF_8));
+					result.errors().forEach(error -> log.warn("TOML parsing error in '{}': {}", configFile, error));
+
+					return new ParsedConfigFile(result, new ConfigCache.ConfigFileState(content.length,
+							attributes.lastModifiedTime().toMillis(), Hashing.sha256().hashBytes(content).toString()));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
 				}
-			}
+			}));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
 
-			projects.addAll(createProjects(configFileHierarchy));
+	/**
+	 * @return The config file in the nearest parent directory (up to the base path), or {@code null} if there is none.
+	 */
+	private static Path findParentConfigFile(Path basePath, Path configFile, Set<Path> configFiles) {
+		for (Path directory = configFile.getParent().getParent();
+			 directory != null && directory.startsWith(basePath);
+			 directory = directory.getParent()) {
+			Path parentConfigFile = directory.resolve(TOLGEE_TOOLBOX);
+			if (configFiles.contains(parentConfigFile)) {
+				return parentConfigFile;
+			}
 		}
 
-		return projects.build();
+		return null;
 	}
-	
+
 	private static final String TOML_TOLGEE_API_URL = "tolgee.api.url";
 	
 	private static final String TOML_GENERAL_MISSING_NAME_SPACE_FAIL = "general.missing_namespace_fail";
 	
+	private static final String TOML_DISCOVERY_DEFAULT_EXCLUDES = "discovery.default_excludes";
+
+	private static final String TOML_DISCOVERY_EXCLUDES = "discovery.excludes";
+
+	private static final String TOML_DISCOVERY_GITIGNORE = "discovery.gitignore";
+
+	private static final String TOML_DISCOVERY_GIT_INDEX = "discovery.git_index";
+
 	private static final String TOML_PROJECTS_TOLGEE_ID = "tolgee.id";
 	
 	private static final String TOML_PROJECTS_NAMESPACE = "tolgee.namespace";
@@ -122,48 +244,71 @@ public final class TomlConfigService extends AbstractConfigService implements Co
 	private static final String TOML_PROJECTS_EXCLUDED_LOCALES = "excluded_locales";
 
 	/**
-	 * Creates {@link Project} instances based on the supplied {@code configFileHierarchy}. Only the projects for the
-	 * top level config in the hierarchy are created. The other config files are used to override configs such as
-	 * the Tolgee API URL.
+	 * Settings which config files inherit from the config files in parent directories. A {@code null} value means the
+	 * setting is not specified.
 	 */
-	private List<Project> createProjects(List<Path> configFileHierarchy) throws IOException {
-		if (configFileHierarchy.isEmpty()) {
-			return Collections.emptyList();
+	private record InheritedSettings(URI tolgeeApiUrl,
+									 Boolean missingNamespaceFail,
+									 TomlArray discoveryDefaultExcludes,
+									 TomlArray discoveryExcludes,
+									 Boolean discoveryGitIgnore,
+									 Boolean discoveryGitIndex) {
+
+		private static InheritedSettings of(TomlParseResult result) {
+			String uri = result.getString(TOML_TOLGEE_API_URL);
+
+			return new InheritedSettings(
+					uri == null ? null : URI.create(uri),
+					result.getBoolean(TOML_GENERAL_MISSING_NAME_SPACE_FAIL),
+					result.getArray(TOML_DISCOVERY_DEFAULT_EXCLUDES),
+					result.getArray(TOML_DISCOVERY_EXCLUDES),
+					result.getBoolean(TOML_DISCOVERY_GITIGNORE),
+					result.getBoolean(TOML_DISCOVERY_GIT_INDEX));
 		}
 
-		List<Project> projects = new ArrayList<>();
+		/**
+		 * Fills the settings which are not specified with the settings of the parent.
+		 */
+		private InheritedSettings inherit(InheritedSettings parent) {
+			return new InheritedSettings(
+					tolgeeApiUrl != null ? tolgeeApiUrl : parent.tolgeeApiUrl(),
+					missingNamespaceFail != null ? missingNamespaceFail : parent.missingNamespaceFail(),
+					discoveryDefaultExcludes != null ? discoveryDefaultExcludes : parent.discoveryDefaultExcludes(),
+					discoveryExcludes != null ? discoveryExcludes : parent.discoveryExcludes(),
+					discoveryGitIgnore != null ? discoveryGitIgnore : parent.discoveryGitIgnore(),
+					discoveryGitIndex != null ? discoveryGitIndex : parent.discoveryGitIndex());
+		}
+	}
 
-		URI tolgeeApiUrl = null;
-		Boolean missingNamespaceFail = null;
+	/**
+	 * Creates {@link Project} instances for the projects in a config file. The inherited settings are used for
+	 * settings such as the Tolgee API URL.
+	 */
+	private List<Project> createProjects(Path configFile, TomlParseResult result, InheritedSettings settings) {
+		List<Project> projects = new ArrayList<>();
 
-		// Search for inheritable options.
-		for (Path configFile : configFileHierarchy) {
-			TomlParseResult result = Toml.parse(configFile);
-			result.errors().forEach(error -> log.warn(error.toString()));
+		URI tolgeeApiUrl = settings.tolgeeApiUrl();
+		boolean missingNamespaceFail = Boolean.TRUE.equals(settings.missingNamespaceFail());
 
-			if (tolgeeApiUrl == null) {
-				String uri = result.getString(TOML_TOLGEE_API_URL);
-				if (uri != null) {
-					tolgeeApiUrl = URI.create(uri);
-				}
-			}
-			if (missingNamespaceFail == null) {
-				missingNamespaceFail = result.getBoolean(TOML_GENERAL_MISSING_NAME_SPACE_FAIL);
-			}
+		DiscoverySettings discovery = DiscoverySettings.defaults();
+		if (settings.discoveryDefaultExcludes() != null) {
+			discovery = discovery.withDefaultExcludes(
+					ImmutableSet.copyOf(parseTomlStringArray(settings.discoveryDefaultExcludes())));
+		}
+		if (settings.discoveryExcludes() != null) {
+			discovery = discovery.withExcludes(parseTomlStringArray(settings.discoveryExcludes()));
 		}
-		if (missingNamespaceFail == null) {
-			missingNamespaceFail = false;
+		if (settings.discoveryGitIgnore() != null) {
+			discovery = discovery.withGitIgnore(settings.discoveryGitIgnore());
+		}
+		if (settings.discoveryGitIndex() != null) {
+			discovery = discovery.withGitIndex(settings.discoveryGitIndex());
 		}
 
 		if (tolgeeApiUrl == null) {
 			throw new IllegalStateException(String.format("'%s' setting not found.", TOML_TOLGEE_API_URL));
 		}
 
-		// Fetch the projects from the deepest .tolgee-toolbox file.
-		Path deepestConfig = configFileHierarchy.getFirst();
-		TomlParseResult result = Toml.parse(deepestConfig);
-		result.errors().forEach(error -> log.warn("TOML parsing error: {}", error.toString()));
-
 		Set<Long> projectIds = new HashSet<>();
 		TomlArray projectsArray = result.getArrayOrEmpty("projects");
 		for (int x = 0; x < projectsArray.size(); x++) {
@@ -172,23 +317,24 @@ public final class TomlConfigService extends AbstractConfigService implements Co
 			Long projectId = projectTable.getLong(TOML_PROJECTS_TOLGEE_ID);
 			if (projectId == null) {
 				throw new IllegalArgumentException(String.format("Config file '%s' is missing '%s'.",
-						deepestConfig, TOML_PROJECTS_TOLGEE_ID));
+						configFile, TOML_PROJECTS_TOLGEE_ID));
 			}
 			if (!projectIds.add(projectId)) {
 				throw new IllegalArgumentException(String.format("Config file '%s' contains duplicate '%s': %s.",
-						deepestConfig, TOML_PROJECTS_TOLGEE_ID, projectId));
+						configFile, TOML_PROJECTS_TOLGEE_ID, projectId));
 			}
 
 			String namespace = projectTable.getString(TOML_PROJECTS_NAMESPACE);
 
 			projects.add(new Project(
-					deepestConfig.getParent(),
+					configFile.getParent(),
 					tolgeeApiUrl,
 					missingNamespaceFail,
 					namespace,
 					projectId,
 					toProjectFiles(projectTable, ProjectType.SOURCE),
-					toProjectFiles(projectTable, ProjectType.TARGET)));
+					toProjectFiles(projectTable, ProjectType.TARGET),
+					discovery));
 		}
 
 		return projects;
@@ -236,6 +382,15 @@ public final class TomlConfigService extends AbstractConfigService implements Co
 		return projectFiles.build();
 	}
 
+	private ImmutableList<String> parseTomlStringArray(TomlArray tomlArray) {
+		ImmutableList.Builder<String> strings = ImmutableList.builderWithExpectedSize(tomlArray.size());
+		for (int z = 0; z < tomlArray.size(); z++) {
+			strings.add(tomlArray.getString(z));
+		}
+
+		return strings.build();
+	}
+
 	/**
 	 * Parses an TOML array with locales ({@code ["en-US", "nl-NL"]}) to a Set of Java {@link Locale} instances.
 	 */
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.convert;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes JSON message files. Flat files (Tolgee's own JSON format) are written as soon as the messages are received;
+ * nested files are written once all messages are known.
+ */
+final class JsonMessageWriter implements MessageWriter {
+
+	private final JsonWriter jsonWriter;
+
+	/**
+	 * {@code null} for flat files.
+	 */
+	private final KeyTree keyTree;
+
+	private boolean started = false;
+
+	JsonMessageWriter(Writer writer, boolean nested) {
+		this.jsonWriter = new JsonWriter(writer);
+		this.jsonWriter.setIndent("  ");
+		this.keyTree = nested ? new KeyTree() : null;
+	}
+
+	@Override
+	public void write(String key, String message) throws IOException {
+		if (keyTree != null) {
+			keyTree.put(key, message);
+			return;
+		}
+
+		start();
+		jsonWriter.name(key).value(message);
+	}
+
+	@Override
+	public void finish() throws IOException {
+		if (keyTree != null) {
+			writeTree(keyTree);
+		} else {
+			start();
+			jsonWriter.endObject();
+		}
+
+		jsonWriter.flush();
+	}
+
+	private void start() throws IOException {
+		if (!started) {
+			jsonWriter.beginObject();
+			started = true;
+		}
+	}
+
+	private void writeTree(KeyTree tree) throws IOException {
+		jsonWriter.beginObject();
+		for (Map.Entry<String, Object> child : tree.children().entrySet()) {
+			jsonWriter.name(child.getKey());
+			if (child.getValue() instanceof KeyTree nestedTree) {
+				writeTree(nestedTree);
+			} else {
+				jsonWriter.value((String) child.getValue());
+			}
+		}
+		jsonWriter.endObject();
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.convert;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Nests messages by the dot separated parts of their keys, for message formats which write nested keys. A message
+ * whose key conflicts with a nested key (for example 'a.b' and 'a.b.c') keeps its complete key at the top level. When
+ * that is not possible either (for example 'a' and 'a.b') the message is skipped.
+ */
+final class KeyTree {
+
+	private static final Logger log = LoggerFactory.getLogger(KeyTree.class);
+
+	/**
+	 * Messages ({@code String}) and nested trees ({@code KeyTree}) by the part of their key, in the order in which they
+	 * were added.
+	 */
+	private final Map<String, Object> children = new LinkedHashMap<>();
+
+	void put(String key, String message) {
+		String[] parts = key.split("\\.", -1);
+
+		KeyTree tree = this;
+		for (int index = 0; index < parts.length - 1; index++) {
+			Object child = tree.children.computeIfAbsent(parts[index], part -> new KeyTree());
+			if (!(child instanceof KeyTree nestedTree)) {
+				children.put(key, message);
+				return;
+			}
+
+			tree = nestedTree;
+		}
+
+		String lastPart = parts[parts.length - 1];
+		if (tree.children.get(lastPart) instanceof KeyTree) {
+			if (parts.length == 1) {
+				log.warn("Skipping message '{}', its key is also the parent of nested keys.", key);
+				return;
+			}
+
+			children.put(key, message);
+			return;
+		}
+
+		tree.children.put(lastPart, message);
+	}
+
+	Map<String, Object> children() {
+		return Collections.unmodifiableMap(children);
+	}
+}
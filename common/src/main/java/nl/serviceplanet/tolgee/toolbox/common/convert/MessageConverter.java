@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.convert;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Converts Tolgee's own JSON format ({@link ExportMessageFormatType#JSON_TOLGEE}) to other message formats locally,
+ * so a single export can be written to message files of multiple formats.
+ *
+ * Only formats which keep the messages in ICU message format are supported; formats which need the placeholders or
+ * plurals of the messages converted (for example PO or Android XML) have to be exported by Tolgee.
+ */
+public final class MessageConverter {
+
+	/**
+	 * The format which is converted to the other formats.
+	 */
+	public static final ExportMessageFormatType SOURCE_FORMAT = ExportMessageFormatType.JSON_TOLGEE;
+
+	private static final ImmutableSet<ExportMessageFormatType> SUPPORTED_FORMATS = ImmutableSet.of(
+			ExportMessageFormatType.JSON_TOLGEE,
+			ExportMessageFormatType.JSON,
+			ExportMessageFormatType.PROPERTIES,
+			ExportMessageFormatType.YAML);
+
+	private MessageConverter() {
+	}
+
+	public static boolean supports(ExportMessageFormatType messageFormatType) {
+		return SUPPORTED_FORMATS.contains(messageFormatType);
+	}
+
+	/**
+	 * Creates a writer of the format which writes UTF-8 to the output.
+	 */
+	public static MessageWriter writer(ExportMessageFormatType messageFormatType, OutputStream output) {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		return switch (messageFormatType) {
+			case JSON_TOLGEE -> new JsonMessageWriter(writer, false);
+			case JSON -> new JsonMessageWriter(writer, true);
+			case PROPERTIES -> new PropertiesMessageWriter(writer);
+			case YAML -> new YamlMessageWriter(writer);
+			default -> throw new IllegalArgumentException(String.format(
+					"Message format '%s' can't be converted locally.", messageFormatType));
+		};
+	}
+
+	/**
+	 * Reads the messages of a {@link #SOURCE_FORMAT} message file and passes every message to all writers as soon as
+	 * it has been read. The message file is read once, however many writers there are. The writers are finished
+	 * afterward.
+	 *
+	 * Nested objects are flattened to dot separated keys, messages without a translation ({@code null}) are skipped.
+	 */
+	public static void convert(InputStream source, Collection<MessageWriter> writers) throws IOException {
+		JsonReader jsonReader = new JsonReader(new InputStreamReader(source, StandardCharsets.UTF_8));
+		readObject(jsonReader, "", writers);
+		if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+			throw new IOException("Unexpected content after the messages.");
+		}
+
+		for (MessageWriter writer : writers) {
+			writer.finish();
+		}
+	}
+
+	private static void readObject(JsonReader jsonReader, String keyPrefix, Collection<MessageWriter> writers) throws IOException {
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			String key = keyPrefix + jsonReader.nextName();
+			switch (jsonReader.peek()) {
+				case BEGIN_OBJECT -> readObject(jsonReader, key + ".", writers);
+				case NULL -> jsonReader.nextNull();
+				case STRING, NUMBER, BOOLEAN -> {
+					String message = jsonReader.peek() == JsonToken.BOOLEAN
+							? String.valueOf(jsonReader.nextBoolean())
+							: jsonReader.nextString();
+					for (MessageWriter writer : writers) {
+						writer.write(key, message);
+					}
+				}
+				default -> throw new IOException(String.format("Unexpected %s for key '%s'.", jsonReader.peek(), key));
+			}
+		}
+		jsonReader.endObject();
+	}
+}
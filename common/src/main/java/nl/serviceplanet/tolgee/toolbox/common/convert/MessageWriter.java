@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.convert;
+
+import java.io.IOException;
+
+/**
+ * Writes messages in a message format, one message at a time.
+ */
+public interface MessageWriter {
+
+	/**
+	 * @param key The key of the message. The parts of nested keys are separated by dots, as in Tolgee's exports.
+	 * @param message The message, in ICU message format.
+	 */
+	void write(String key, String message) throws IOException;
+
+	/**
+	 * Writes what remains after the last message and flushes the output. The output itself is not closed.
+	 */
+	void finish() throws IOException;
+}
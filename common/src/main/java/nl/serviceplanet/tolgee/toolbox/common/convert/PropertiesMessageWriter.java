@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.convert;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes Java properties files. Unlike {@link java.util.Properties#store} the file is written in UTF-8 without
+ * escaping non-ASCII characters, like Tolgee's export does. Messages are written as soon as they are received.
+ */
+final class PropertiesMessageWriter implements MessageWriter {
+
+	private final Writer writer;
+
+	PropertiesMessageWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void write(String key, String message) throws IOException {
+		writer.write(escape(key, true));
+		writer.write('=');
+		writer.write(escape(message, false));
+		writer.write('\n');
+	}
+
+	@Override
+	public void finish() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * Escapes the characters which have a special meaning in properties files.
+	 */
+	private static String escape(String text, boolean key) {
+		StringBuilder escaped = new StringBuilder(text.length());
+		for (int index = 0; index < text.length(); index++) {
+			char character = text.charAt(index);
+			switch (character) {
+				case '\\' -> escaped.append("\\\\");
+				case '\t' -> escaped.append("\\t");
+				case '\n' -> escaped.append("\\n");
+				case '\r' -> escaped.append("\\r");
+				case '\f' -> escaped.append("\\f");
+				case '=', ':', '#', '!' -> escaped.append('\\').append(character);
+				// Leading white space of a value is skipped when it is read, white space in a key ends the key.
+				case ' ' -> escaped.append(key || index == 0 ? "\\ " : " ");
+				default -> escaped.append(character);
+			}
+		}
+
+		return escaped.toString();
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.convert;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Writes YAML message files with nested keys, once all messages are known. Messages are always written as double
+ * quoted strings, so they never need to be interpreted by YAML.
+ */
+final class YamlMessageWriter implements MessageWriter {
+
+	private static final Pattern PLAIN_KEY = Pattern.compile("[A-Za-z_][A-Za-z0-9_-]*");
+
+	/**
+	 * Plain keys which YAML 1.1 reads as booleans or null instead of a string.
+	 */
+	private static final ImmutableSet<String> RESERVED_KEYS =
+			ImmutableSet.of("y", "n", "yes", "no", "true", "false", "on", "off", "null");
+
+	private final Writer writer;
+
+	private final KeyTree keyTree = new KeyTree();
+
+	YamlMessageWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void write(String key, String message) {
+		keyTree.put(key, message);
+	}
+
+	@Override
+	public void finish() throws IOException {
+		if (keyTree.children().isEmpty()) {
+			writer.write("{}\n");
+		} else {
+			writeTree(keyTree, 0);
+		}
+
+		writer.flush();
+	}
+
+	private void writeTree(KeyTree tree, int depth) throws IOException {
+		String indent = "  ".repeat(depth);
+		for (Map.Entry<String, Object> child : tree.children().entrySet()) {
+			writer.write(indent);
+			writer.write(toKey(child.getKey()));
+			writer.write(':');
+			if (child.getValue() instanceof KeyTree nestedTree) {
+				writer.write('\n');
+				writeTree(nestedTree, depth + 1);
+			} else {
+				writer.write(' ');
+				writer.write(quote((String) child.getValue()));
+				writer.write('\n');
+			}
+		}
+	}
+
+	private static String toKey(String key) {
+		if (PLAIN_KEY.matcher(key).matches() && !RESERVED_KEYS.contains(key.toLowerCase(Locale.ROOT))) {
+			return key;
+		}
+
+		return quote(key);
+	}
+
+	private static String quote(String text) {
+		StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+		for (int index = 0; index < text.length(); index++) {
+			char character = text.charAt(index);
+			switch (character) {
+				case '"' -> quoted.append("\\\"");
+				case '\\' -> quoted.append("\\\\");
+				case '\n' -> quoted.append("\\n");
+				case '\r' -> quoted.append("\\r");
+				case '\t' -> quoted.append("\\t");
+				default -> {
+					if (character < 0x20 || character == 0x7F) {
+						quoted.append(String.format("\\u%04X", (int) character));
+					} else {
+						quoted.append(character);
+					}
+				}
+			}
+		}
+
+		return quoted.append('"').toString();
+	}
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableListMultimap;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * The names of all directories and files below a root directory, read with a single (parallel) walk of the directory
+ * tree.
+ * Files in the root or any of its subdirectories are then found in memory, so finding the message files of every
+ * project below the root does not walk the directory tree again for each project.
+ *
+ * Only the {@link DiscoverySettings#DEFAULT_EXCLUDES} are skipped while walking. The other excludes and the
+ * {@code .gitignore} files of the {@link DiscoverySettings} are applied when files are found, exactly as
+ * {@link FileDiscovery#find(Path, Map, DiscoverySettings)} does. Settings which search any of those directories can't
+ * be served from the index.
+ */
+public final class DirectoryIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(DirectoryIndex.class);
+
+	/**
+	 * Listing directories mostly waits for the file system, so more directories than processors are listed at the
+	 * same time.
+	 */
+	static final int DEFAULT_PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Absolute and normalized.
+	 */
+	private final Path root;
+
+	private final Node rootNode;
+
+	private DirectoryIndex(Path root, Node rootNode) {
+		this.root = root;
+		this.rootNode = rootNode;
+	}
+
+	/**
+	 * Walks the directory tree below {@code root}, listing multiple directories at the same time.
+	 *
+	 * @param directoryVisitor Called with every directory which is walked and its attributes, which are read before
+	 *                         the content of the directory is listed. Called concurrently from multiple threads.
+	 */
+	public static DirectoryIndex build(Path root, BiConsumer<Path, BasicFileAttributes> directoryVisitor) throws IOException {
+		return build(root, directoryVisitor, DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * @param parallelism The maximum number of directories which are listed at the same time. With {@code 1} the
+	 *                    directory tree is walked sequentially.
+	 */
+	static DirectoryIndex build(Path root,
+								BiConsumer<Path, BasicFileAttributes> directoryVisitor,
+								int parallelism) throws IOException {
+		Node rootNode = new Node(null);
+
+		BasicFileAttributes rootAttributes;
+		try {
+			rootAttributes = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (IOException e) {
+			log.warn("Unable to read '{}', skipping it.", root, e);
+			return new DirectoryIndex(root.toAbsolutePath().normalize(), rootNode);
+		}
+
+		if (rootAttributes.isDirectory()) {
+			WalkStatistics statistics = new WalkStatistics();
+			try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+				pool.invoke(new WalkTask(root, rootAttributes, rootNode, 0, directoryVisitor, statistics));
+			}
+
+			log.debug("Indexed {} directories and {} files below '{}'.",
+					statistics.directories.sum(), statistics.files.sum(), root);
+		}
+
+		return new DirectoryIndex(root.toAbsolutePath().normalize(), rootNode);
+	}
+
+	/**
+	 * @return {@code true} if the directory was walked while building this index.
+	 */
+	public boolean contains(Path directory) {
+		return node(directory) != null;
+	}
+
+	/**
+	 * Whether files can be found with the settings from this index, which is the case if the settings skip at least
+	 * the directories which were skipped while walking.
+	 */
+	public static boolean supports(DiscoverySettings settings) {
+		return settings.defaultExcludes().containsAll(DiscoverySettings.DEFAULT_EXCLUDES);
+	}
+
+	/**
+	 * Same as {@link FileDiscovery#find(Path, Map, DiscoverySettings)}, but lists the directories from this index. The
+	 * git index setting is ignored.
+	 *
+	 * @param directory A directory which is {@link #contains(Path) contained} in this index.
+	 * @param settings Settings which {@link #supports(DiscoverySettings) are supported} by this index.
+	 */
+	public <T> ImmutableListMultimap<T, Path> find(Path directory,
+												   Map<T, Pattern> fileNamePatterns,
+												   DiscoverySettings settings) throws IOException {
+		Node node = node(directory);
+		Preconditions.checkArgument(node != null, "Directory '%s' is not part of the index of '%s'.", directory, root);
+		Preconditions.checkArgument(supports(settings), "Default excludes %s search directories which are not indexed.",
+				settings.defaultExcludes());
+		if (fileNamePatterns.isEmpty()) {
+			return ImmutableListMultimap.of();
+		}
+
+		ImmutableListMultimap.Builder<T, Path> files = ImmutableListMultimap.builder();
+		find(node, directory, 0, fileNamePatterns, FileDiscovery.anyPattern(fileNamePatterns),
+				new Excludes(directory, settings), files);
+		return files.build();
+	}
+
+	/**
+	 * Mirrors the walk of {@link FileDiscovery}: files up to {@link FileDiscovery#MAX_DEPTH} levels below the
+	 * directory where the search started are found.
+	 */
+	private static <T> void find(Node node,
+								 Path dir,
+								 int depth,
+								 Map<T, Pattern> fileNamePatterns,
+								 Pattern anyPattern,
+								 Excludes excludes,
+								 ImmutableListMultimap.Builder<T, Path> files) throws IOException {
+		if (node.files.contains(GitIgnoreRules.GITIGNORE)) {
+			excludes.enterDirectory(dir);
+		}
+
+		if (depth < FileDiscovery.MAX_DEPTH) {
+			for (String fileName : node.files) {
+				if (!anyPattern.matcher(fileName).matches()) {
+					continue;
+				}
+
+				Path file = dir.resolve(fileName);
+				if (!excludes.isExcluded(file, false)) {
+					FileDiscovery.putMatches(files, fileNamePatterns, fileName, file);
+				}
+			}
+		}
+
+		if (depth + 1 < FileDiscovery.MAX_DEPTH) {
+			for (Node child : node.directories) {
+				Path subdirectory = dir.resolve(child.name);
+				if (excludes.isExcluded(subdirectory, true)) {
+					log.trace("Skipping excluded directory '{}'.", subdirectory);
+					continue;
+				}
+
+				find(child, subdirectory, depth + 1, fileNamePatterns, anyPattern, excludes, files);
+			}
+		}
+
+		excludes.leaveDirectory(dir);
+	}
+
+	private Node node(Path directory) {
+		Path absoluteDirectory = directory.toAbsolutePath().normalize();
+		if (!absoluteDirectory.startsWith(root)) {
+			return null;
+		}
+
+		Node node = rootNode;
+		for (Path name : root.relativize(absoluteDirectory)) {
+			if (name.toString().isEmpty()) {
+				// Relativizing the root itself results in an empty path.
+				continue;
+			}
+
+			node = node.directory(name.toString());
+			if (node == null) {
+				return null;
+			}
+		}
+
+		return node;
+	}
+
+	/**
+	 * Lists a directory and then walks its subdirectories in parallel. Has the same semantics as
+	 * {@link Files#walkFileTree(Path, java.util.Set, int, java.nio.file.FileVisitor)} without following symbolic links
+	 * and with {@link FileDiscovery#MAX_DEPTH}: directories at the maximum depth are not listed.
+	 */
+	private static final class WalkTask extends RecursiveAction {
+
+		private final Path dir;
+
+		private final BasicFileAttributes attributes;
+
+		/**
+		 * Only modified by this task, before the tasks of the subdirectories are started.
+		 */
+		private final Node node;
+
+		private final int depth;
+
+		private final BiConsumer<Path, BasicFileAttributes> directoryVisitor;
+
+		private final WalkStatistics statistics;
+
+		private WalkTask(Path dir,
+						 BasicFileAttributes attributes,
+						 Node node,
+						 int depth,
+						 BiConsumer<Path, BasicFileAttributes> directoryVisitor,
+						 WalkStatistics statistics) {
+			this.dir = dir;
+			this.attributes = attributes;
+			this.node = node;
+			this.depth = depth;
+			this.directoryVisitor = directoryVisitor;
+			this.statistics = statistics;
+		}
+
+		@Override
+		protected void compute() {
+			directoryVisitor.accept(dir, attributes);
+			statistics.directories.increment();
+
+			List<WalkTask> subdirectoryTasks = new ArrayList<>();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+				for (Path entry : entries) {
+					BasicFileAttributes entryAttributes;
+					try {
+						entryAttributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					} catch (IOException e) {
+						log.warn("Unable to read '{}', skipping it.", entry, e);
+						continue;
+					}
+
+					String name = entry.getFileName().toString();
+					if (!entryAttributes.isDirectory()) {
+						node.files.add(name);
+						statistics.files.increment();
+					} else if (DiscoverySettings.DEFAULT_EXCLUDES.contains(name)) {
+						log.trace("Skipping excluded directory '{}'.", entry);
+					} else if (depth + 1 < FileDiscovery.MAX_DEPTH) {
+						Node subdirectory = new Node(name);
+						node.directories.add(subdirectory);
+						subdirectoryTasks.add(new WalkTask(entry, entryAttributes, subdirectory, depth + 1,
+								directoryVisitor, statistics));
+					}
+				}
+			} catch (IOException | DirectoryIteratorException e) {
+				log.warn("Unable to read directory '{}' completely.", dir, e);
+			}
+
+			invokeAll(subdirectoryTasks);
+		}
+	}
+
+	private static final class WalkStatistics {
+
+		private final LongAdder directories = new LongAdder();
+
+		private final LongAdder files = new LongAdder();
+	}
+
+	private static final class Node {
+
+		private final String name;
+
+		private final List<Node> directories = new ArrayList<>();
+
+		private final List<String> files = new ArrayList<>();
+
+		private Node(String name) {
+			this.name = name;
+		}
+
+		private Node directory(String name) {
+			for (Node directory : directories) {
+				if (directory.name.equals(name)) {
+					return directory;
+				}
+			}
+
+			return null;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableListMultimap;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * The {@link DirectoryIndex}es of the base paths the configuration was loaded from. Finding files below a base path is
+ * served from its index, so the directory tree below a base path is walked once for both the configuration files and
+ * the message files of all projects.
+ */
+@Singleton
+public final class DirectoryIndexes {
+
+	private final ConcurrentMap<Path, Supplier<DirectoryIndex>> indexes = new ConcurrentHashMap<>();
+
+	@Inject
+	public DirectoryIndexes() {
+	}
+
+	/**
+	 * Registers the index of the directory tree below {@code root}.
+	 */
+	public void add(Path root, DirectoryIndex index) {
+		indexes.put(root.toAbsolutePath().normalize(), () -> index);
+	}
+
+	/**
+	 * Registers {@code root} without walking it yet. The directory tree is walked the first time files below it are
+	 * searched.
+	 */
+	public void addLazily(Path root) {
+		indexes.putIfAbsent(root.toAbsolutePath().normalize(), Suppliers.memoize(() -> {
+			try {
+				return DirectoryIndex.build(root, (directory, attributes) -> {});
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}));
+	}
+
+	/**
+	 * Same as {@link FileDiscovery#find(Path, Map, DiscoverySettings)}. Served from an index if {@code directory} is
+	 * below a registered root, the git index is not used and the index {@link DirectoryIndex#supports supports} the
+	 * default excludes.
+	 */
+	public <T> ImmutableListMultimap<T, Path> find(Path directory,
+												   Map<T, Pattern> fileNamePatterns,
+												   DiscoverySettings settings) throws IOException {
+		if (!settings.gitIndex() && DirectoryIndex.supports(settings)) {
+			Path absoluteDirectory = directory.toAbsolutePath().normalize();
+			for (Map.Entry<Path, Supplier<DirectoryIndex>> entry : indexes.entrySet()) {
+				if (!absoluteDirectory.startsWith(entry.getKey())) {
+					continue;
+				}
+
+				DirectoryIndex index;
+				try {
+					index = entry.getValue().get();
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				}
+
+				if (index.contains(directory)) {
+					return index.find(directory, fileNamePatterns, settings);
+				}
+			}
+		}
+
+		return FileDiscovery.find(directory, fileNamePatterns, settings);
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Decides which directories and files are skipped. Keeps track of the {@code .gitignore} files which apply to the
+ * directory currently being walked.
+ */
+final class Excludes {
+
+	private final Path root;
+
+	private final ImmutableSet<String> defaultExcludes;
+
+	private final boolean gitIgnore;
+
+	private final List<PathMatcher> nameMatchers = new ArrayList<>();
+
+	private final List<PathMatcher> relativePathMatchers = new ArrayList<>();
+
+	/**
+	 * The rules of the deepest directory first.
+	 */
+	private final Deque<GitIgnoreRules> gitIgnoreRules = new ArrayDeque<>();
+
+	Excludes(Path root, DiscoverySettings settings) throws IOException {
+		this.root = root;
+		this.defaultExcludes = settings.defaultExcludes();
+		this.gitIgnore = settings.gitIgnore();
+
+		for (String exclude : settings.excludes()) {
+			String glob = exclude.endsWith("/") ? exclude.substring(0, exclude.length() - 1) : exclude;
+			PathMatcher matcher = root.getFileSystem().getPathMatcher("glob:" + glob);
+			if (glob.contains("/")) {
+				relativePathMatchers.add(matcher);
+			} else {
+				nameMatchers.add(matcher);
+			}
+		}
+
+		if (gitIgnore) {
+			ancestorGitIgnoreRules(root).forEach(gitIgnoreRules::push);
+		}
+	}
+
+	boolean isExcluded(Path path, boolean isDirectory) {
+		if (isDirectory) {
+			Path name = path.getFileName();
+			if (defaultExcludes.contains(name.toString())) {
+				return true;
+			}
+			for (PathMatcher nameMatcher : nameMatchers) {
+				if (nameMatcher.matches(name)) {
+					return true;
+				}
+			}
+			if (!relativePathMatchers.isEmpty()) {
+				Path relativePath = root.relativize(path);
+				for (PathMatcher relativePathMatcher : relativePathMatchers) {
+					if (relativePathMatcher.matches(relativePath)) {
+						return true;
+					}
+				}
+			}
+		}
+
+		// Rules of deeper .gitignore files take precedence.
+		for (GitIgnoreRules rules : gitIgnoreRules) {
+			Boolean ignored = rules.match(path, isDirectory);
+			if (ignored != null) {
+				return ignored;
+			}
+		}
+
+		return false;
+	}
+
+	void enterDirectory(Path dir) throws IOException {
+		if (gitIgnore) {
+			GitIgnoreRules.load(dir).ifPresent(gitIgnoreRules::push);
+		}
+	}
+
+	void leaveDirectory(Path dir) {
+		GitIgnoreRules deepestRules = gitIgnoreRules.peek();
+		if (deepestRules != null && deepestRules.directory().equals(dir.toAbsolutePath())) {
+			gitIgnoreRules.pop();
+		}
+	}
+
+	/**
+	 * Collects the {@code .gitignore} files between the root of the git repository and {@code root}, outermost
+	 * first. Returns nothing if {@code root} is not part of a git repository.
+	 */
+	private static List<GitIgnoreRules> ancestorGitIgnoreRules(Path root) throws IOException {
+		List<GitIgnoreRules> ancestorRules = new ArrayList<>();
+
+		Path dir = root.toAbsolutePath().normalize();
+		while (!Files.exists(dir.resolve(".git"))) {
+			dir = dir.getParent();
+			if (dir == null) {
+				return ImmutableList.of();
+			}
+
+			GitIgnoreRules.load(dir).ifPresent(ancestorRules::addFirst);
+		}
+
+		return ancestorRules;
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.collect.ImmutableListMultimap;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Finds message files in a directory tree.
+ */
+public final class FileDiscovery {
+
+	private static final Logger log = LoggerFactory.getLogger(FileDiscovery.class);
+
+	static final int MAX_DEPTH = 200;
+
+	private FileDiscovery() {
+	}
+
+	/**
+	 * Finds the files below {@code root} whose name matches one of the patterns, with a single walk of the directory
+	 * tree. Excluded (and optionally git-ignored) directories are not descended into.
+	 *
+	 * With {@link DiscoverySettings#gitIndex()} only files tracked by git are found. They are listed from the git
+	 * index instead of walking the directory tree, unless {@code root} is not part of a git repository.
+	 *
+	 * @return The matching files per key of the pattern they match. A file which matches multiple patterns is listed
+	 * under each of their keys.
+	 */
+	public static <T> ImmutableListMultimap<T, Path> find(Path root,
+														  Map<T, Pattern> fileNamePatterns,
+														  DiscoverySettings settings) throws IOException {
+		return find(root, fileNamePatterns, settings, (directory, attributes) -> {});
+	}
+
+	/**
+	 * Same as {@link #find(Path, Map, DiscoverySettings)}, but also reports every directory which is searched.
+	 *
+	 * @param directoryVisitor Called with every searched directory and its attributes, which are read before the
+	 *                         content of the directory is listed.
+	 */
+	public static <T> ImmutableListMultimap<T, Path> find(Path root,
+														  Map<T, Pattern> fileNamePatterns,
+														  DiscoverySettings settings,
+														  BiConsumer<Path, BasicFileAttributes> directoryVisitor) throws IOException {
+		if (fileNamePatterns.isEmpty()) {
+			return ImmutableListMultimap.of();
+		}
+
+		Pattern anyPattern = anyPattern(fileNamePatterns);
+
+		if (settings.gitIndex()) {
+			Optional<GitIndex.TrackedFiles> trackedFiles = GitIndex.read(root);
+			if (trackedFiles.isPresent()) {
+				// Tracked files are never ignored by git, so the .gitignore files don't apply.
+				Excludes excludes = new Excludes(root, settings.withGitIgnore(false));
+				return findTracked(root, trackedFiles.get(), fileNamePatterns, anyPattern, excludes);
+			}
+
+			log.debug("'{}' is not part of a git repository, searching the directory tree instead.", root);
+		}
+
+		Excludes excludes = new Excludes(root, settings);
+		ImmutableListMultimap.Builder<T, Path> files = ImmutableListMultimap.builder();
+
+		Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), MAX_DEPTH, new SimpleFileVisitor<>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if (!dir.equals(root) && excludes.isExcluded(dir, true)) {
+					log.trace("Skipping excluded directory '{}'.", dir);
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+
+				directoryVisitor.accept(dir, attrs);
+				excludes.enterDirectory(dir);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				String fileName = file.getFileName().toString();
+				if (!anyPattern.matcher(fileName).matches() || excludes.isExcluded(file, attrs.isDirectory())) {
+					return FileVisitResult.CONTINUE;
+				}
+
+				putMatches(files, fileNamePatterns, fileName, file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException exc) {
+				log.warn("Unable to read '{}', skipping it.", file, exc);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+				if (exc != null) {
+					log.warn("Unable to read directory '{}' completely.", dir, exc);
+				}
+
+				excludes.leaveDirectory(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		return files.build();
+	}
+
+	private static <T> ImmutableListMultimap<T, Path> findTracked(Path root,
+																  GitIndex.TrackedFiles trackedFiles,
+																  Map<T, Pattern> fileNamePatterns,
+																  Pattern anyPattern,
+																  Excludes excludes) {
+		String prefix = GitIgnoreRules.toSlashSeparated(trackedFiles.workTree().relativize(root.toAbsolutePath().normalize()));
+		if (!prefix.isEmpty()) {
+			prefix += "/";
+		}
+
+		Map<String, Boolean> excludedDirectories = new HashMap<>();
+		ImmutableListMultimap.Builder<T, Path> files = ImmutableListMultimap.builder();
+		for (String trackedPath : trackedFiles.paths()) {
+			if (!trackedPath.startsWith(prefix)) {
+				continue;
+			}
+
+			String relativePath = trackedPath.substring(prefix.length());
+			String fileName = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+			if (!anyPattern.matcher(fileName).matches()) {
+				continue;
+			}
+
+			Path file = root.resolve(relativePath);
+			if (file.getNameCount() - root.getNameCount() > MAX_DEPTH
+					|| isInExcludedDirectory(root, relativePath, excludes, excludedDirectories)
+					// Tracked files may have been deleted from the working tree.
+					|| !Files.isRegularFile(file)) {
+				continue;
+			}
+
+			putMatches(files, fileNamePatterns, fileName, file);
+		}
+
+		return files.build();
+	}
+
+	/**
+	 * Most files don't match any pattern; with the combined pattern rejecting them takes a single regex match.
+	 */
+	static Pattern anyPattern(Map<?, Pattern> fileNamePatterns) {
+		return Pattern.compile(fileNamePatterns.values().stream()
+				.map(pattern -> "(?:" + pattern.pattern() + ")")
+				.collect(Collectors.joining("|")));
+	}
+
+	static <T> void putMatches(ImmutableListMultimap.Builder<T, Path> files,
+							   Map<T, Pattern> fileNamePatterns,
+							   String fileName,
+							   Path file) {
+		fileNamePatterns.forEach((key, pattern) -> {
+			if (pattern.matcher(fileName).matches()) {
+				files.put(key, file);
+			}
+		});
+	}
+
+	private static boolean isInExcludedDirectory(Path root,
+												 String relativePath,
+												 Excludes excludes,
+												 Map<String, Boolean> excludedDirectories) {
+		for (int index = relativePath.indexOf('/'); index >= 0; index = relativePath.indexOf('/', index + 1)) {
+			String directory = relativePath.substring(0, index);
+			if (excludedDirectories.computeIfAbsent(directory, d -> excludes.isExcluded(root.resolve(d), true))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * The rules of a single {@code .gitignore} file. Supports the commonly used subset of the format: wildcards
+ * ({@code *}, {@code ?}, {@code **} and character classes), negation ({@code !}), directory-only rules (trailing
+ * {@code /}) and rules anchored to the directory of the {@code .gitignore} file.
+ */
+final class GitIgnoreRules {
+
+	static final String GITIGNORE = ".gitignore";
+
+	private static final String REGEX_SPECIAL_CHARACTERS = "\\.[]{}()*+-?^$|";
+
+	/**
+	 * @param anchored Whether the rule is matched against the path relative to the {@code .gitignore} file, instead of
+	 *                 against the name of the file or directory.
+	 */
+	private record Rule(Pattern pattern, boolean negated, boolean directoryOnly, boolean anchored) {}
+
+	private final Path directory;
+
+	private final ImmutableList<Rule> rules;
+
+	private GitIgnoreRules(Path directory, ImmutableList<Rule> rules) {
+		this.directory = directory;
+		this.rules = rules;
+	}
+
+	/**
+	 * Reads the {@code .gitignore} file in the directory, if there is one.
+	 */
+	static Optional<GitIgnoreRules> load(Path directory) throws IOException {
+		Path gitIgnoreFile = directory.resolve(GITIGNORE);
+		if (!Files.isRegularFile(gitIgnoreFile)) {
+			return Optional.empty();
+		}
+
+		return Optional.of(parse(directory, Files.readAllLines(gitIgnoreFile)));
+	}
+
+	static GitIgnoreRules parse(Path directory, List<String> lines) {
+		ImmutableList.Builder<Rule> rules = ImmutableList.builder();
+		for (String line : lines) {
+			String rule = line.stripTrailing();
+			if (rule.isEmpty() || rule.startsWith("#")) {
+				continue;
+			}
+
+			boolean negated = rule.startsWith("!");
+			if (negated) {
+				rule = rule.substring(1);
+			}
+
+			boolean directoryOnly = rule.endsWith("/");
+			if (directoryOnly) {
+				rule = rule.substring(0, rule.length() - 1);
+			}
+
+			// A separator at the beginning or in the middle anchors the rule to the directory of the .gitignore file.
+			boolean anchored = rule.contains("/");
+			if (rule.startsWith("/")) {
+				rule = rule.substring(1);
+			}
+
+			if (!rule.isEmpty()) {
+				rules.add(new Rule(Pattern.compile(toRegex(rule)), negated, directoryOnly, anchored));
+			}
+		}
+
+		return new GitIgnoreRules(directory.toAbsolutePath(), rules.build());
+	}
+
+	Path directory() {
+		return directory;
+	}
+
+	/**
+	 * @return {@code TRUE} if the path is ignored, {@code FALSE} if it is explicitly not ignored (negated rule) and
+	 * {@code null} if none of the rules apply to the path.
+	 */
+	Boolean match(Path path, boolean isDirectory) {
+		Path relativePath = directory.relativize(path.toAbsolutePath());
+		if (relativePath.getNameCount() == 0 || relativePath.startsWith("..")) {
+			return null;
+		}
+
+		String name = relativePath.getFileName().toString();
+		String slashSeparatedPath = null;
+
+		// The last matching rule wins.
+		for (Rule rule : rules.reverse()) {
+			if (rule.directoryOnly() && !isDirectory) {
+				continue;
+			}
+
+			String subject;
+			if (rule.anchored()) {
+				if (slashSeparatedPath == null) {
+					slashSeparatedPath = toSlashSeparated(relativePath);
+				}
+				subject = slashSeparatedPath;
+			} else {
+				subject = name;
+			}
+
+			if (rule.pattern().matcher(subject).matches()) {
+				return !rule.negated();
+			}
+		}
+
+		return null;
+	}
+
+	static String toSlashSeparated(Path relativePath) {
+		StringBuilder path = new StringBuilder();
+		for (Path element : relativePath) {
+			if (!path.isEmpty()) {
+				path.append('/');
+			}
+			path.append(element);
+		}
+
+		return path.toString();
+	}
+
+	/**
+	 * Converts a {@code .gitignore} glob to a regex.
+	 */
+	static String toRegex(String glob) {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			switch (c) {
+				case '*' -> {
+					if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+						if (i + 2 < glob.length() && glob.charAt(i + 2) == '/') {
+							// "**/" matches zero or more directories.
+							regex.append("(?:.*/)?");
+							i += 2;
+						} else {
+							regex.append(".*");
+							i++;
+						}
+					} else {
+						regex.append("[^/]*");
+					}
+				}
+				case '?' -> regex.append("[^/]");
+				case '[' -> {
+					int end = glob.indexOf(']', i + 2);
+					if (end < 0) {
+						regex.append("\\[");
+					} else {
+						String characterClass = glob.substring(i + 1, end).replace("\\", "\\\\");
+						if (characterClass.startsWith("!")) {
+							characterClass = "^" + characterClass.substring(1);
+						}
+						regex.append('[').append(characterClass).append(']');
+						i = end;
+					}
+				}
+				case '\\' -> {
+					if (i + 1 < glob.length()) {
+						appendLiteral(regex, glob.charAt(++i));
+					}
+				}
+				default -> appendLiteral(regex, c);
+			}
+		}
+
+		return regex.toString();
+	}
+
+	private static void appendLiteral(StringBuilder regex, char c) {
+		if (REGEX_SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+			regex.append('\\');
+		}
+		regex.append(c);
+	}
+}
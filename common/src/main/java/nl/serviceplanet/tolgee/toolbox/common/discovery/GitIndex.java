@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Reads the paths of the tracked files from the index ({@code .git/index}) of a git repository, without using the
+ * git binary. Supports index versions 2, 3 and 4 of repositories using SHA-1 object names.
+ *
+ * See: https://git-scm.com/docs/index-format
+ */
+final class GitIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(GitIndex.class);
+
+	private static final int SIGNATURE = 0x44495243; // "DIRC"
+
+	/**
+	 * Size of the fixed part of an entry: ten 32-bit stat fields, a 20 byte object name and 16-bit flags.
+	 */
+	private static final int ENTRY_FIXED_SIZE = 62;
+
+	private static final int FLAG_EXTENDED = 0x4000;
+
+	private static final int FLAG_STAGE_MASK = 0x3000;
+
+	private static final int FLAG_NAME_LENGTH_MASK = 0xFFF;
+
+	private static final int EXTENDED_FLAG_SKIP_WORKTREE = 0x4000;
+
+	private static final int MODE_TYPE_REGULAR_FILE = 0b1000;
+
+	/**
+	 * @param workTree The root directory of the working tree.
+	 * @param paths The paths of the tracked regular files, relative to the working tree and separated by {@code /}.
+	 */
+	record TrackedFiles(Path workTree, ImmutableList<String> paths) {}
+
+	private GitIndex() {
+	}
+
+	/**
+	 * Reads the index of the git repository which contains the directory.
+	 *
+	 * @return The tracked files, or nothing if the directory is not part of a git repository or its index can't be
+	 * read.
+	 */
+	static Optional<TrackedFiles> read(Path directory) {
+		for (Path workTree = directory.toAbsolutePath().normalize(); workTree != null; workTree = workTree.getParent()) {
+			Path dotGit = workTree.resolve(".git");
+			if (!Files.exists(dotGit)) {
+				continue;
+			}
+
+			try {
+				Path indexFile = resolveGitDirectory(dotGit).resolve("index");
+				if (!Files.isRegularFile(indexFile)) {
+					log.debug("Git repository '{}' has no index.", workTree);
+					return Optional.empty();
+				}
+
+				return Optional.of(new TrackedFiles(workTree, parse(ByteBuffer.wrap(Files.readAllBytes(indexFile)))));
+			} catch (IOException | RuntimeException e) {
+				log.warn("Unable to read the git index of '{}'.", workTree, e);
+				return Optional.empty();
+			}
+		}
+
+		return Optional.empty();
+	}
+
+	/**
+	 * In a linked worktree or submodule {@code .git} is a file pointing to the actual git directory.
+	 */
+	private static Path resolveGitDirectory(Path dotGit) throws IOException {
+		if (Files.isDirectory(dotGit)) {
+			return dotGit;
+		}
+
+		String content = Files.readString(dotGit, StandardCharsets.UTF_8).trim();
+		if (!content.startsWith("gitdir:")) {
+			throw new IOException(String.format("Unexpected content in '%s'.", dotGit));
+		}
+
+		return dotGit.getParent().resolve(content.substring("gitdir:".length()).trim());
+	}
+
+	static ImmutableList<String> parse(ByteBuffer index) throws IOException {
+		try {
+			if (index.getInt() != SIGNATURE) {
+				throw new IOException("Not a git index file.");
+			}
+			int version = index.getInt();
+			if (version < 2 || version > 4) {
+				throw new IOException(String.format("Unsupported git index version %s.", version));
+			}
+			int entryCount = index.getInt();
+
+			ImmutableList.Builder<String> paths = ImmutableList.builderWithExpectedSize(entryCount);
+			byte[] previousName = new byte[0];
+			int previousNameLength = 0;
+			String previousPath = null;
+			for (int x = 0; x < entryCount; x++) {
+				int entryStart = index.position();
+
+				// Skip ctime, mtime, dev and ino.
+				index.position(entryStart + 24);
+				int mode = index.getInt();
+				// Skip uid, gid, size and the object name.
+				index.position(entryStart + ENTRY_FIXED_SIZE - 2);
+				int flags = Short.toUnsignedInt(index.getShort());
+				int extendedFlags = 0;
+				if (version >= 3 && (flags & FLAG_EXTENDED) != 0) {
+					extendedFlags = Short.toUnsignedInt(index.getShort());
+				}
+
+				int nameLength;
+				byte[] name;
+				if (version == 4) {
+					// The name is stored as the number of bytes to remove from the end of the previous name,
+					// followed by the suffix to append to it.
+					int removeLength = readOffset(index);
+					int suffixLength = lengthUntilNul(index);
+					nameLength = previousNameLength - removeLength + suffixLength;
+					name = Arrays.copyOf(previousName, Math.max(nameLength, previousName.length));
+					index.get(name, previousNameLength - removeLength, suffixLength);
+					index.get(); // NUL
+				} else {
+					int storedLength = flags & FLAG_NAME_LENGTH_MASK;
+					nameLength = storedLength < FLAG_NAME_LENGTH_MASK ? storedLength : lengthUntilNul(index);
+					name = new byte[nameLength];
+					index.get(name);
+
+					// Entries are padded with 1 to 8 NUL bytes to a multiple of 8 bytes.
+					int entryLength = index.position() - entryStart;
+					index.position(entryStart + ((entryLength + 8) & ~7));
+				}
+				previousName = name;
+				previousNameLength = nameLength;
+
+				boolean regularFile = (mode >>> 12) == MODE_TYPE_REGULAR_FILE;
+				boolean skipWorktree = (extendedFlags & EXTENDED_FLAG_SKIP_WORKTREE) != 0;
+				if (regularFile && !skipWorktree) {
+					String path = new String(name, 0, nameLength, StandardCharsets.UTF_8);
+					// Conflicted files have an entry per stage, which are sorted next to each other.
+					if ((flags & FLAG_STAGE_MASK) == 0 || !path.equals(previousPath)) {
+						paths.add(path);
+						previousPath = path;
+					}
+				}
+			}
+
+			return paths.build();
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Truncated git index file.", e);
+		}
+	}
+
+	/**
+	 * Reads the variable length integer encoding git uses for offsets.
+	 */
+	private static int readOffset(ByteBuffer index) {
+		int b = Byte.toUnsignedInt(index.get());
+		int value = b & 0x7F;
+		while ((b & 0x80) != 0) {
+			b = Byte.toUnsignedInt(index.get());
+			value = ((value + 1) << 7) | (b & 0x7F);
+		}
+
+		return value;
+	}
+
+	private static int lengthUntilNul(ByteBuffer index) {
+		int length = 0;
+		while (index.get(index.position() + length) != 0) {
+			length++;
+		}
+
+		return length;
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+/**
+ * Writes a file by first writing a temporary file, in the same directory, which replaces the target file once it is
+ * complete. Readers of the target file (for example a concurrently running build) therefore see either the old or the
+ * new content, but never a partially written file.
+ *
+ * The written content is hashed while it is being written. If the target file already has the same content it is left
+ * untouched, so its modification time is preserved and incremental builds don't see a change.
+ *
+ * Closing a writer which has not been committed discards the temporary file and leaves the target file untouched.
+ */
+public final class AtomicFileWriter implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(AtomicFileWriter.class);
+
+	/**
+	 * Size of the buffer through which streamed content is copied to the file. {@link FileChannel#transferFrom} would
+	 * copy from a stream (which isn't backed by a file) through an internal buffer of only 8 KiB.
+	 */
+	private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+	private final Path target;
+
+	private final Path tempFile;
+
+	private final FileChannel channel;
+
+	private final boolean fsync;
+
+	private final MessageDigest digest = FileHashes.sha256Digest();
+
+	private boolean committed = false;
+
+	private AtomicFileWriter(Path target, Path tempFile, FileChannel channel, boolean fsync) {
+		this.target = target;
+		this.tempFile = tempFile;
+		this.channel = channel;
+		this.fsync = fsync;
+	}
+
+	/**
+	 * Opens a writer for the target file. Missing parent directories of the target file are created.
+	 *
+	 * @param fsync Flush the file to disk before it replaces the target file.
+	 */
+	public static AtomicFileWriter open(Path target, boolean fsync) throws IOException {
+		Path directory = target.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+
+		// Not created with Files.createTempFile, since that restricts the permissions of the file to the owner.
+		Path tempFile = directory.resolve("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+		return new AtomicFileWriter(target, tempFile, channel, fsync);
+	}
+
+	/**
+	 * Atomically replaces the target file with the content of the stream.
+	 *
+	 * @return {@code true} if the target file was replaced, {@code false} if it already had the same content.
+	 */
+	public static boolean write(Path target, InputStream content, boolean fsync) throws IOException {
+		try (AtomicFileWriter writer = open(target, fsync)) {
+			writer.transferFrom(content);
+			return writer.commit();
+		}
+	}
+
+	/**
+	 * Atomically replaces the target file with a copy of the source file.
+	 *
+	 * @return {@code true} if the target file was replaced, {@code false} if it already had the same content.
+	 */
+	public static boolean copy(Path source, Path target, boolean fsync) throws IOException {
+		try (InputStream content = Files.newInputStream(source)) {
+			return write(target, content, fsync);
+		}
+	}
+
+	/**
+	 * Atomically replaces the target file with a hard link to the source file, so both files share their content on
+	 * disk. Falls back to {@link #copy(Path, Path, boolean)} when the file system does not support hard links, or when
+	 * the files are on different file systems.
+	 *
+	 * The target file changes along with the source file when the source file is modified in place. Files written by
+	 * this class are always replaced instead, which breaks the link.
+	 *
+	 * @return {@code true} if the target file was replaced, {@code false} if it already had the same content.
+	 */
+	public static boolean link(Path source, Path target, boolean fsync) throws IOException {
+		if (hasSameContent(source, target)) {
+			log.trace("Content of '{}' did not change, leaving it untouched.", target);
+			return false;
+		}
+
+		Path directory = target.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+
+		Path tempLink = directory.resolve("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			Files.createLink(tempLink, source);
+		} catch (UnsupportedOperationException | FileSystemException e) {
+			log.debug("Unable to link '{}' to '{}', copying it instead.", target, source, e);
+			return copy(source, target, fsync);
+		}
+
+		try {
+			Files.move(tempLink, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			log.debug("Atomic move not supported for '{}', falling back to a regular move.", target);
+			Files.move(tempLink, target, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempLink);
+		}
+
+		if (fsync) {
+			forceDirectory(directory);
+		}
+		return true;
+	}
+
+	/**
+	 * Appends the remaining content of the buffer to the file.
+	 */
+	public void write(ByteBuffer content) throws IOException {
+		digest.update(content.duplicate());
+		while (content.hasRemaining()) {
+			channel.write(content);
+		}
+	}
+
+	/**
+	 * @return A stream which appends to the file, for content which is produced instead of copied. Closing the stream
+	 * neither commits nor closes this writer.
+	 */
+	public OutputStream outputStream() {
+		return new OutputStream() {
+
+			@Override
+			public void write(int b) throws IOException {
+				AtomicFileWriter.this.write(ByteBuffer.wrap(new byte[] {(byte) b}));
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				AtomicFileWriter.this.write(ByteBuffer.wrap(b, off, len));
+			}
+		};
+	}
+
+	/**
+	 * Appends the remaining content of the stream to the file. The content is copied in chunks of up to 1 MiB, so a
+	 * large file takes few writes.
+	 */
+	public void transferFrom(InputStream content) throws IOException {
+		byte[] buffer = new byte[COPY_BUFFER_SIZE];
+		// Fills the buffer unless the end of the stream is reached, also for streams which return small reads.
+		for (int read; (read = content.readNBytes(buffer, 0, buffer.length)) > 0; ) {
+			write(ByteBuffer.wrap(buffer, 0, read));
+		}
+	}
+
+	/**
+	 * Replaces the target file with the written content, unless the target file already has the same content.
+	 *
+	 * @return {@code true} if the target file was replaced, {@code false} if it already had the same content.
+	 */
+	public boolean commit() throws IOException {
+		if (isUnchanged()) {
+			log.trace("Content of '{}' did not change, leaving it untouched.", target);
+			channel.close();
+			Files.delete(tempFile);
+			committed = true;
+			return false;
+		}
+
+		if (fsync) {
+			channel.force(true);
+		}
+		channel.close();
+
+		try {
+			Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			log.debug("Atomic move not supported for '{}', falling back to a regular move.", target);
+			Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		committed = true;
+
+		if (fsync) {
+			forceDirectory(target.toAbsolutePath().getParent());
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!committed) {
+			channel.close();
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	/**
+	 * Only hashes the target file if its size matches the written content.
+	 */
+	private boolean isUnchanged() throws IOException {
+		String writtenHash = FileHashes.toHex(digest);
+
+		return Files.isRegularFile(target)
+				&& Files.size(target) == channel.size()
+				&& FileHashes.sha256(target).equals(writtenHash);
+	}
+
+	/**
+	 * Only hashes the files if their sizes match.
+	 */
+	private static boolean hasSameContent(Path source, Path target) throws IOException {
+		if (!Files.isRegularFile(target)) {
+			return false;
+		}
+
+		return Files.isSameFile(source, target)
+				|| (Files.size(target) == Files.size(source)
+						&& FileHashes.sha256(target).equals(FileHashes.sha256(source)));
+	}
+
+	/**
+	 * Flushes the directory entry of the renamed file. Not every platform allows opening a directory, in which case
+	 * this is skipped.
+	 */
+	private static void forceDirectory(Path directory) {
+		try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			directoryChannel.force(true);
+		} catch (IOException e) {
+			log.debug("Unable to flush directory '{}' to disk.", directory, e);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.io;
+
+import com.google.common.base.Strings;
+
+import java.nio.file.Path;
+
+/**
+ * Locates the directory in which Tolgee Toolbox keeps state between runs, for example to skip work which was already
+ * done by a previous run.
+ */
+public final class CacheDirectory {
+
+	private static final String CACHE_DIR_ENV = "TOLGEE_TOOLBOX_CACHE_DIR";
+
+	private static final String XDG_CACHE_HOME_ENV = "XDG_CACHE_HOME";
+
+	private static final String APPLICATION_DIRECTORY = "tolgee-toolbox";
+
+	private CacheDirectory() {
+	}
+
+	/**
+	 * Returns (in order of preference) the directory in the 'TOLGEE_TOOLBOX_CACHE_DIR' environmental variable,
+	 * 'tolgee-toolbox' in the 'XDG_CACHE_HOME' directory or '~/.cache/tolgee-toolbox'. The directory is not created.
+	 */
+	public static Path resolve() {
+		String cacheDir = System.getenv(CACHE_DIR_ENV);
+		if (!Strings.isNullOrEmpty(cacheDir)) {
+			return Path.of(cacheDir);
+		}
+
+		String xdgCacheHome = System.getenv(XDG_CACHE_HOME_ENV);
+		if (!Strings.isNullOrEmpty(xdgCacheHome)) {
+			return Path.of(xdgCacheHome, APPLICATION_DIRECTORY);
+		}
+
+		return Path.of(System.getProperty("user.home"), ".cache", APPLICATION_DIRECTORY);
+	}
+
+	/**
+	 * Returns a subdirectory of the cache directory, for example 'push-state'.
+	 */
+	public static Path resolve(String name) {
+		return resolve().resolve(name);
+	}
+}
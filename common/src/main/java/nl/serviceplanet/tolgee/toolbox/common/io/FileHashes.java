@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.io;
+
+import com.google.common.io.BaseEncoding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Calculates content hashes of files.
+ */
+public final class FileHashes {
+
+	/**
+	 * Files of at least this size are memory-mapped instead of read onto the heap.
+	 */
+	private static final long MEMORY_MAP_THRESHOLD = 256 * 1024;
+
+	/**
+	 * Maximum size of a single memory-mapped region.
+	 */
+	private static final long MEMORY_MAP_REGION_SIZE = 64 * 1024 * 1024;
+
+	private FileHashes() {
+	}
+
+	/**
+	 * @return The SHA-256 hash of the content of the file as lower case hex string.
+	 */
+	public static String sha256(Path file) throws IOException {
+		MessageDigest digest = sha256Digest();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < MEMORY_MAP_THRESHOLD) {
+				ByteBuffer content = ByteBuffer.allocate((int) size);
+				while (content.hasRemaining() && channel.read(content) != -1) {
+					// Keep reading until the whole file is in the buffer.
+				}
+				digest.update(content.flip());
+			} else {
+				for (long position = 0; position < size; position += MEMORY_MAP_REGION_SIZE) {
+					MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+							position, Math.min(MEMORY_MAP_REGION_SIZE, size - position));
+					digest.update(region);
+				}
+			}
+		}
+
+		return toHex(digest);
+	}
+
+	static MessageDigest sha256Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM.", e);
+		}
+	}
+
+	/**
+	 * Completes the digest and formats the hash the same way as {@link #sha256(Path)}.
+	 */
+	static String toHex(MessageDigest digest) {
+		return BaseEncoding.base16().lowerCase().encode(digest.digest());
+	}
+}
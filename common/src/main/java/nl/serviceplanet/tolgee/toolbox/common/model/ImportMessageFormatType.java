@@ -48,4 +48,11 @@ public enum ImportMessageFormatType {
 	XLIFF_JAVA,
 	XLIFF_PHP,
 	XLIFF_RUBY;
+
+	/**
+	 * Whether Tolgee converts the placeholders of message files in this format to ICU during an import.
+	 */
+	public boolean isIcu() {
+		return name().endsWith("_ICU");
+	}
 }
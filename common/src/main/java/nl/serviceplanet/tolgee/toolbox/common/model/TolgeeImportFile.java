@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.model;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * A message file which is uploaded to Tolgee as part of a (multi-file) import.
+ *
+ * @param messageFile The path to the actual message file.
+ * @param tolgeeMessageFileName The file name used by Tolgee for the message file.
+ */
+public record TolgeeImportFile(Path messageFile,
+							   String tolgeeMessageFileName,
+							   Locale locale,
+							   ImportMessageFormatType formatType) {
+}
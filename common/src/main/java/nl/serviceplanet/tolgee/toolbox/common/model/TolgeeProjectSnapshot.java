@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.model;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The languages and namespaces of a Tolgee project, indexed for lookups. Retrieved once and shared by all projects
+ * which use the same Tolgee project.
+ */
+public final class TolgeeProjectSnapshot {
+
+	private final long tolgeeProjectId;
+
+	private final ImmutableSet<TolgeeProjectLanguage> languages;
+
+	private final ImmutableMap<Locale, TolgeeProjectLanguage> languagesByLocale;
+
+	/**
+	 * Without the default namespace (which has ID 0).
+	 */
+	private final ImmutableMap<String, TolgeeNamespace> namespacesByName;
+
+	private TolgeeProjectSnapshot(long tolgeeProjectId,
+								  ImmutableSet<TolgeeProjectLanguage> languages,
+								  ImmutableMap<Locale, TolgeeProjectLanguage> languagesByLocale,
+								  ImmutableMap<String, TolgeeNamespace> namespacesByName) {
+		this.tolgeeProjectId = tolgeeProjectId;
+		this.languages = languages;
+		this.languagesByLocale = languagesByLocale;
+		this.namespacesByName = namespacesByName;
+	}
+
+	/**
+	 * When multiple languages have the same locale, or namespaces the same name, the first one is used.
+	 */
+	public static TolgeeProjectSnapshot of(long tolgeeProjectId,
+										   Set<TolgeeProjectLanguage> languages,
+										   Set<TolgeeNamespace> namespaces) {
+		Map<Locale, TolgeeProjectLanguage> languagesByLocale = new LinkedHashMap<>();
+		for (TolgeeProjectLanguage language : languages) {
+			languagesByLocale.putIfAbsent(language.locale(), language);
+		}
+
+		Map<String, TolgeeNamespace> namespacesByName = new LinkedHashMap<>();
+		for (TolgeeNamespace namespace : namespaces) {
+			if (namespace.tolgeeId() != 0) {
+				namespacesByName.putIfAbsent(namespace.name(), namespace);
+			}
+		}
+
+		return new TolgeeProjectSnapshot(tolgeeProjectId,
+				ImmutableSet.copyOf(languages),
+				ImmutableMap.copyOf(languagesByLocale),
+				ImmutableMap.copyOf(namespacesByName));
+	}
+
+	public long tolgeeProjectId() {
+		return tolgeeProjectId;
+	}
+
+	/**
+	 * @return All languages, in the order in which Tolgee listed them.
+	 */
+	public ImmutableSet<TolgeeProjectLanguage> languages() {
+		return languages;
+	}
+
+	public Optional<TolgeeProjectLanguage> language(Locale locale) {
+		return Optional.ofNullable(languagesByLocale.get(locale));
+	}
+
+	/**
+	 * @return The namespace with the name, never the default namespace. Nothing if {@code name} is {@code null}.
+	 */
+	public Optional<TolgeeNamespace> namespace(String name) {
+		return name == null ? Optional.empty() : Optional.ofNullable(namespacesByName.get(name));
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.api;
+
+import com.google.common.collect.ImmutableSet;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportFile;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeNamespace;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link TolgeeRestClient}.
+ *
+ * All methods return immediately. The returned {@link CompletableFuture} is completed when the Tolgee server has
+ * responded. Failures complete the future exceptionally with a {@link TolgeeServerCommunicationException} or an
+ * {@link java.io.IOException}.
+ */
+public interface AsyncTolgeeRestClient {
+
+	/**
+	 * Uploads a file to the Tolgee import.
+	 *
+	 * See: https://tolgee.io/api#tag/Import/operation/addFiles_1
+	 *
+	 * @param messageFile The path to the actual message file we want to upload.
+	 * @param tolgeeMessageFileName The file name used by Tolgee for error-reporting during imports.
+	 */
+	CompletableFuture<ImmutableSet<TolgeeImportLanguage>> importAddFile(URI apiUri,
+																		char[] apiKey,
+																		long projectId,
+																		Path messageFile,
+																		String tolgeeMessageFileName);
+
+	/**
+	 * Uploads multiple files with a single request to the Tolgee import.
+	 *
+	 * @see TolgeeRestClient#importAddFiles(URI, char[], long, List)
+	 */
+	CompletableFuture<ImmutableSet<TolgeeImportLanguage>> importAddFiles(URI apiUri,
+																		 char[] apiKey,
+																		 long projectId,
+																		 List<TolgeeImportFile> importFiles);
+
+	/**
+	 * Uploads a file to the Tolgee import-single-step.
+	 *
+	 * @param messageFile The path to the actual message file we want to upload.
+	 * @param tolgeeMessageFileName The file name used by Tolgee in the import screen.
+	 */
+	CompletableFuture<Void> singleStepImport(URI apiUri,
+											 char[] apiKey,
+											 long projectId,
+											 Path messageFile,
+											 String tolgeeMessageFileName,
+											 String namespace,
+											 Locale locale,
+											 ImportMessageFormatType formatType);
+
+	/**
+	 * Uploads multiple files with a single request to the Tolgee import-single-step.
+	 *
+	 * @see TolgeeRestClient#singleStepImport(URI, char[], long, List, String)
+	 */
+	CompletableFuture<Void> singleStepImport(URI apiUri,
+											 char[] apiKey,
+											 long projectId,
+											 List<TolgeeImportFile> importFiles,
+											 String namespace);
+
+	/**
+	 * Lists all the entries in Tolgees importer for a project.
+	 */
+	CompletableFuture<ImmutableSet<TolgeeProjectLanguage>> importList(URI apiUri, char[] apiKey, long projectId);
+
+	/**
+	 * Configures the namespace of an entry in the Tolgee importer.
+	 */
+	CompletableFuture<Void> importSelectNamespace(URI apiUri,
+												  char[] apiKey,
+												  long projectId,
+												  long importFileId,
+												  String namespace);
+
+	/**
+	 * Configures the language of an entry in the Tolgee importer.
+	 */
+	CompletableFuture<Void> importSelectLanguage(URI apiUri,
+												 char[] apiKey,
+												 long projectId,
+												 long importLanguageId,
+												 long existingLanguageId);
+
+	/**
+	 * Returns all {@code Locale}'s a project uses.
+	 */
+	CompletableFuture<ImmutableSet<TolgeeProjectLanguage>> projectLanguages(URI apiUri, char[] apiKey, long projectId);
+
+	/**
+	 * Returns all namespaces a project users.
+	 */
+	CompletableFuture<ImmutableSet<TolgeeNamespace>> projectNamespaces(URI apiUri, char[] apiKey, long projectId);
+
+	/**
+	 * Retrieves a translation file with all translations and streams it to {@code savePath}. Uses Tolgee's export
+	 * function.
+	 *
+	 * The file at {@code savePath} is only replaced once the export has been downloaded completely, and only if its
+	 * content changed.
+	 *
+	 * @param fsync Flush the downloaded file to disk before it replaces the file at {@code savePath}.
+	 * @return {@code true} if the file at {@code savePath} was replaced, {@code false} if it already had the same
+	 * content and was left untouched.
+	 */
+	CompletableFuture<Boolean> export(URI apiUri,
+									  char[] apiKey,
+									  long projectId,
+									  Locale locale,
+									  String namespace,
+									  ExportMessageFormatType messageFormatType,
+									  Path savePath,
+									  boolean fsync);
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Receives the message files of a zipped Tolgee export of multiple namespaces, one namespace and language at a time,
+ * while the export is being downloaded.
+ */
+@FunctionalInterface
+public interface NamespacedExportEntryHandler {
+
+	/**
+	 * Handles the message file of a single namespace and language.
+	 *
+	 * @param namespace The namespace the message file belongs to. Empty for the default namespace.
+	 * @param locale The language the message file belongs to.
+	 * @param content The content of the message file. Only valid during this call; it is closed by the caller.
+	 */
+	void handle(String namespace, Locale locale, InputStream content) throws IOException;
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.api;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Identifies the Tolgee host of an API URI, for the resources which are shared by all projects on the same host.
+ */
+public final class TolgeeHosts {
+
+	private TolgeeHosts() {
+	}
+
+	/**
+	 * Creates the key identifying a Tolgee host. For example {@code https://tolgee.example.com:443}.
+	 */
+	public static String hostKey(URI apiUri) {
+		String scheme = apiUri.getScheme() == null ? "http" : apiUri.getScheme().toLowerCase(Locale.ROOT);
+		int port = apiUri.getPort();
+		if (port < 0) {
+			port = scheme.equals("https") ? 443 : 80;
+		}
+
+		return scheme + "://" + apiUri.getHost() + ":" + port;
+	}
+}
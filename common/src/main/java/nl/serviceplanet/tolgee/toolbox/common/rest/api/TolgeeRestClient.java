@@ -18,6 +18,7 @@ package nl.serviceplanet.tolgee.toolbox.common.rest.api;
 import com.google.common.collect.ImmutableSet;
 import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
 import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportFile;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportLanguage;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeNamespace;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
@@ -25,6 +26,8 @@ import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -51,6 +54,21 @@ public interface TolgeeRestClient {
 													 long projectId,
 													 Path messageFile,
 													 String tolgeeMessageFileName) throws IOException;
+
+	/**
+	 * Uploads multiple files with a single request to the Tolgee import.
+	 *
+	 * Blocks the caller thread until completed.
+	 *
+	 * See: https://tolgee.io/api#tag/Import/operation/addFiles_1
+	 *
+	 * @return The import languages of all uploaded files. Use {@link TolgeeImportLanguage#importFilename()} to find
+	 *         the import languages of a specific file.
+	 */
+	ImmutableSet<TolgeeImportLanguage> importAddFiles(URI apiUri,
+													  char[] apiKey,
+													  long projectId,
+													  List<TolgeeImportFile> importFiles) throws IOException;
 	/**
 	 * Uploads a file to the Tolgee import-single-step.
 	 *
@@ -70,6 +88,21 @@ public interface TolgeeRestClient {
 						  Locale locale,
 						  ImportMessageFormatType formatType) throws IOException;
 
+	/**
+	 * Uploads multiple files with a single request to the Tolgee import-single-step. All files are imported into the
+	 * same namespace.
+	 *
+	 * Blocks the caller thread until completed.
+	 *
+	 * @param importFiles The files to upload. Either all or none of the files must use an ICU message format, since
+	 *                    converting placeholders to ICU is configured for the request as a whole.
+	 */
+	void singleStepImport(URI apiUri,
+						  char[] apiKey,
+						  long projectId,
+						  List<TolgeeImportFile> importFiles,
+						  String namespace) throws IOException;
+
 	/**
 	 * Lists all the entries in Tolgees importer for a project.
 	 * 
@@ -127,13 +160,56 @@ public interface TolgeeRestClient {
 
 	/**
 	 * Retrieves a translation file with all translations. Uses Tolgee's export function.
+	 *
+	 * The file at {@code savePath} is only replaced once the export has been downloaded completely, and only if its
+	 * content changed.
+	 *
+	 * @param fsync Flush the downloaded file to disk before it replaces the file at {@code savePath}.
+	 * @return {@code true} if the file at {@code savePath} was replaced, {@code false} if it already had the same
+	 * content and was left untouched.
 	 */
-	void export(URI apiUri,
+	boolean export(URI apiUri,
 				char[] apiKey,
 				long projectId,
 				Locale locale,
 				String namespace,
 				ExportMessageFormatType messageFormatType,
-				Path savePath) throws IOException;
+				Path savePath,
+				boolean fsync) throws IOException;
+
+	/**
+	 * Retrieves the message files of multiple languages with a single zipped export. The archive is streamed; every
+	 * message file in it is passed to the {@code entryHandler} as soon as it has been received.
+	 *
+	 * Message files in the archive which can not be matched to one of the requested {@code locales}, or which belong to
+	 * another namespace, are skipped. Tolgee exports all namespaces when the default namespace is exported, each in a
+	 * directory named after the namespace.
+	 */
+	void exportZip(URI apiUri,
+				   char[] apiKey,
+				   long projectId,
+				   Collection<Locale> locales,
+				   String namespace,
+				   ExportMessageFormatType messageFormatType,
+				   ExportEntryHandler entryHandler) throws IOException;
+
+	/**
+	 * Retrieves the message files of multiple languages of multiple namespaces with a single zipped export. Tolgee puts
+	 * the message files of every namespace in a directory named after the namespace. While the archive is streamed
+	 * every message file in it is split off to the {@code entryHandler}, with its namespace and language, as soon as it
+	 * has been received.
+	 *
+	 * Message files in the archive which can not be matched to one of the requested {@code namespaces} and
+	 * {@code locales} are skipped.
+	 *
+	 * @param namespaces The namespaces to export. An empty namespace exports the default namespace.
+	 */
+	void exportZip(URI apiUri,
+				   char[] apiKey,
+				   long projectId,
+				   Collection<Locale> locales,
+				   Collection<String> namespaces,
+				   ExportMessageFormatType messageFormatType,
+				   NamespacedExportEntryHandler entryHandler) throws IOException;
 
 }
@@ -0,0 +1,320 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import nl.serviceplanet.tolgee.toolbox.common.io.AtomicFileWriter;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportFile;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeNamespace;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.ExportEntryHandler;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.NamespacedExportEntryHandler;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeRestClient;
+import nl.serviceplanet.tolgee.toolbox.common.rest.http.MetadataCacheSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.PROJECT_LOCALES;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.PROJECT_NAMESPACES;
+
+/**
+ * Caches the languages and namespaces of Tolgee projects, which every project pushing to or pulling from the same
+ * Tolgee project would otherwise retrieve again. All other requests are passed to the {@link GsonTolgeeRestClient}.
+ *
+ * Within a run the languages and namespaces of a Tolgee project are retrieved once; concurrent callers wait for the
+ * request which is already in progress. Responses are also kept on disk: during the TTL they are used without a
+ * request, afterwards they are revalidated with the entity tag the Tolgee server sent ({@code If-None-Match}).
+ */
+@Singleton
+public final class CachingTolgeeRestClient implements TolgeeRestClient {
+
+	private static final Logger log = LoggerFactory.getLogger(CachingTolgeeRestClient.class);
+
+	private static final int VERSION = 1;
+
+	private static final Gson gson = new Gson();
+
+	private enum Resource {
+		LANGUAGES(PROJECT_LOCALES),
+		NAMESPACES(PROJECT_NAMESPACES);
+
+		private final String pathFormat;
+
+		Resource(String pathFormat) {
+			this.pathFormat = pathFormat;
+		}
+	}
+
+	/**
+	 * @param apiKeyHash The API key is part of the key since API keys may have access to different projects, but only
+	 *                   its hash is kept.
+	 */
+	private record Key(URI apiUri, String apiKeyHash, long projectId, Resource resource) {}
+
+	/**
+	 * @param etag Entity tag of the response, or {@code null} if the Tolgee server did not send one.
+	 */
+	private record CacheEntry(int version, long retrievedMillis, String etag, String body) {}
+
+	private final GsonTolgeeRestClient delegate;
+
+	private final MetadataCacheSettings settings;
+
+	/**
+	 * Parsed responses (or requests in progress) of this run.
+	 */
+	private final ConcurrentMap<Key, CompletableFuture<Object>> responses = new ConcurrentHashMap<>();
+
+	@Inject
+	public CachingTolgeeRestClient(GsonTolgeeRestClient delegate, MetadataCacheSettings settings) {
+		this.delegate = delegate;
+		this.settings = settings;
+	}
+
+	@Override
+	public ImmutableSet<TolgeeProjectLanguage> projectLanguages(URI apiUri, char[] apiKey, long projectId) throws IOException {
+		return retrieve(new Key(apiUri, hash(apiKey), projectId, Resource.LANGUAGES), apiKey,
+				body -> delegate.parseProjectLanguages(body, projectId));
+	}
+
+	@Override
+	public ImmutableSet<TolgeeNamespace> projectNamespaces(URI apiUri, char[] apiKey, long projectId) throws IOException {
+		return retrieve(new Key(apiUri, hash(apiKey), projectId, Resource.NAMESPACES), apiKey,
+				body -> delegate.parseProjectNamespaces(body, projectId));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T retrieve(Key key, char[] apiKey, Function<String, T> parser) throws IOException {
+		CompletableFuture<Object> response = new CompletableFuture<>();
+		CompletableFuture<Object> existingResponse = responses.putIfAbsent(key, response);
+		if (existingResponse != null) {
+			return (T) await(existingResponse);
+		}
+
+		try {
+			T value = parser.apply(retrieveBody(key, apiKey));
+			response.complete(value);
+			return value;
+		} catch (IOException | RuntimeException e) {
+			// Let a later call try again.
+			responses.remove(key, response);
+			response.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private static Object await(CompletableFuture<Object> response) throws IOException {
+		try {
+			return response.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a response of the Tolgee server.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private String retrieveBody(Key key, char[] apiKey) throws IOException {
+		Path cacheFile = settings.cacheDirectory() == null ? null : settings.cacheDirectory().resolve(cacheFileName(key));
+		CacheEntry entry = cacheFile == null ? null : readEntry(cacheFile);
+
+		long nowMillis = System.currentTimeMillis();
+		if (entry != null && nowMillis - entry.retrievedMillis() < settings.ttl().toMillis()) {
+			log.debug("Using cached {} of project {}.", key.resource().name().toLowerCase(Locale.ROOT), key.projectId());
+			return entry.body();
+		}
+
+		GsonTolgeeRestClient.ConditionalResponse response = delegate.getIfNoneMatch(key.apiUri(), apiKey,
+				key.projectId(), key.resource().pathFormat, entry == null ? null : entry.etag());
+		CacheEntry newEntry;
+		if (response == null) {
+			log.debug("Cached {} of project {} are still up-to-date.",
+					key.resource().name().toLowerCase(Locale.ROOT), key.projectId());
+			newEntry = new CacheEntry(VERSION, nowMillis, entry.etag(), entry.body());
+		} else {
+			newEntry = new CacheEntry(VERSION, nowMillis, response.etag(), response.body());
+		}
+
+		if (cacheFile != null) {
+			writeEntry(cacheFile, newEntry);
+		}
+
+		return newEntry.body();
+	}
+
+	private static CacheEntry readEntry(Path cacheFile) {
+		try (Reader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+			CacheEntry entry = gson.fromJson(reader, CacheEntry.class);
+			return entry == null || entry.version() != VERSION || entry.body() == null ? null : entry;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | JsonParseException e) {
+			log.warn("Ignoring unreadable metadata cache '{}'.", cacheFile, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Failing to write the cache is logged, but not fatal.
+	 */
+	private static void writeEntry(Path cacheFile, CacheEntry entry) {
+		try {
+			byte[] json = gson.toJson(entry).getBytes(StandardCharsets.UTF_8);
+			AtomicFileWriter.write(cacheFile, new ByteArrayInputStream(json), false);
+		} catch (IOException e) {
+			log.warn("Unable to write metadata cache '{}'.", cacheFile, e);
+		}
+	}
+
+	private static String cacheFileName(Key key) {
+		return Hashing.sha256()
+				.hashString(String.join("\n", key.apiUri().toString(), key.apiKeyHash(),
+						Long.toString(key.projectId()), key.resource().name()), StandardCharsets.UTF_8) + ".json";
+	}
+
+	private static String hash(char[] apiKey) {
+		return Hashing.sha256().hashString(CharBuffer.wrap(apiKey), StandardCharsets.UTF_8).toString();
+	}
+
+	@Override
+	public ImmutableSet<TolgeeImportLanguage> importAddFile(URI apiUri,
+															char[] apiKey,
+															long projectId,
+															Path messageFile,
+															String tolgeeMessageFileName) throws IOException {
+		return delegate.importAddFile(apiUri, apiKey, projectId, messageFile, tolgeeMessageFileName);
+	}
+
+	@Override
+	public ImmutableSet<TolgeeImportLanguage> importAddFiles(URI apiUri,
+															 char[] apiKey,
+															 long projectId,
+															 List<TolgeeImportFile> importFiles) throws IOException {
+		return delegate.importAddFiles(apiUri, apiKey, projectId, importFiles);
+	}
+
+	@Override
+	public void singleStepImport(URI apiUri,
+								 char[] apiKey,
+								 long projectId,
+								 Path messageFile,
+								 String tolgeeMessageFileName,
+								 String namespace,
+								 Locale locale,
+								 ImportMessageFormatType formatType) throws IOException {
+		delegate.singleStepImport(apiUri, apiKey, projectId, messageFile, tolgeeMessageFileName, namespace, locale,
+				formatType);
+	}
+
+	@Override
+	public void singleStepImport(URI apiUri,
+								 char[] apiKey,
+								 long projectId,
+								 List<TolgeeImportFile> importFiles,
+								 String namespace) throws IOException {
+		delegate.singleStepImport(apiUri, apiKey, projectId, importFiles, namespace);
+	}
+
+	@Override
+	public ImmutableSet<TolgeeProjectLanguage> importList(URI apiUri, char[] apiKey, long projectId) throws IOException {
+		return delegate.importList(apiUri, apiKey, projectId);
+	}
+
+	@Override
+	public void importSelectNamespace(URI apiUri,
+									  char[] apiKey,
+									  long projectId,
+									  long importFileId,
+									  String namespace) throws IOException {
+		delegate.importSelectNamespace(apiUri, apiKey, projectId, importFileId, namespace);
+	}
+
+	@Override
+	public void importSelectLanguage(URI apiUri,
+									 char[] apiKey,
+									 long projectId,
+									 long importLanguageId,
+									 long existingLanguageId) throws IOException {
+		delegate.importSelectLanguage(apiUri, apiKey, projectId, importLanguageId, existingLanguageId);
+	}
+
+	@Override
+	public boolean export(URI apiUri,
+						  char[] apiKey,
+						  long projectId,
+						  Locale locale,
+						  String namespace,
+						  ExportMessageFormatType messageFormatType,
+						  Path savePath,
+						  boolean fsync) throws IOException {
+		return delegate.export(apiUri, apiKey, projectId, locale, namespace, messageFormatType, savePath, fsync);
+	}
+
+	@Override
+	public void exportZip(URI apiUri,
+						  char[] apiKey,
+						  long projectId,
+						  Collection<Locale> locales,
+						  String namespace,
+						  ExportMessageFormatType messageFormatType,
+						  ExportEntryHandler entryHandler) throws IOException {
+		delegate.exportZip(apiUri, apiKey, projectId, locales, namespace, messageFormatType, entryHandler);
+	}
+
+	@Override
+	public void exportZip(URI apiUri,
+						  char[] apiKey,
+						  long projectId,
+						  Collection<Locale> locales,
+						  Collection<String> namespaces,
+						  ExportMessageFormatType messageFormatType,
+						  NamespacedExportEntryHandler entryHandler) throws IOException {
+		delegate.exportZip(apiUri, apiKey, projectId, locales, namespaces, messageFormatType, entryHandler);
+	}
+}
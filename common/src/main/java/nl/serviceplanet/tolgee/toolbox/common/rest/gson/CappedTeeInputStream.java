@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Keeps a copy of (at most) the first bytes read from the wrapped stream. Used to log responses of the Tolgee server
+ * while they are parsed as a stream, without keeping large responses in memory.
+ */
+final class CappedTeeInputStream extends FilterInputStream {
+
+	static final int DEFAULT_MAX_BYTES = 64 * 1024;
+
+	private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+	private final int maxBytes;
+
+	private boolean truncated = false;
+
+	CappedTeeInputStream(InputStream in, int maxBytes) {
+		super(in);
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b != -1) {
+			if (copy.size() < maxBytes) {
+				copy.write(b);
+			} else {
+				truncated = true;
+			}
+		}
+
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int length = super.read(b, off, len);
+		if (length > 0) {
+			int copyLength = Math.min(length, maxBytes - copy.size());
+			copy.write(b, off, copyLength);
+			truncated |= copyLength < length;
+		}
+
+		return length;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		// Route skips through read() so skipped bytes end up in the copy as well.
+		byte[] buffer = new byte[(int) Math.min(n, 8192)];
+		int length = read(buffer, 0, buffer.length);
+		return Math.max(length, 0);
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * @return The bytes read so far (up to the maximum) as text.
+	 */
+	String captured(Charset charset) {
+		String captured = copy.toString(charset);
+		return truncated ? captured + "... (truncated)" : captured;
+	}
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import nl.serviceplanet.tolgee.toolbox.common.io.AtomicFileWriter;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportFile;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeNamespace;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.AsyncTolgeeRestClient;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeServerCommunicationException;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeServerParseException;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportAddFilesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportListResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportSelectNamespaceReq;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguagesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespacesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.http.TolgeeHttpClients;
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.EXPORT;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.HEADER_API_KEY;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.IMPORT;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.IMPORT_SELECT_LANGUAGE;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.IMPORT_SELECT_NAMESPACE;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.PROJECT_LOCALES;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.PROJECT_NAMESPACES;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.SINGLE_STEP_IMPORT;
+
+/**
+ * Non-blocking Tolgee REST API client based on GSON and the asynchronous Apache HTTP client. Requests are
+ * multiplexed over HTTP/2 connections when the Tolgee server supports it, so many requests can be in flight without
+ * requiring a thread per request.
+ */
+@Singleton
+public final class GsonAsyncTolgeeRestClient implements AsyncTolgeeRestClient {
+
+	private static final Logger log = LoggerFactory.getLogger(GsonAsyncTolgeeRestClient.class);
+
+	private final Gson gson = TolgeeTypeAdapters.createGson();
+
+	private final TolgeeHttpClients httpClients;
+
+	@Inject
+	public GsonAsyncTolgeeRestClient(TolgeeHttpClients httpClients) {
+		this.httpClients = httpClients;
+	}
+
+	@Override
+	public CompletableFuture<ImmutableSet<TolgeeImportLanguage>> importAddFile(URI apiUri,
+																			   char[] apiKey,
+																			   long projectId,
+																			   Path messageFile,
+																			   String tolgeeMessageFileName) {
+		log.debug("Uploading import entry.");
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.post(),
+				apiUri.resolve(String.format(IMPORT, projectId)), apiKey);
+
+		MultipartEntityProducer multipart;
+		try {
+			multipart = MultipartEntityProducer.builder()
+					.addFile(
+							"files",
+							messageFile,
+							ContentType.TEXT_PLAIN,
+							tolgeeMessageFileName)
+					.build();
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		return executeRequestResponse(ImportAddFilesResp.class, apiUri, new BasicRequestProducer(request, multipart),
+				"project: " + projectId)
+				.thenApply(TolgeeJsonMapper::toTolgeeImportLanguages);
+	}
+
+	@Override
+	public CompletableFuture<ImmutableSet<TolgeeImportLanguage>> importAddFiles(URI apiUri,
+																				char[] apiKey,
+																				long projectId,
+																				List<TolgeeImportFile> importFiles) {
+		log.debug("Uploading {} import entries.", importFiles.size());
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.post(),
+				apiUri.resolve(String.format(IMPORT, projectId)), apiKey);
+
+		MultipartEntityProducer.Builder multipartBuilder = MultipartEntityProducer.builder();
+		try {
+			for (TolgeeImportFile importFile : importFiles) {
+				multipartBuilder.addFile(
+						"files",
+						importFile.messageFile(),
+						ContentType.TEXT_PLAIN,
+						importFile.tolgeeMessageFileName());
+			}
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		return executeRequestResponse(ImportAddFilesResp.class, apiUri,
+				new BasicRequestProducer(request, multipartBuilder.build()), "project: " + projectId)
+				.thenApply(TolgeeJsonMapper::toTolgeeImportLanguages);
+	}
+
+	@Override
+	public CompletableFuture<Void> singleStepImport(URI apiUri,
+													char[] apiKey,
+													long projectId,
+													Path messageFile,
+													String tolgeeMessageFileName,
+													String namespace,
+													Locale locale,
+													ImportMessageFormatType formatType) {
+		return singleStepImport(apiUri, apiKey, projectId,
+				List.of(new TolgeeImportFile(messageFile, tolgeeMessageFileName, locale, formatType)), namespace);
+	}
+
+	@Override
+	public CompletableFuture<Void> singleStepImport(URI apiUri,
+													char[] apiKey,
+													long projectId,
+													List<TolgeeImportFile> importFiles,
+													String namespace) {
+		log.debug("Uploading {} single-step-import entries.", importFiles.size());
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.post(),
+				apiUri.resolve(String.format(SINGLE_STEP_IMPORT, projectId)), apiKey);
+
+		String paramsJson = gson.toJson(TolgeeJsonMapper.toSingleStepImportParams(importFiles, namespace));
+		log.info("import-single-step request: {}", paramsJson);
+
+		MultipartEntityProducer.Builder multipartBuilder = MultipartEntityProducer.builder();
+		try {
+			for (TolgeeImportFile importFile : importFiles) {
+				multipartBuilder.addFile(
+						"files",
+						importFile.messageFile(),
+						ContentType.TEXT_PLAIN,
+						importFile.tolgeeMessageFileName());
+			}
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		MultipartEntityProducer multipart = multipartBuilder
+				.addText("params", paramsJson, ContentType.APPLICATION_JSON)
+				.build();
+
+		return executeRequest(apiUri, new BasicRequestProducer(request, multipart), "project: " + projectId)
+				.thenAccept(response -> log.info("import-single-step response: {}", response.getBodyText()));
+	}
+
+	@Override
+	public CompletableFuture<ImmutableSet<TolgeeProjectLanguage>> importList(URI apiUri, char[] apiKey, long projectId) {
+		log.debug("Retrieving list of import entries.");
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.get(),
+				apiUri.resolve(String.format(IMPORT, projectId)), apiKey);
+
+		return executeRequestResponse(ImportListResp.class, apiUri, request, "project: " + projectId)
+				.thenApply(TolgeeJsonMapper::toTolgeeProjectLanguages);
+	}
+
+	@Override
+	public CompletableFuture<Void> importSelectNamespace(URI apiUri,
+														 char[] apiKey,
+														 long projectId,
+														 long importFileId,
+														 String namespace) {
+		log.debug("Setting namespaces on import entry.");
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.put(),
+				apiUri.resolve(String.format(IMPORT_SELECT_NAMESPACE, projectId, importFileId)), apiKey);
+
+		ImportSelectNamespaceReq selectNamespace = new ImportSelectNamespaceReq();
+		selectNamespace.setNamespace(namespace);
+		request.setBody(gson.toJson(selectNamespace), ContentType.APPLICATION_JSON);
+
+		return executeRequest(apiUri, request, "importLanguageId: " + importFileId)
+				.thenAccept(response -> {});
+	}
+
+	@Override
+	public CompletableFuture<Void> importSelectLanguage(URI apiUri,
+														char[] apiKey,
+														long projectId,
+														long importLanguageId,
+														long existingLanguageId) {
+		log.debug("Setting language on import entry.");
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.put(),
+				apiUri.resolve(String.format(IMPORT_SELECT_LANGUAGE, projectId, importLanguageId, existingLanguageId)),
+				apiKey);
+
+		return executeRequest(apiUri, request, "importLanguageId: " + importLanguageId)
+				.thenAccept(response -> {});
+	}
+
+	@Override
+	public CompletableFuture<ImmutableSet<TolgeeProjectLanguage>> projectLanguages(URI apiUri, char[] apiKey, long projectId) {
+		log.debug("Retrieving project languages.");
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.get(),
+				apiUri.resolve(String.format(PROJECT_LOCALES, projectId)), apiKey);
+
+		return executeRequestResponse(ProjectLanguagesResp.class, apiUri, request, "project: " + projectId)
+				.thenApply(TolgeeJsonMapper::toTolgeeProjectLanguages);
+	}
+
+	@Override
+	public CompletableFuture<ImmutableSet<TolgeeNamespace>> projectNamespaces(URI apiUri, char[] apiKey, long projectId) {
+		log.debug("Retrieving project namespaces.");
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.get(),
+				apiUri.resolve(String.format(PROJECT_NAMESPACES, projectId)), apiKey);
+
+		return executeRequestResponse(ProjectNamespacesResp.class, apiUri, request, "project: " + projectId)
+				.thenApply(TolgeeJsonMapper::toTolgeeNamespaces);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> export(URI apiUri,
+											 char[] apiKey,
+											 long projectId,
+											 Locale locale,
+											 String namespace,
+											 ExportMessageFormatType messageFormatType,
+											 Path savePath,
+											 boolean fsync) {
+		log.debug("Retrieving export project for id {}.", projectId);
+
+		SimpleHttpRequest request = createRequest(SimpleRequestBuilder.post(),
+				apiUri.resolve(String.format(EXPORT, projectId)), apiKey);
+		request.setBody(gson.toJson(TolgeeJsonMapper.toExport(locale, namespace, messageFormatType)),
+				ContentType.APPLICATION_JSON);
+
+		String reference = "project: " + projectId;
+		return execute(apiUri, SimpleRequestProducer.create(request), new FileResponseConsumer(savePath, fsync))
+				.thenCompose(result -> {
+					if (result.errorBody() != null) {
+						throw new TolgeeServerCommunicationException(String.format(
+								"Tolgee API responded request unsuccessful (HTTP code %s) (%s). Error details: %s",
+								result.code(), reference, result.errorBody()));
+					}
+					if (!result.received()) {
+						throw new TolgeeServerCommunicationException(
+								String.format("Tolgee API response (HTTP code %s) did not include an export (%s).",
+										result.code(), reference));
+					}
+					return result.written();
+				});
+	}
+
+	private SimpleHttpRequest createRequest(SimpleRequestBuilder requestBuilder, URI fullApiUri, char[] apiKey) {
+		return requestBuilder
+				.setUri(fullApiUri)
+				.setHeader(HEADER_API_KEY, String.valueOf(apiKey))
+				.build();
+	}
+
+	private <T> CompletableFuture<T> executeRequestResponse(Class<T> responseType,
+															URI apiUri,
+															SimpleHttpRequest request,
+															String reference) {
+		return executeRequestResponse(responseType, apiUri, SimpleRequestProducer.create(request), reference);
+	}
+
+	private <T> CompletableFuture<T> executeRequestResponse(Class<T> responseType,
+															URI apiUri,
+															AsyncRequestProducer requestProducer,
+															String reference) {
+		return executeRequest(apiUri, requestProducer, reference).thenApply(response -> {
+			byte[] body = response.getBodyBytes();
+			if (body == null) {
+				throw new TolgeeServerCommunicationException(
+						String.format("Tolgee API response (HTTP code %s) did not include an response (%s).",
+								response.getCode(), reference));
+			}
+
+			// Parse straight from the received bytes instead of decoding them into a String first.
+			ContentType contentType = response.getContentType();
+			Charset charset = contentType != null && contentType.getCharset() != null
+					? contentType.getCharset()
+					: StandardCharsets.UTF_8;
+			InputStream bodyInputStream = new ByteArrayInputStream(body);
+			CappedTeeInputStream traceInputStream = null;
+			if (log.isTraceEnabled()) {
+				traceInputStream = new CappedTeeInputStream(bodyInputStream, CappedTeeInputStream.DEFAULT_MAX_BYTES);
+				bodyInputStream = traceInputStream;
+			}
+
+			try (Reader reader = new InputStreamReader(bodyInputStream, charset)) {
+				return gson.fromJson(gson.newJsonReader(reader), responseType);
+			} catch (Exception e) {
+				throw new TolgeeServerParseException(
+						String.format("Unable to parse JSON response from the Tolgee server (%s).", reference), e);
+			} finally {
+				if (traceInputStream != null) {
+					log.trace("Received response from Tolgee server: {}", traceInputStream.captured(charset));
+				}
+			}
+		});
+	}
+
+	private CompletableFuture<SimpleHttpResponse> executeRequest(URI apiUri,
+																 SimpleHttpRequest request,
+																 String reference) {
+		return executeRequest(apiUri, SimpleRequestProducer.create(request), reference);
+	}
+
+	private CompletableFuture<SimpleHttpResponse> executeRequest(URI apiUri,
+																 AsyncRequestProducer requestProducer,
+																 String reference) {
+		return execute(apiUri, requestProducer, SimpleResponseConsumer.create())
+				.thenApply(response -> {
+					if (response.getCode() < 200 || response.getCode() > 299) {
+						throw new TolgeeServerCommunicationException(String.format(
+								"Tolgee API responded request unsuccessful (HTTP code %s) (%s). Error details: %s",
+								response.getCode(), reference, response.getBodyText()));
+					}
+
+					return response;
+				});
+	}
+
+	private <T> CompletableFuture<T> execute(URI apiUri,
+											 AsyncRequestProducer requestProducer,
+											 AsyncResponseConsumer<T> responseConsumer) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+
+		httpClients.asyncHttpClient(apiUri).execute(requestProducer, responseConsumer, new FutureCallback<>() {
+			@Override
+			public void completed(T result) {
+				future.complete(result);
+			}
+
+			@Override
+			public void failed(Exception e) {
+				future.completeExceptionally(e);
+			}
+
+			@Override
+			public void cancelled() {
+				future.cancel(false);
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * @param code The HTTP status code of the response.
+	 * @param errorBody The response body if the request was unsuccessful, {@code null} otherwise.
+	 * @param received Whether the body of a successful response was received completely. Not the case when the
+	 *                 response has no body at all.
+	 * @param written Completes once the file has been written, with whether the file at the save path was replaced.
+	 */
+	private record FileResponse(int code, String errorBody, boolean received, CompletableFuture<Boolean> written) {}
+
+	/**
+	 * An I/O operation on the file being written by a {@link FileResponseConsumer}.
+	 */
+	@FunctionalInterface
+	private interface FileWrite {
+		void run() throws IOException;
+	}
+
+	/**
+	 * Streams a successful response body to a file instead of buffering it in memory. The file only replaces the file
+	 * at the save path once the response has been received completely.
+	 *
+	 * The callbacks of this consumer run on the I/O reactor thread, which must not block. The received chunks are
+	 * therefore handed over to a virtual thread, which does the (blocking) opening, writing and committing of the file.
+	 * The writes of a response are chained, so they are done one after the other in the order the chunks were
+	 * received.
+	 */
+	private static final class FileResponseConsumer extends AbstractBinResponseConsumer<FileResponse> {
+
+		private static final Executor FILE_WRITE_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+		private final Path savePath;
+
+		private final boolean fsync;
+
+		private int code;
+
+		private ByteArrayOutputStream errorBody;
+
+		private boolean received;
+
+		private boolean released;
+
+		/**
+		 * The chain of writes to the file, {@code null} unless the response is successful.
+		 */
+		private CompletableFuture<Void> fileWrites;
+
+		// Only accessed by the writes in the chain.
+		private AtomicFileWriter fileWriter;
+
+		private boolean changed;
+
+		private FileResponseConsumer(Path savePath, boolean fsync) {
+			this.savePath = savePath;
+			this.fsync = fsync;
+		}
+
+		@Override
+		protected void start(HttpResponse response, ContentType contentType) {
+			code = response.getCode();
+			if (code >= 200 && code <= 299) {
+				fileWrites = CompletableFuture.completedFuture(null);
+				enqueue(() -> fileWriter = AtomicFileWriter.open(savePath, fsync));
+			} else {
+				errorBody = new ByteArrayOutputStream();
+			}
+		}
+
+		@Override
+		protected int capacityIncrement() {
+			return Integer.MAX_VALUE;
+		}
+
+		@Override
+		protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+			if (fileWrites != null) {
+				// The buffer is reused by the reactor once this method returns, so hand over a copy.
+				ByteBuffer chunk = ByteBuffer.allocate(src.remaining()).put(src).flip();
+				enqueue(() -> fileWriter.write(chunk));
+				if (endOfStream) {
+					enqueue(() -> changed = fileWriter.commit());
+					received = true;
+				}
+			} else if (errorBody != null) {
+				byte[] bytes = new byte[src.remaining()];
+				src.get(bytes);
+				errorBody.write(bytes);
+			}
+		}
+
+		@Override
+		protected FileResponse buildResult() {
+			releaseResources();
+
+			// Without a body the file writer is released without being committed; the save path is left untouched.
+			return new FileResponse(code, errorBody == null ? null : errorBody.toString(StandardCharsets.UTF_8),
+					received, fileWrites == null ? null : fileWrites.thenApply(ignored -> changed));
+		}
+
+		@Override
+		public void releaseResources() {
+			if (fileWrites != null && !released) {
+				released = true;
+
+				// Also closes the writer when an earlier write failed.
+				fileWrites = fileWrites.handleAsync((ignored, e) -> {
+					if (fileWriter != null) {
+						try {
+							// Discards the downloaded content if the response was not received completely.
+							fileWriter.close();
+						} catch (IOException closeException) {
+							log.warn("Unable to clean up export file for '{}'.", savePath, closeException);
+						}
+					}
+					if (e != null) {
+						throw e instanceof CompletionException completionException
+								? completionException
+								: new CompletionException(e);
+					}
+					return null;
+				}, FILE_WRITE_EXECUTOR);
+			}
+		}
+
+		private void enqueue(FileWrite fileWrite) {
+			fileWrites = fileWrites.thenRunAsync(() -> {
+				try {
+					fileWrite.run();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, FILE_WRITE_EXECUTOR);
+		}
+	}
+}
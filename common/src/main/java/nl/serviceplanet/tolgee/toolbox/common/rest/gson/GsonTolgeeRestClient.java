@@ -16,54 +16,71 @@
 package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.gson.Gson;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
-import nl.serviceplanet.tolgee.toolbox.common.config.api.ConfigService;
+import nl.serviceplanet.tolgee.toolbox.common.io.AtomicFileWriter;
 import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
 import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportFile;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportLanguage;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeNamespace;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.ExportEntryHandler;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.NamespacedExportEntryHandler;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeRestClient;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeServerCommunicationException;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeServerParseException;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.Export;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportAddFilesResp;
-import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportLanguage;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportListResp;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportSelectNamespaceReq;
-import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguage;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguagesResp;
-import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespace;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespacesResp;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.SingleStepImportReq;
+import nl.serviceplanet.tolgee.toolbox.common.rest.http.TolgeeHttpClients;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.EXPORT;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.HEADER_API_KEY;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.IMPORT;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.IMPORT_SELECT_LANGUAGE;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.IMPORT_SELECT_NAMESPACE;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.PROJECT_LOCALES;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.PROJECT_NAMESPACES;
+import static nl.serviceplanet.tolgee.toolbox.common.rest.gson.TolgeeApi.SINGLE_STEP_IMPORT;
 
 /**
  * Tolgee REST API client based on GSON and Apache HTTP client.
@@ -75,16 +92,21 @@ public final class GsonTolgeeRestClient implements TolgeeRestClient {
 
 	private static final Logger log = LoggerFactory.getLogger(GsonTolgeeRestClient.class);
 
-	private final Gson gson = new Gson();
+	private final Gson gson = TolgeeTypeAdapters.createGson();
 
-	@Inject
-	public GsonTolgeeRestClient(ConfigService configService) {
-	}
+	/**
+	 * The body of a response to a GET request.
+	 *
+	 * @param etag The entity tag of the response, or {@code null} if the server did not send one.
+	 */
+	record ConditionalResponse(String body, String etag) {}
 
-	private static final String HEADER_API_KEY = "X-API-Key";
+	private final TolgeeHttpClients httpClients;
 
-	private static final String IMPORT = "/v2/projects/%s/import";
-	private static final String SINGLE_STEP_IMPORT = "/v2/projects/%s/single-step-import";
+	@Inject
+	public GsonTolgeeRestClient(TolgeeHttpClients httpClients) {
+		this.httpClients = httpClients;
+	}
 
 	@Override
 	public ImmutableSet<TolgeeImportLanguage> importAddFile(URI apiUri,
@@ -94,37 +116,56 @@ public final class GsonTolgeeRestClient implements TolgeeRestClient {
 															String tolgeeMessageFileName) throws IOException {
 		log.debug("Uploading import entry.");
 
-		try (CloseableHttpClient httpClient = createHttpClient()) {
-			URI fullApiUri = apiUri.resolve(String.format(IMPORT, projectId));
-			HttpPost fileUploadPost = new HttpPost(fullApiUri);
-			fileUploadPost.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(IMPORT, projectId));
+		HttpPost fileUploadPost = new HttpPost(fullApiUri);
+		fileUploadPost.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
 
-			HttpEntity multipart = MultipartEntityBuilder.create()
-					.addBinaryBody(
-							"files",
-							messageFile.toFile(),
-							ContentType.TEXT_PLAIN,
-							tolgeeMessageFileName)
-					.build();
+		HttpEntity multipart = MultipartEntityBuilder.create()
+				.addBinaryBody(
+						"files",
+						messageFile.toFile(),
+						ContentType.TEXT_PLAIN,
+						tolgeeMessageFileName)
+				.build();
 
-			// TODO: Add request JSON.
+		// TODO: Add request JSON.
 
-			fileUploadPost.setEntity(multipart);
+		fileUploadPost.setEntity(multipart);
 
-			ImportAddFilesResp resp = executeRequestResponse(ImportAddFilesResp.class, httpClient,
-					fileUploadPost, "project: " + projectId);
+		ImportAddFilesResp resp = executeRequestResponse(ImportAddFilesResp.class, httpClient,
+				fileUploadPost, "project: " + projectId);
 
-			ImmutableSet.Builder<TolgeeImportLanguage> importEntries = ImmutableSet.builder();
-			if (resp.getResult() != null &&
-					resp.getResult().getEmbedded() != null &&
-					resp.getResult().getEmbedded().getLanguages() != null) {
-				for (ImportLanguage importLanguage : resp.getResult().getEmbedded().getLanguages()) {
-					importEntries.add(toTolgeeImportLanguage(importLanguage));
-				}
-			}
+		return TolgeeJsonMapper.toTolgeeImportLanguages(resp);
+	}
 
-			return importEntries.build();
+	@Override
+	public ImmutableSet<TolgeeImportLanguage> importAddFiles(URI apiUri,
+															 char[] apiKey,
+															 long projectId,
+															 List<TolgeeImportFile> importFiles) throws IOException {
+		log.debug("Uploading {} import entries.", importFiles.size());
+
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(IMPORT, projectId));
+		HttpPost fileUploadPost = new HttpPost(fullApiUri);
+		fileUploadPost.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+
+		MultipartEntityBuilder multipartBuilder = MultipartEntityBuilder.create();
+		for (TolgeeImportFile importFile : importFiles) {
+			multipartBuilder.addBinaryBody(
+					"files",
+					importFile.messageFile().toFile(),
+					ContentType.TEXT_PLAIN,
+					importFile.tolgeeMessageFileName());
 		}
+
+		fileUploadPost.setEntity(multipartBuilder.build());
+
+		ImportAddFilesResp resp = executeRequestResponse(ImportAddFilesResp.class, httpClient,
+				fileUploadPost, "project: " + projectId);
+
+		return TolgeeJsonMapper.toTolgeeImportLanguages(resp);
 	}
 
 	@Override
@@ -136,79 +177,64 @@ public final class GsonTolgeeRestClient implements TolgeeRestClient {
 								 String namespace,
 								 Locale locale,
 								 ImportMessageFormatType formatType) throws IOException {
-		log.debug("Uploading single-step-import entry.");
-
-		try (CloseableHttpClient httpClient = createHttpClient()) {
-			URI fullApiUri = apiUri.resolve(String.format(SINGLE_STEP_IMPORT, projectId));
-			log.debug("Uploading single-step-import entry to URL: {}", fullApiUri);
-			HttpPost fileUploadPost = new HttpPost(fullApiUri);
-			fileUploadPost.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
-
-			SingleStepImportReq.FileMapping fileMapping = new SingleStepImportReq.FileMapping();
-			fileMapping.setFileName(tolgeeMessageFileName);
-			fileMapping.setNamespace(namespace);
-			fileMapping.setLanguageTag(locale.toLanguageTag());
-			fileMapping.setFormat(formatType);
-
-			SingleStepImportReq.Params reqParams = new SingleStepImportReq.Params();
-			reqParams.setForceMode(SingleStepImportReq.Params.ForceMode.OVERRIDE);
-			reqParams.setOverrideKeyDescriptions(false);
-			reqParams.setConvertPlaceholdersToIcu(formatType.name().endsWith("_ICU"));
-			reqParams.setFileMappings(List.of(fileMapping));
-			reqParams.setTagNewKeys(List.of());
-			reqParams.setRemoveOtherKeys(false);
-
-			String paramsJons = gson.toJson(reqParams);
-			log.info("import-single-step request: {}", paramsJons);
-
-			HttpEntity multipart = MultipartEntityBuilder.create()
-					.addBinaryBody(
-							"files",
-							messageFile.toFile(),
-							ContentType.TEXT_PLAIN,
-							tolgeeMessageFileName
-					)
-					.addTextBody("params", paramsJons, ContentType.APPLICATION_JSON)
-					.build();
-
-			fileUploadPost.setEntity(multipart);
-
-			String resp = executeRequestResponse(String.class, httpClient,
-					fileUploadPost, "project: " + projectId);
-
-			log.info("import-single-step response: {}", resp);
-		}
+		singleStepImport(apiUri, apiKey, projectId,
+				List.of(new TolgeeImportFile(messageFile, tolgeeMessageFileName, locale, formatType)), namespace);
 	}
 
-	private TolgeeImportLanguage toTolgeeImportLanguage(ImportLanguage importLanguage) {
-		return new TolgeeImportLanguage(importLanguage.getId(),
-				importLanguage.getImportFileName(),
-				importLanguage.getImportFileId());
+	@Override
+	public void singleStepImport(URI apiUri,
+								 char[] apiKey,
+								 long projectId,
+								 List<TolgeeImportFile> importFiles,
+								 String namespace) throws IOException {
+		log.debug("Uploading {} single-step-import entries.", importFiles.size());
+
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(SINGLE_STEP_IMPORT, projectId));
+		log.debug("Uploading single-step-import entries to URL: {}", fullApiUri);
+		HttpPost fileUploadPost = new HttpPost(fullApiUri);
+		fileUploadPost.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+
+		SingleStepImportReq.Params reqParams = TolgeeJsonMapper.toSingleStepImportParams(importFiles, namespace);
+
+		String paramsJons = gson.toJson(reqParams);
+		log.info("import-single-step request: {}", paramsJons);
+
+		MultipartEntityBuilder multipartBuilder = MultipartEntityBuilder.create();
+		for (TolgeeImportFile importFile : importFiles) {
+			multipartBuilder.addBinaryBody(
+					"files",
+					importFile.messageFile().toFile(),
+					ContentType.TEXT_PLAIN,
+					importFile.tolgeeMessageFileName());
+		}
+		HttpEntity multipart = multipartBuilder
+				.addTextBody("params", paramsJons, ContentType.APPLICATION_JSON)
+				.build();
+
+		fileUploadPost.setEntity(multipart);
+
+		String resp = executeRequestResponse(String.class, httpClient,
+				fileUploadPost, "project: " + projectId);
+
+		log.info("import-single-step response: {}", resp);
 	}
 
 	@Override
 	public ImmutableSet<TolgeeProjectLanguage> importList(URI apiUri, char[] apiKey, long projectId) throws IOException {
 		log.debug("Retrieving list of import entries.");
 
-		ImmutableSet.Builder<TolgeeProjectLanguage> importEntries = ImmutableSet.builder();
-
-		try (CloseableHttpClient httpClient = createHttpClient()) {
-			URI fullApiUri = apiUri.resolve(String.format(IMPORT, projectId));
-			HttpGet importGet = new HttpGet(fullApiUri);
-			importGet.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(IMPORT, projectId));
+		HttpGet importGet = new HttpGet(fullApiUri);
+		importGet.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
 
-			ImportListResp resp = executeRequestResponse(ImportListResp.class, httpClient,
-					importGet, "project: " + projectId);
-			for (ProjectLanguage projectLanguage : resp.getEmbedded().getLanguages()) {
-				importEntries.add(toTolgeeProjectLanguage(projectLanguage));
-			}
-		}
+		ImportListResp resp = executeRequestResponse(ImportListResp.class, httpClient,
+				importGet, "project: " + projectId);
 
-		return importEntries.build();
+		return TolgeeJsonMapper.toTolgeeProjectLanguages(resp);
 	}
 
-	private static final String IMPORT_SELECT_NAMESPACE = "/v2/projects/%s/import/result/files/%s/select-namespace";
-
 	@Override
 	public void importSelectNamespace(URI apiUri,
 									  char[] apiKey,
@@ -217,22 +243,19 @@ public final class GsonTolgeeRestClient implements TolgeeRestClient {
 									  String namespace) throws IOException {
 		log.debug("Setting namespaces on import entry.");
 
-		try (CloseableHttpClient httpClient = createHttpClient()) {
-			URI fullApiUri = apiUri.resolve(String.format(IMPORT_SELECT_NAMESPACE, projectId, importFileId));
-			HttpPut importSelectNamespacePut = new HttpPut(fullApiUri);
-			importSelectNamespacePut.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(IMPORT_SELECT_NAMESPACE, projectId, importFileId));
+		HttpPut importSelectNamespacePut = new HttpPut(fullApiUri);
+		importSelectNamespacePut.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
 
-			ImportSelectNamespaceReq selectNamespace = new ImportSelectNamespaceReq();
-			selectNamespace.setNamespace(namespace);
-			HttpEntity stringEntity = new StringEntity(gson.toJson(selectNamespace), ContentType.APPLICATION_JSON);
-			importSelectNamespacePut.setEntity(stringEntity);
+		ImportSelectNamespaceReq selectNamespace = new ImportSelectNamespaceReq();
+		selectNamespace.setNamespace(namespace);
+		HttpEntity stringEntity = new StringEntity(gson.toJson(selectNamespace), ContentType.APPLICATION_JSON);
+		importSelectNamespacePut.setEntity(stringEntity);
 
-			executeRequest(httpClient, importSelectNamespacePut, "importLanguageId: " + importFileId);
-		}
+		executeRequest(httpClient, importSelectNamespacePut, "importLanguageId: " + importFileId);
 	}
 
-	private static final String IMPORT_SELECT_LANGUAGE = "/v2/projects/%s/import/result/languages/%s/select-existing/%s";
-
 	@Override
 	public void importSelectLanguage(URI apiUri,
 									 char[] apiKey,
@@ -241,139 +264,243 @@ public final class GsonTolgeeRestClient implements TolgeeRestClient {
 									 long existingLanguageId) throws IOException {
 		log.debug("Setting language on import entry.");
 
-		try (CloseableHttpClient httpClient = createHttpClient()) {
-			URI fullApiUri = apiUri.resolve(String.format(IMPORT_SELECT_LANGUAGE, projectId, importLanguageId, existingLanguageId));
-			HttpPut httpPut = new HttpPut(fullApiUri);
-			httpPut.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(IMPORT_SELECT_LANGUAGE, projectId, importLanguageId, existingLanguageId));
+		HttpPut httpPut = new HttpPut(fullApiUri);
+		httpPut.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
 
-			executeRequest(httpClient, httpPut, "importLanguageId: " + importLanguageId);
-		}
+		executeRequest(httpClient, httpPut, "importLanguageId: " + importLanguageId);
 	}
 
-	private static final String PROJECT_LOCALES = "/v2/projects/%s/languages";
-
 	@Override
 	public ImmutableSet<TolgeeProjectLanguage> projectLanguages(URI apiUri, char[] apiKey, long projectId) throws IOException {
 		log.debug("Retrieving project languages.");
 
-		ImmutableSet.Builder<TolgeeProjectLanguage> projectLocales = ImmutableSet.builder();
-
-		try (CloseableHttpClient httpClient = createHttpClient()) {
-			URI fullApiUri = apiUri.resolve(String.format(PROJECT_LOCALES, projectId));
-			HttpGet projectLocalesGet = new HttpGet(fullApiUri);
-			projectLocalesGet.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
-
-			ProjectLanguagesResp resp = executeRequestResponse(ProjectLanguagesResp.class, httpClient,
-					projectLocalesGet, "project: " + projectId);
-			for (ProjectLanguage projectLanguage : resp.getEmbedded().getLanguages()) {
-				projectLocales.add(toTolgeeProjectLanguage(projectLanguage));
-			}
-		}
-
-		return projectLocales.build();
-	}
-
-	private TolgeeProjectLanguage toTolgeeProjectLanguage(ProjectLanguage projectLanguage) {
-		String tolgeeTag = projectLanguage.getTag();
-		String[] tolgeeTagSplit = tolgeeTag.split("-");
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(PROJECT_LOCALES, projectId));
+		HttpGet projectLocalesGet = new HttpGet(fullApiUri);
+		projectLocalesGet.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
 
-		Locale locale;
-		if (tolgeeTagSplit.length == 2) {
-			locale = Locale.of(tolgeeTagSplit[0], tolgeeTagSplit[1]);
-		} else if (tolgeeTagSplit.length == 1) {
-			locale = Locale.of(tolgeeTagSplit[0]);
-		} else {
-			throw new IllegalStateException(String.format("Unknown language tag '%s' in Tolgee response.", tolgeeTag));
-		}
+		ProjectLanguagesResp resp = executeRequestResponse(ProjectLanguagesResp.class, httpClient,
+				projectLocalesGet, "project: " + projectId);
 
-		return new TolgeeProjectLanguage(projectLanguage.getId(), locale);
+		return TolgeeJsonMapper.toTolgeeProjectLanguages(resp);
 	}
 
-	private static final String PROJECT_NAMESPACES = "/v2/projects/%s/used-namespaces";
-
 	@Override
 	public ImmutableSet<TolgeeNamespace> projectNamespaces(URI apiUri, char[] apiKey, long projectId) throws IOException {
 		log.debug("Retrieving project namespaces.");
 
-		ImmutableSet.Builder<TolgeeNamespace> projectNamespaces = ImmutableSet.builder();
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(PROJECT_NAMESPACES, projectId));
+		HttpGet projectLocalesNamespaces = new HttpGet(fullApiUri);
+		projectLocalesNamespaces.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
 
-		try (CloseableHttpClient httpClient = createHttpClient()) {
-			URI fullApiUri = apiUri.resolve(String.format(PROJECT_NAMESPACES, projectId));
-			HttpGet projectLocalesNamespaces = new HttpGet(fullApiUri);
-			projectLocalesNamespaces.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+		ProjectNamespacesResp resp = executeRequestResponse(ProjectNamespacesResp.class, httpClient,
+				projectLocalesNamespaces, "project: " + projectId);
 
-			ProjectNamespacesResp resp = executeRequestResponse(ProjectNamespacesResp.class, httpClient,
-					projectLocalesNamespaces, "project: " + projectId);
-			for (ProjectNamespace projectNamespace : resp.getEmbedded().getNamespaces()) {
-				projectNamespaces.add(toTolgeeNamespace(projectNamespace));
-			}
+		return TolgeeJsonMapper.toTolgeeNamespaces(resp);
+	}
+
+	/**
+	 * GETs a resource of a project, unless the server still has the version with entity tag {@code etag}.
+	 *
+	 * @param pathFormat One of the {@link TolgeeApi} paths, with the project ID as only argument.
+	 * @param etag Entity tag of the previously retrieved version, or {@code null} to always retrieve the resource.
+	 * @return The response, or {@code null} if the resource was not modified.
+	 */
+	ConditionalResponse getIfNoneMatch(URI apiUri,
+									   char[] apiKey,
+									   long projectId,
+									   String pathFormat,
+									   String etag) throws IOException {
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(pathFormat, projectId));
+		HttpGet httpGet = new HttpGet(fullApiUri);
+		httpGet.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+		if (etag != null) {
+			httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
 		}
 
-		return projectNamespaces.build();
+		return httpClient.execute(httpGet, response -> {
+			if (response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+				log.trace("Resource '{}' was not modified.", fullApiUri);
+				return null;
+			}
+
+			HttpEntity entity = getEntity(response, "project: " + projectId);
+			String responseString = EntityUtils.toString(entity, charset(entity));
+			log.trace("Received response from Tolgee server: {}", responseString);
+
+			Header etagHeader = response.getFirstHeader(HttpHeaders.ETAG);
+			return new ConditionalResponse(responseString, etagHeader == null ? null : etagHeader.getValue());
+		});
+	}
+
+	/**
+	 * Parses the body of a {@link TolgeeApi#PROJECT_LOCALES} response.
+	 */
+	ImmutableSet<TolgeeProjectLanguage> parseProjectLanguages(String body, long projectId) {
+		return TolgeeJsonMapper.toTolgeeProjectLanguages(parse(body, ProjectLanguagesResp.class, "project: " + projectId));
 	}
 
-	private TolgeeNamespace toTolgeeNamespace(ProjectNamespace projectNamespace) {
-		return new TolgeeNamespace(projectNamespace.getId(), projectNamespace.getName());
+	/**
+	 * Parses the body of a {@link TolgeeApi#PROJECT_NAMESPACES} response.
+	 */
+	ImmutableSet<TolgeeNamespace> parseProjectNamespaces(String body, long projectId) {
+		return TolgeeJsonMapper.toTolgeeNamespaces(parse(body, ProjectNamespacesResp.class, "project: " + projectId));
 	}
 
-	private static final String EXPORT = "/v2/projects/%s/export";
+	private <T> T parse(String body, Class<T> responseType, String reference) {
+		try {
+			return gson.fromJson(body, responseType);
+		} catch (Exception e) {
+			throw new TolgeeServerParseException(
+					String.format("Unable to parse JSON response from the Tolgee server (%s).", reference), e);
+		}
+	}
 
 	@Override
-	public void export(URI apiUri,
-					   char[] apiKey,
-					   long projectId,
-					   Locale locale,
-					   String namespace,
-					   ExportMessageFormatType messageFormatType,
-					   Path savePath) throws IOException {
+	public boolean export(URI apiUri,
+						  char[] apiKey,
+						  long projectId,
+						  Locale locale,
+						  String namespace,
+						  ExportMessageFormatType messageFormatType,
+						  Path savePath,
+						  boolean fsync) throws IOException {
 		log.debug("Retrieving export project for id {}.", projectId);
 
-		try (CloseableHttpClient httpClient = createHttpClient()) {
-			URI fullApiUri = apiUri.resolve(String.format(EXPORT, projectId));
-			HttpPost httpPost = new HttpPost(fullApiUri);
-			httpPost.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(EXPORT, projectId));
+		HttpPost httpPost = new HttpPost(fullApiUri);
+		httpPost.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
 
-			Export exportJson = new Export();
-			exportJson.setLanguages(ImmutableList.of(localeToTolgeeTag(locale)));
-			exportJson.setFormat(messageFormatType.toString());
-			if (!Strings.isNullOrEmpty(namespace)) {
-				exportJson.setFilterNamespace(ImmutableList.of(namespace));
-			}
+		Export exportJson = TolgeeJsonMapper.toExport(locale, namespace, messageFormatType);
 
-			HttpEntity stringEntity = new StringEntity(gson.toJson(exportJson), ContentType.APPLICATION_JSON);
-			httpPost.setEntity(stringEntity);
+		HttpEntity stringEntity = new StringEntity(gson.toJson(exportJson), ContentType.APPLICATION_JSON);
+		httpPost.setEntity(stringEntity);
 
-			httpClient.execute(httpPost, response -> {
-				HttpEntity entity = getEntity(response, "project: " + projectId);
+		return httpClient.execute(httpPost, response -> {
+			HttpEntity entity = getEntity(response, "project: " + projectId);
 
-				try (InputStream contentInputStream = entity.getContent();
-					 OutputStream fileOutputStream = Files.newOutputStream(savePath)) {
-					byte[] buffer = new byte[1024];
-					for (int length; (length = contentInputStream.read(buffer)) != -1; ) {
-						fileOutputStream.write(buffer, 0, length);
-					}
-				}
+			try (InputStream contentInputStream = entity.getContent()) {
+				return AtomicFileWriter.write(savePath, contentInputStream, fsync);
+			}
+		});
+	}
 
-				return null;
-			});
-		}
+	@Override
+	public void exportZip(URI apiUri,
+						  char[] apiKey,
+						  long projectId,
+						  Collection<Locale> locales,
+						  String namespace,
+						  ExportMessageFormatType messageFormatType,
+						  ExportEntryHandler entryHandler) throws IOException {
+		log.debug("Retrieving zipped export of {} languages for project id {}.", locales.size(), projectId);
+
+		ImmutableSet<String> namespaces = ImmutableSet.of(Strings.nullToEmpty(namespace));
+
+		Export exportJson = TolgeeJsonMapper.toZipExport(locales, namespace, messageFormatType);
+		streamZipExport(apiUri, apiKey, projectId, exportJson, (entryName, content) -> {
+			// Without a namespace filter Tolgee also includes the directories of all other namespaces.
+			Optional<String> namespaceOpt = TolgeeJsonMapper.toExportEntryNamespace(entryName, messageFormatType,
+					namespaces);
+			if (namespaceOpt.isEmpty()) {
+				log.debug("Skipping entry '{}' of another namespace in export of project {}.", entryName, projectId);
+				return;
+			}
+
+			// The directory of the namespace must not be mistaken for a language, for example 'de' in 'de/en.json'.
+			String namespaceEntryName = TolgeeJsonMapper.toNamespaceEntryName(entryName, namespaceOpt.get());
+			Optional<Locale> localeOpt = TolgeeJsonMapper.toExportEntryLocale(namespaceEntryName, messageFormatType,
+					locales);
+			if (localeOpt.isEmpty()) {
+				log.warn("Skipping unexpected entry '{}' in export of project {}.", entryName, projectId);
+				return;
+			}
+
+			entryHandler.handle(localeOpt.get(), content);
+		});
 	}
 
-	private String localeToTolgeeTag(Locale locale) {
-		StringBuilder tolgeeTag = new StringBuilder();
+	@Override
+	public void exportZip(URI apiUri,
+						  char[] apiKey,
+						  long projectId,
+						  Collection<Locale> locales,
+						  Collection<String> namespaces,
+						  ExportMessageFormatType messageFormatType,
+						  NamespacedExportEntryHandler entryHandler) throws IOException {
+		log.debug("Retrieving zipped export of {} languages and {} namespaces for project id {}.",
+				locales.size(), namespaces.size(), projectId);
+
+		Export exportJson = TolgeeJsonMapper.toZipExport(locales, namespaces, messageFormatType);
+		streamZipExport(apiUri, apiKey, projectId, exportJson, (entryName, content) -> {
+			Optional<String> namespaceOpt = TolgeeJsonMapper.toExportEntryNamespace(entryName, messageFormatType,
+					namespaces);
+			if (namespaceOpt.isEmpty()) {
+				log.debug("Skipping entry '{}' of a namespace which was not requested in export of project {}.",
+						entryName, projectId);
+				return;
+			}
+
+			String namespace = namespaceOpt.get();
+			String namespaceEntryName = TolgeeJsonMapper.toNamespaceEntryName(entryName, namespace);
+			Optional<Locale> localeOpt = TolgeeJsonMapper.toExportEntryLocale(namespaceEntryName, messageFormatType,
+					locales);
+			if (localeOpt.isEmpty()) {
+				log.warn("Skipping unexpected entry '{}' in export of project {}.", entryName, projectId);
+				return;
+			}
 
-		tolgeeTag.append(locale.getLanguage().toLowerCase());
-		if (!Strings.isNullOrEmpty(locale.getCountry())) {
-			tolgeeTag.append("-");
-			// In this place of the API the country needs to be in upper case.
-			tolgeeTag.append(locale.getCountry().toUpperCase());
-		}
+			entryHandler.handle(namespace, localeOpt.get(), content);
+		});
+	}
+
+	/**
+	 * Receives the files of a zipped export while it is being downloaded.
+	 */
+	@FunctionalInterface
+	private interface ZipEntryHandler {
 
-		return tolgeeTag.toString();
+		void handle(String entryName, InputStream content) throws IOException;
 	}
 
-	private CloseableHttpClient createHttpClient() {
-		return HttpClients.createDefault();
+	private void streamZipExport(URI apiUri,
+								 char[] apiKey,
+								 long projectId,
+								 Export exportJson,
+								 ZipEntryHandler zipEntryHandler) throws IOException {
+		CloseableHttpClient httpClient = httpClients.httpClient(apiUri);
+		URI fullApiUri = apiUri.resolve(String.format(EXPORT, projectId));
+		HttpPost httpPost = new HttpPost(fullApiUri);
+		httpPost.setHeader(HEADER_API_KEY, String.valueOf(apiKey));
+
+		HttpEntity stringEntity = new StringEntity(gson.toJson(exportJson), ContentType.APPLICATION_JSON);
+		httpPost.setEntity(stringEntity);
+
+		httpClient.execute(httpPost, response -> {
+			HttpEntity entity = getEntity(response, "project: " + projectId);
+
+			try (ZipInputStream zipInputStream = new ZipInputStream(entity.getContent())) {
+				for (ZipEntry zipEntry; (zipEntry = zipInputStream.getNextEntry()) != null; ) {
+					if (zipEntry.isDirectory()) {
+						continue;
+					}
+
+					// The handler only gets to read the current entry; closing it must not close the archive.
+					zipEntryHandler.handle(zipEntry.getName(), new FilterInputStream(zipInputStream) {
+						@Override
+						public void close() {
+						}
+					});
+				}
+			}
+
+			return null;
+		});
 	}
 
 	private String executeRequest(CloseableHttpClient httpClient,
@@ -396,26 +523,45 @@ public final class GsonTolgeeRestClient implements TolgeeRestClient {
 		return httpClient.execute(httpRequest, response -> {
 			HttpEntity entity = getEntity(response, reference);
 
-			String responseString = EntityUtils.toString(entity);
-			log.trace("Received response from Tolgee server: {}", responseString);
+			if (responseType == null || responseType == Void.class || responseType == String.class) {
+				String responseString = EntityUtils.toString(entity);
+				log.trace("Received response from Tolgee server: {}", responseString);
 
-			if (responseType == null || responseType == Void.class) {
-				return null;
+				return responseType == String.class ? (T) responseString : null;
 			}
 
-			if (responseType == String.class) {
-				return (T) responseString;
+			// Parse straight from the response instead of reading it into a String first. When tracing, the start of
+			// the response is copied aside while it is parsed.
+			Charset charset = charset(entity);
+			InputStream contentInputStream = entity.getContent();
+			CappedTeeInputStream traceInputStream = null;
+			if (log.isTraceEnabled()) {
+				traceInputStream = new CappedTeeInputStream(contentInputStream, CappedTeeInputStream.DEFAULT_MAX_BYTES);
+				contentInputStream = traceInputStream;
 			}
 
-			try {
-				return gson.fromJson(responseString, responseType);
+			try (Reader reader = new InputStreamReader(contentInputStream, charset)) {
+				return gson.fromJson(gson.newJsonReader(reader), responseType);
 			} catch (Exception e) {
 				throw new TolgeeServerParseException(
 						String.format("Unable to parse JSON response from the Tolgee server (%s).", reference), e);
+			} finally {
+				if (traceInputStream != null) {
+					log.trace("Received response from Tolgee server: {}", traceInputStream.captured(charset));
+				}
 			}
 		});
 	}
 
+	private static Charset charset(HttpEntity entity) {
+		ContentType contentType = ContentType.parseLenient(entity.getContentType());
+		if (contentType == null || contentType.getCharset() == null) {
+			return StandardCharsets.UTF_8; // JSON is UTF-8 unless the server tells otherwise.
+		}
+
+		return contentType.getCharset();
+	}
+
 	private HttpEntity getEntity(ClassicHttpResponse response, String reference) {
 		HttpEntity entity = response.getEntity();
 
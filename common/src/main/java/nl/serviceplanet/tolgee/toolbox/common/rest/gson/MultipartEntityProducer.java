@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Streams a {@code multipart/form-data} request body to the asynchronous HTTP client. Files are read in small chunks
+ * while the connection accepts data, instead of serializing the whole body into memory first.
+ */
+final class MultipartEntityProducer implements AsyncEntityProducer {
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	/**
+	 * Part of the body; either literal bytes or the content of a file.
+	 *
+	 * @param bytes The literal bytes, or {@code null} if this is the content of a file.
+	 * @param file The file, or {@code null} if these are literal bytes.
+	 * @param size The number of bytes of this part of the body.
+	 */
+	private record Segment(byte[] bytes, Path file, long size) {}
+
+	private final String boundary;
+
+	private final List<Segment> segments;
+
+	private final long contentLength;
+
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+
+	private int segmentIndex;
+
+	private long segmentOffset;
+
+	private FileChannel fileChannel;
+
+	private long produced;
+
+	private MultipartEntityProducer(String boundary, List<Segment> segments) {
+		this.boundary = boundary;
+		this.segments = segments;
+		this.contentLength = segments.stream().mapToLong(Segment::size).sum();
+	}
+
+	static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	@Override
+	public synchronized int available() {
+		return (int) Math.min(Integer.MAX_VALUE, contentLength - produced);
+	}
+
+	@Override
+	public synchronized void produce(DataStreamChannel channel) throws IOException {
+		while (true) {
+			if (buffer.hasRemaining()) {
+				produced += channel.write(buffer);
+				if (buffer.hasRemaining()) {
+					// The channel is full; produce is called again once it accepts more data.
+					return;
+				}
+			}
+
+			buffer.clear();
+			fillBuffer();
+			buffer.flip();
+			if (!buffer.hasRemaining()) {
+				channel.endStream();
+				return;
+			}
+		}
+	}
+
+	private void fillBuffer() throws IOException {
+		while (buffer.hasRemaining() && segmentIndex < segments.size()) {
+			Segment segment = segments.get(segmentIndex);
+			int length = (int) Math.min(buffer.remaining(), segment.size() - segmentOffset);
+			if (length == 0) {
+				nextSegment();
+				continue;
+			}
+
+			if (segment.bytes() != null) {
+				buffer.put(segment.bytes(), (int) segmentOffset, length);
+				segmentOffset += length;
+				continue;
+			}
+
+			if (fileChannel == null) {
+				fileChannel = FileChannel.open(segment.file(), StandardOpenOption.READ);
+			}
+
+			// Never read beyond the size the content length was determined with.
+			int limit = buffer.limit();
+			buffer.limit(buffer.position() + length);
+			int read = fileChannel.read(buffer);
+			buffer.limit(limit);
+			if (read == -1) {
+				throw new IOException(String.format("File '%s' was truncated while it was uploaded.", segment.file()));
+			}
+			segmentOffset += read;
+		}
+	}
+
+	private void nextSegment() throws IOException {
+		closeFileChannel();
+		segmentIndex++;
+		segmentOffset = 0;
+	}
+
+	private void closeFileChannel() throws IOException {
+		if (fileChannel != null) {
+			fileChannel.close();
+			fileChannel = null;
+		}
+	}
+
+	@Override
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	@Override
+	public String getContentType() {
+		return "multipart/form-data; boundary=" + boundary;
+	}
+
+	@Override
+	public String getContentEncoding() {
+		return null;
+	}
+
+	@Override
+	public boolean isChunked() {
+		return false;
+	}
+
+	@Override
+	public Set<String> getTrailerNames() {
+		return Set.of();
+	}
+
+	@Override
+	public void failed(Exception cause) {
+		releaseResources();
+	}
+
+	/**
+	 * Closes the file being read and rewinds to the start of the body, so the request can be sent again.
+	 */
+	@Override
+	public synchronized void releaseResources() {
+		try {
+			closeFileChannel();
+		} catch (IOException e) {
+			// Only read from, nothing is lost.
+		}
+		segmentIndex = 0;
+		segmentOffset = 0;
+		produced = 0;
+		buffer.clear().limit(0);
+	}
+
+	static final class Builder {
+
+		private final String boundary = UUID.randomUUID().toString().replace("-", "");
+
+		private final List<Segment> segments = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * The size of the file is determined when it is added; the file must not change until it has been uploaded.
+		 */
+		Builder addFile(String name, Path file, ContentType contentType, String fileName) throws IOException {
+			addBytes(partHeader(String.format("form-data; name=\"%s\"; filename=\"%s\"", escape(name), escape(fileName)),
+					contentType));
+			segments.add(new Segment(null, file, Files.size(file)));
+			addBytes("\r\n");
+			return this;
+		}
+
+		Builder addText(String name, String text, ContentType contentType) {
+			addBytes(partHeader(String.format("form-data; name=\"%s\"", escape(name)), contentType));
+			byte[] bytes = text.getBytes(contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8);
+			segments.add(new Segment(bytes, null, bytes.length));
+			addBytes("\r\n");
+			return this;
+		}
+
+		MultipartEntityProducer build() {
+			List<Segment> body = new ArrayList<>(segments);
+			byte[] closingDelimiter = ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+			body.add(new Segment(closingDelimiter, null, closingDelimiter.length));
+			return new MultipartEntityProducer(boundary, List.copyOf(body));
+		}
+
+		private String partHeader(String contentDisposition, ContentType contentType) {
+			return "--" + boundary + "\r\n" +
+					"Content-Disposition: " + contentDisposition + "\r\n" +
+					"Content-Type: " + contentType + "\r\n" +
+					"\r\n";
+		}
+
+		private void addBytes(String text) {
+			byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+			segments.add(new Segment(bytes, null, bytes.length));
+		}
+
+		private static String escape(String value) {
+			return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+/**
+ * Tolgee REST API endpoints and headers shared by the Tolgee REST clients.
+ */
+final class TolgeeApi {
+
+	static final String HEADER_API_KEY = "X-API-Key";
+
+	static final String IMPORT = "/v2/projects/%s/import";
+
+	static final String SINGLE_STEP_IMPORT = "/v2/projects/%s/single-step-import";
+
+	static final String IMPORT_SELECT_NAMESPACE = "/v2/projects/%s/import/result/files/%s/select-namespace";
+
+	static final String IMPORT_SELECT_LANGUAGE = "/v2/projects/%s/import/result/languages/%s/select-existing/%s";
+
+	static final String PROJECT_LOCALES = "/v2/projects/%s/languages";
+
+	static final String PROJECT_NAMESPACES = "/v2/projects/%s/used-namespaces";
+
+	static final String EXPORT = "/v2/projects/%s/export";
+
+	private TolgeeApi() {
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportFile;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeNamespace;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.Export;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportAddFilesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportListResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguagesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespace;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespacesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.SingleStepImportReq;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Converts between the JSON objects of the Tolgee REST API and the models used by the rest of the application.
+ */
+final class TolgeeJsonMapper {
+
+	private TolgeeJsonMapper() {
+	}
+
+	static ImmutableSet<TolgeeImportLanguage> toTolgeeImportLanguages(ImportAddFilesResp resp) {
+		ImmutableSet.Builder<TolgeeImportLanguage> importEntries = ImmutableSet.builder();
+		if (resp.getResult() != null &&
+				resp.getResult().getEmbedded() != null &&
+				resp.getResult().getEmbedded().getLanguages() != null) {
+			for (ImportLanguage importLanguage : resp.getResult().getEmbedded().getLanguages()) {
+				importEntries.add(toTolgeeImportLanguage(importLanguage));
+			}
+		}
+
+		return importEntries.build();
+	}
+
+	private static TolgeeImportLanguage toTolgeeImportLanguage(ImportLanguage importLanguage) {
+		return new TolgeeImportLanguage(importLanguage.getId(),
+				importLanguage.getImportFileName(),
+				importLanguage.getImportFileId());
+	}
+
+	static ImmutableSet<TolgeeProjectLanguage> toTolgeeProjectLanguages(ImportListResp resp) {
+		return toTolgeeProjectLanguages(resp.getEmbedded().getLanguages());
+	}
+
+	static ImmutableSet<TolgeeProjectLanguage> toTolgeeProjectLanguages(ProjectLanguagesResp resp) {
+		return toTolgeeProjectLanguages(resp.getEmbedded().getLanguages());
+	}
+
+	private static ImmutableSet<TolgeeProjectLanguage> toTolgeeProjectLanguages(List<ProjectLanguage> projectLanguages) {
+		ImmutableSet.Builder<TolgeeProjectLanguage> tolgeeProjectLanguages = ImmutableSet.builder();
+		for (ProjectLanguage projectLanguage : projectLanguages) {
+			tolgeeProjectLanguages.add(toTolgeeProjectLanguage(projectLanguage));
+		}
+
+		return tolgeeProjectLanguages.build();
+	}
+
+	private static TolgeeProjectLanguage toTolgeeProjectLanguage(ProjectLanguage projectLanguage) {
+		// Tolgee uses BCP 47 language tags, which can also contain a script or variant (for example 'zh-Hant-TW').
+		String tolgeeTag = projectLanguage.getTag();
+		Locale locale = Locale.forLanguageTag(tolgeeTag);
+		if (locale.getLanguage().isEmpty()) {
+			throw new IllegalStateException(String.format("Unknown language tag '%s' in Tolgee response.", tolgeeTag));
+		}
+
+		return new TolgeeProjectLanguage(projectLanguage.getId(), locale);
+	}
+
+	static ImmutableSet<TolgeeNamespace> toTolgeeNamespaces(ProjectNamespacesResp resp) {
+		ImmutableSet.Builder<TolgeeNamespace> projectNamespaces = ImmutableSet.builder();
+		for (ProjectNamespace projectNamespace : resp.getEmbedded().getNamespaces()) {
+			projectNamespaces.add(new TolgeeNamespace(projectNamespace.getId(), projectNamespace.getName()));
+		}
+
+		return projectNamespaces.build();
+	}
+
+	static SingleStepImportReq.Params toSingleStepImportParams(List<TolgeeImportFile> importFiles, String namespace) {
+		if (importFiles.isEmpty()) {
+			throw new IllegalArgumentException("At least one import file is required.");
+		}
+
+		List<SingleStepImportReq.FileMapping> fileMappings = new ArrayList<>(importFiles.size());
+		for (TolgeeImportFile importFile : importFiles) {
+			SingleStepImportReq.FileMapping fileMapping = new SingleStepImportReq.FileMapping();
+			fileMapping.setFileName(importFile.tolgeeMessageFileName());
+			fileMapping.setNamespace(namespace);
+			fileMapping.setLanguageTag(importFile.locale().toLanguageTag());
+			fileMapping.setFormat(importFile.formatType());
+			fileMappings.add(fileMapping);
+		}
+
+		boolean convertPlaceholdersToIcu = importFiles.getFirst().formatType().isIcu();
+		for (TolgeeImportFile importFile : importFiles) {
+			if (importFile.formatType().isIcu() != convertPlaceholdersToIcu) {
+				throw new IllegalArgumentException("Can't combine ICU and non-ICU message formats in a single import.");
+			}
+		}
+
+		SingleStepImportReq.Params reqParams = new SingleStepImportReq.Params();
+		reqParams.setForceMode(SingleStepImportReq.Params.ForceMode.OVERRIDE);
+		reqParams.setOverrideKeyDescriptions(false);
+		reqParams.setConvertPlaceholdersToIcu(convertPlaceholdersToIcu);
+		reqParams.setFileMappings(fileMappings);
+		reqParams.setTagNewKeys(List.of());
+		reqParams.setRemoveOtherKeys(false);
+
+		return reqParams;
+	}
+
+	static Export toExport(Locale locale, String namespace, ExportMessageFormatType messageFormatType) {
+		Export exportJson = new Export();
+		exportJson.setLanguages(ImmutableList.of(localeToTolgeeTag(locale)));
+		exportJson.setFormat(messageFormatType.toString());
+		if (!Strings.isNullOrEmpty(namespace)) {
+			exportJson.setFilterNamespace(ImmutableList.of(namespace));
+		}
+
+		return exportJson;
+	}
+
+	static Export toZipExport(Collection<Locale> locales, String namespace, ExportMessageFormatType messageFormatType) {
+		Export exportJson = new Export();
+		exportJson.setLanguages(locales.stream()
+				.map(TolgeeJsonMapper::localeToTolgeeTag)
+				.collect(ImmutableList.toImmutableList()));
+		exportJson.setFormat(messageFormatType.toString());
+		exportJson.setZip(true);
+		if (!Strings.isNullOrEmpty(namespace)) {
+			exportJson.setFilterNamespace(ImmutableList.of(namespace));
+		}
+
+		return exportJson;
+	}
+
+	/**
+	 * Exports the namespaces in a single zipped export. Tolgee only exports all namespaces, including the default
+	 * namespace, without a namespace filter.
+	 */
+	static Export toZipExport(Collection<Locale> locales,
+							  Collection<String> namespaces,
+							  ExportMessageFormatType messageFormatType) {
+		Export exportJson = toZipExport(locales, "", messageFormatType);
+		if (namespaces.stream().noneMatch(Strings::isNullOrEmpty)) {
+			exportJson.setFilterNamespace(ImmutableList.copyOf(namespaces));
+		}
+
+		return exportJson;
+	}
+
+	/**
+	 * Determines to which of the requested {@code namespaces} an entry of a zipped export of multiple namespaces
+	 * belongs. Tolgee puts the message files of a namespace in a directory named after the namespace (for example
+	 * 'ns/en.json' or 'ns/values-en/strings.xml'), and those of the default namespace in the root of the archive (for
+	 * example 'en.json' or 'values-en/strings.xml').
+	 *
+	 * Whether an entry is in the directory of a namespace follows from its depth in the archive, instead of from the
+	 * known namespaces of the project. A namespace which was created after those were retrieved (and cached) is
+	 * therefore never mistaken for the default namespace.
+	 *
+	 * @return The namespace of the entry, empty for the default namespace. Nothing when the entry belongs to a
+	 * namespace which was not requested, or doesn't have the structure Tolgee uses for the format.
+	 */
+	static Optional<String> toExportEntryNamespace(String entryName,
+												   ExportMessageFormatType messageFormatType,
+												   Collection<String> namespaces) {
+		List<String> parts = Splitter.on('/').splitToList(entryName);
+		int depth = toExportEntryDepth(messageFormatType);
+
+		String namespace;
+		if (parts.size() == depth) {
+			namespace = "";
+		} else if (parts.size() == depth + 1) {
+			namespace = parts.getFirst();
+		} else {
+			return Optional.empty();
+		}
+
+		return namespaces.contains(namespace) ? Optional.of(namespace) : Optional.empty();
+	}
+
+	/**
+	 * @return The number of path elements of a message file of the default namespace in a zipped export.
+	 */
+	private static int toExportEntryDepth(ExportMessageFormatType messageFormatType) {
+		return switch (messageFormatType) {
+			case ANDROID_XML, APPLE_STRINGS_STRINGSDICT -> 2;
+			default -> 1;
+		};
+	}
+
+	/**
+	 * @param namespace The namespace of the entry, as determined by {@link #toExportEntryNamespace}.
+	 * @return The name of the entry within the directory of its namespace. For example 'en.json' for 'ns/en.json'.
+	 */
+	static String toNamespaceEntryName(String entryName, String namespace) {
+		return namespace.isEmpty() ? entryName : entryName.substring(namespace.length() + 1);
+	}
+
+	/**
+	 * Determines to which of the requested {@code locales} an entry of a zipped export belongs. The language tag is
+	 * taken from the place where Tolgee puts it for the format, and must equal (ignoring case and the separator) the
+	 * tag of a requested language:
+	 * <ul>
+	 *     <li>{@link ExportMessageFormatType#ANDROID_XML}: the directory, for example 'values-en-rGB/strings.xml' or
+	 *     'values-b+zh+Hant+TW/strings.xml'.</li>
+	 *     <li>{@link ExportMessageFormatType#APPLE_STRINGS_STRINGSDICT}: the directory, for example
+	 *     'en-GB.lproj/Localizable.strings'.</li>
+	 *     <li>{@link ExportMessageFormatType#FLUTTER_ARB}: the file name, for example 'app_en_GB.arb'.</li>
+	 *     <li>Other formats: the file name, for example 'en-GB.json'.</li>
+	 * </ul>
+	 *
+	 * @param entryName The name of the entry within the directory of its namespace, see {@link #toNamespaceEntryName}.
+	 */
+	static Optional<Locale> toExportEntryLocale(String entryName,
+												ExportMessageFormatType messageFormatType,
+												Collection<Locale> locales) {
+		String tag = toExportEntryTag(entryName, messageFormatType);
+		if (tag == null) {
+			return Optional.empty();
+		}
+
+		String normalizedTag = normalizeTag(tag);
+		for (Locale locale : locales) {
+			if (normalizeTag(localeToTolgeeTag(locale)).equals(normalizedTag)) {
+				return Optional.of(locale);
+			}
+		}
+
+		return Optional.empty();
+	}
+
+	/**
+	 * @return The language tag in the entry name, or {@code null} if the entry name doesn't have the structure Tolgee
+	 * uses for the format.
+	 */
+	private static String toExportEntryTag(String entryName, ExportMessageFormatType messageFormatType) {
+		List<String> parts = Splitter.on('/').splitToList(entryName);
+		String directory = parts.size() == 2 ? parts.getFirst() : null;
+		String fileName = parts.size() == 1 ? parts.getFirst() : null;
+
+		return switch (messageFormatType) {
+			case ANDROID_XML -> directory != null && directory.startsWith("values-")
+					? fromAndroidTag(directory.substring("values-".length()))
+					: null;
+			case APPLE_STRINGS_STRINGSDICT -> directory != null && directory.endsWith(".lproj")
+					? directory.substring(0, directory.length() - ".lproj".length())
+					: null;
+			case FLUTTER_ARB -> fileName != null && fileName.startsWith("app_")
+					? withoutExtension(fileName.substring("app_".length()))
+					: null;
+			default -> fileName != null ? withoutExtension(fileName) : null;
+		};
+	}
+
+	/**
+	 * Android resource qualifiers have either the language with an optional region ('en-rGB'), or a BCP 47 language tag
+	 * ('b+zh+Hant+TW').
+	 */
+	private static String fromAndroidTag(String androidTag) {
+		if (androidTag.startsWith("b+")) {
+			return androidTag.substring("b+".length()).replace('+', '-');
+		}
+
+		int regionIndex = androidTag.indexOf("-r");
+		return regionIndex < 0
+				? androidTag
+				: androidTag.substring(0, regionIndex) + "-" + androidTag.substring(regionIndex + "-r".length());
+	}
+
+	private static String withoutExtension(String fileName) {
+		int extensionIndex = fileName.lastIndexOf('.');
+		return extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+	}
+
+	private static String normalizeTag(String tag) {
+		return tag.replace('_', '-').toLowerCase(Locale.ROOT);
+	}
+
+	private static String localeToTolgeeTag(Locale locale) {
+		// In this place of the API the region needs to be in upper case, which BCP 47 language tags are normalized to.
+		return locale.toLanguageTag();
+	}
+}
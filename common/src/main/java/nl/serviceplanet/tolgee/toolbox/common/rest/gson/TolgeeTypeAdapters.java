@@ -0,0 +1,286 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportAddFilesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportAddFilesRespEmbedded;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportAddFilesResult;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportListResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportListRespEmbedded;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguagesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguagesRespEmbedded;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespace;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespacesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespacesRespEmbedded;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Reflection-free GSON {@link TypeAdapter}s for the responses of the Tolgee REST API. Unknown properties are skipped
+ * and {@code null} values leave the default value of a property in place, which matches how GSON handles these
+ * objects through reflection. The only difference is a {@code null} list: through reflection GSON replaces the empty
+ * default list with {@code null}, these adapters keep the empty list.
+ *
+ * The adapters only read; requests are still written through reflection.
+ */
+final class TolgeeTypeAdapters {
+
+	private static final TypeAdapter<String> STRING = new ReadOnlyAdapter<>() {
+		@Override
+		public String read(JsonReader in) throws IOException {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+
+			return in.nextString();
+		}
+	};
+
+	private static final TypeAdapter<ImportLanguage> IMPORT_LANGUAGE = new ObjectAdapter<>(ImportLanguage::new) {
+		@Override
+		void readProperty(JsonReader in, String name, ImportLanguage importLanguage) throws IOException {
+			switch (name) {
+				case "id" -> importLanguage.setId(in.nextLong());
+				case "name" -> importLanguage.setName(in.nextString());
+				case "existingLanguageId" -> importLanguage.setExistingLanguageId(in.nextLong());
+				case "existingLanguageTag" -> importLanguage.setExistingLanguageTag(in.nextString());
+				case "existingLanguageAbbreviation" -> importLanguage.setExistingLanguageAbbreviation(in.nextString());
+				case "existingLanguageName" -> importLanguage.setExistingLanguageName(in.nextString());
+				case "importFileName" -> importLanguage.setImportFileName(in.nextString());
+				case "importFileId" -> importLanguage.setImportFileId(in.nextLong());
+				case "importFileIssueCount" -> importLanguage.setImportFileIssueCount(in.nextInt());
+				case "namespace" -> importLanguage.setNamespace(in.nextString());
+				case "totalCount" -> importLanguage.setTotalCount(in.nextInt());
+				case "conflictCount" -> importLanguage.setConflictCount(in.nextInt());
+				case "resolvedCount" -> importLanguage.setResolvedCount(in.nextInt());
+				default -> in.skipValue();
+			}
+		}
+	};
+
+	private static final TypeAdapter<ProjectLanguage> PROJECT_LANGUAGE = new ObjectAdapter<>(ProjectLanguage::new) {
+		@Override
+		void readProperty(JsonReader in, String name, ProjectLanguage projectLanguage) throws IOException {
+			switch (name) {
+				case "id" -> projectLanguage.setId(in.nextLong());
+				case "name" -> projectLanguage.setName(in.nextString());
+				case "tag" -> projectLanguage.setTag(in.nextString());
+				case "originalName" -> projectLanguage.setOriginalName(in.nextString());
+				case "flagEmoji" -> projectLanguage.setFlagEmoji(in.nextString());
+				case "base" -> projectLanguage.setBase(in.nextBoolean());
+				default -> in.skipValue();
+			}
+		}
+	};
+
+	private static final TypeAdapter<ProjectNamespace> PROJECT_NAMESPACE = new ObjectAdapter<>(ProjectNamespace::new) {
+		@Override
+		void readProperty(JsonReader in, String name, ProjectNamespace projectNamespace) throws IOException {
+			switch (name) {
+				case "id" -> projectNamespace.setId(in.nextLong());
+				case "name" -> projectNamespace.setName(in.nextString());
+				default -> in.skipValue();
+			}
+		}
+	};
+
+	private static final TypeAdapter<ImportAddFilesRespEmbedded> IMPORT_ADD_FILES_RESP_EMBEDDED =
+			new ObjectAdapter<>(ImportAddFilesRespEmbedded::new) {
+				@Override
+				void readProperty(JsonReader in, String name, ImportAddFilesRespEmbedded embedded) throws IOException {
+					switch (name) {
+						case "languages" -> embedded.setLanguages(readList(in, IMPORT_LANGUAGE));
+						default -> in.skipValue();
+					}
+				}
+			};
+
+	private static final TypeAdapter<ImportAddFilesResult> IMPORT_ADD_FILES_RESULT =
+			new ObjectAdapter<>(ImportAddFilesResult::new) {
+				@Override
+				void readProperty(JsonReader in, String name, ImportAddFilesResult result) throws IOException {
+					switch (name) {
+						case "_embedded" -> result.setEmbedded(IMPORT_ADD_FILES_RESP_EMBEDDED.read(in));
+						default -> in.skipValue();
+					}
+				}
+			};
+
+	private static final TypeAdapter<ImportAddFilesResp> IMPORT_ADD_FILES_RESP =
+			new ObjectAdapter<>(ImportAddFilesResp::new) {
+				@Override
+				void readProperty(JsonReader in, String name, ImportAddFilesResp resp) throws IOException {
+					switch (name) {
+						case "errors" -> resp.setErrors(readList(in, STRING));
+						case "result" -> resp.setResult(IMPORT_ADD_FILES_RESULT.read(in));
+						default -> in.skipValue();
+					}
+				}
+			};
+
+	private static final TypeAdapter<ImportListRespEmbedded> IMPORT_LIST_RESP_EMBEDDED =
+			new ObjectAdapter<>(ImportListRespEmbedded::new) {
+				@Override
+				void readProperty(JsonReader in, String name, ImportListRespEmbedded embedded) throws IOException {
+					switch (name) {
+						case "languages" -> embedded.setLanguages(readList(in, PROJECT_LANGUAGE));
+						default -> in.skipValue();
+					}
+				}
+			};
+
+	private static final TypeAdapter<ImportListResp> IMPORT_LIST_RESP = new ObjectAdapter<>(ImportListResp::new) {
+		@Override
+		void readProperty(JsonReader in, String name, ImportListResp resp) throws IOException {
+			switch (name) {
+				case "_embedded" -> resp.setEmbedded(IMPORT_LIST_RESP_EMBEDDED.read(in));
+				default -> in.skipValue();
+			}
+		}
+	};
+
+	private static final TypeAdapter<ProjectLanguagesRespEmbedded> PROJECT_LANGUAGES_RESP_EMBEDDED =
+			new ObjectAdapter<>(ProjectLanguagesRespEmbedded::new) {
+				@Override
+				void readProperty(JsonReader in, String name, ProjectLanguagesRespEmbedded embedded) throws IOException {
+					switch (name) {
+						case "languages" -> embedded.setLanguages(readList(in, PROJECT_LANGUAGE));
+						default -> in.skipValue();
+					}
+				}
+			};
+
+	private static final TypeAdapter<ProjectLanguagesResp> PROJECT_LANGUAGES_RESP =
+			new ObjectAdapter<>(ProjectLanguagesResp::new) {
+				@Override
+				void readProperty(JsonReader in, String name, ProjectLanguagesResp resp) throws IOException {
+					switch (name) {
+						case "_embedded" -> resp.setEmbedded(PROJECT_LANGUAGES_RESP_EMBEDDED.read(in));
+						default -> in.skipValue();
+					}
+				}
+			};
+
+	private static final TypeAdapter<ProjectNamespacesRespEmbedded> PROJECT_NAMESPACES_RESP_EMBEDDED =
+			new ObjectAdapter<>(ProjectNamespacesRespEmbedded::new) {
+				@Override
+				void readProperty(JsonReader in, String name, ProjectNamespacesRespEmbedded embedded) throws IOException {
+					switch (name) {
+						case "namespaces" -> embedded.setNamespaces(readList(in, PROJECT_NAMESPACE));
+						default -> in.skipValue();
+					}
+				}
+			};
+
+	private static final TypeAdapter<ProjectNamespacesResp> PROJECT_NAMESPACES_RESP =
+			new ObjectAdapter<>(ProjectNamespacesResp::new) {
+				@Override
+				void readProperty(JsonReader in, String name, ProjectNamespacesResp resp) throws IOException {
+					switch (name) {
+						case "_embedded" -> resp.setEmbedded(PROJECT_NAMESPACES_RESP_EMBEDDED.read(in));
+						default -> in.skipValue();
+					}
+				}
+			};
+
+	private TolgeeTypeAdapters() {
+	}
+
+	/**
+	 * Creates a {@link Gson} instance which uses the adapters of this class to read Tolgee responses.
+	 */
+	static Gson createGson() {
+		return new GsonBuilder()
+				.registerTypeAdapter(ImportAddFilesResp.class, IMPORT_ADD_FILES_RESP)
+				.registerTypeAdapter(ImportListResp.class, IMPORT_LIST_RESP)
+				.registerTypeAdapter(ProjectLanguagesResp.class, PROJECT_LANGUAGES_RESP)
+				.registerTypeAdapter(ProjectNamespacesResp.class, PROJECT_NAMESPACES_RESP)
+				.create();
+	}
+
+	private static <T> List<T> readList(JsonReader in, TypeAdapter<T> elementAdapter) throws IOException {
+		List<T> list = new ArrayList<>();
+
+		in.beginArray();
+		while (in.hasNext()) {
+			list.add(elementAdapter.read(in));
+		}
+		in.endArray();
+
+		return list;
+	}
+
+	private abstract static class ReadOnlyAdapter<T> extends TypeAdapter<T> {
+
+		@Override
+		public final void write(JsonWriter out, T value) {
+			throw new UnsupportedOperationException("Tolgee responses are only read, never written.");
+		}
+	}
+
+	/**
+	 * Reads a JSON object property by property into a newly created object.
+	 */
+	private abstract static class ObjectAdapter<T> extends ReadOnlyAdapter<T> {
+
+		private final Supplier<T> constructor;
+
+		ObjectAdapter(Supplier<T> constructor) {
+			this.constructor = constructor;
+		}
+
+		/**
+		 * Reads the (non-null) value of a single property. Must consume the value, also when the property is unknown.
+		 */
+		abstract void readProperty(JsonReader in, String name, T target) throws IOException;
+
+		@Override
+		public final T read(JsonReader in) throws IOException {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+
+			T target = constructor.get();
+
+			in.beginObject();
+			while (in.hasNext()) {
+				String name = in.nextName();
+				if (in.peek() == JsonToken.NULL) {
+					in.nextNull();
+					continue;
+				}
+
+				readProperty(in, name, target);
+			}
+			in.endObject();
+
+			return target;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.http;
+
+import com.google.common.base.Strings;
+
+import java.time.Duration;
+
+/**
+ * Settings for the pooled HTTP clients used to communicate with Tolgee servers. Every Tolgee host gets its own
+ * connection pool, so the limits below apply per Tolgee host.
+ *
+ * @param maxConnectionsTotal Maximum number of connections in the pool of a single Tolgee host.
+ * @param maxConnectionsPerRoute Maximum number of connections per route (scheme, host and port).
+ * @param connectTimeout Maximum time to wait for a connection to be established.
+ * @param idleTimeout Time after which idle connections are evicted from the pool.
+ */
+public record HttpClientSettings(int maxConnectionsTotal,
+								 int maxConnectionsPerRoute,
+								 Duration connectTimeout,
+								 Duration idleTimeout) {
+
+	private static final String MAX_CONNECTIONS_ENV = "TOLGEE_TOOLBOX_HTTP_MAX_CONNECTIONS";
+
+	private static final String MAX_CONNECTIONS_PER_ROUTE_ENV = "TOLGEE_TOOLBOX_HTTP_MAX_CONNECTIONS_PER_ROUTE";
+
+	private static final String CONNECT_TIMEOUT_ENV = "TOLGEE_TOOLBOX_HTTP_CONNECT_TIMEOUT_SECONDS";
+
+	private static final String IDLE_TIMEOUT_ENV = "TOLGEE_TOOLBOX_HTTP_IDLE_TIMEOUT_SECONDS";
+
+	public HttpClientSettings {
+		if (maxConnectionsTotal < 1) {
+			throw new IllegalArgumentException("'maxConnectionsTotal' must be at least 1.");
+		}
+		if (maxConnectionsPerRoute < 1 || maxConnectionsPerRoute > maxConnectionsTotal) {
+			throw new IllegalArgumentException(
+					"'maxConnectionsPerRoute' must be at least 1 and not exceed 'maxConnectionsTotal'.");
+		}
+	}
+
+	public static HttpClientSettings defaults() {
+		return new HttpClientSettings(20, 20, Duration.ofSeconds(10), Duration.ofSeconds(30));
+	}
+
+	/**
+	 * Creates settings based on the defaults which can be overridden with environmental variables.
+	 */
+	public static HttpClientSettings fromEnvironment() {
+		HttpClientSettings defaults = defaults();
+
+		int maxConnectionsTotal = readIntEnv(MAX_CONNECTIONS_ENV, defaults.maxConnectionsTotal());
+		return new HttpClientSettings(
+				maxConnectionsTotal,
+				readIntEnv(MAX_CONNECTIONS_PER_ROUTE_ENV, Math.min(maxConnectionsTotal, defaults.maxConnectionsPerRoute())),
+				Duration.ofSeconds(readIntEnv(CONNECT_TIMEOUT_ENV, (int) defaults.connectTimeout().toSeconds())),
+				Duration.ofSeconds(readIntEnv(IDLE_TIMEOUT_ENV, (int) defaults.idleTimeout().toSeconds())));
+	}
+
+	private static int readIntEnv(String name, int defaultValue) {
+		String value = System.getenv(name);
+		if (Strings.isNullOrEmpty(value)) {
+			return defaultValue;
+		}
+
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalStateException(String.format("Environmental variable '%s' must contain a number but was '%s'.",
+					name, value), e);
+		}
+	}
+}
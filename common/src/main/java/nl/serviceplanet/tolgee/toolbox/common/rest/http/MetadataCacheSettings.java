@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.http;
+
+import com.google.common.base.Strings;
+import nl.serviceplanet.tolgee.toolbox.common.io.CacheDirectory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for caching the languages and namespaces of Tolgee projects.
+ *
+ * @param cacheDirectory The directory in which responses are kept between runs. When {@code null} responses are only
+ *                       cached for the duration of a run.
+ * @param ttl How long a response kept on disk is used without asking the Tolgee server whether it changed.
+ */
+public record MetadataCacheSettings(Path cacheDirectory, Duration ttl) {
+
+	private static final String TTL_ENV = "TOLGEE_TOOLBOX_METADATA_TTL_SECONDS";
+
+	public MetadataCacheSettings {
+		if (ttl == null || ttl.isNegative()) {
+			throw new IllegalArgumentException("'ttl' must not be null or negative.");
+		}
+	}
+
+	/**
+	 * Only caches responses for the duration of a run.
+	 */
+	public static MetadataCacheSettings inMemory() {
+		return new MetadataCacheSettings(null, Duration.ZERO);
+	}
+
+	/**
+	 * Creates settings which keep responses in the 'tolgee-metadata' cache directory for a minute, which can be
+	 * overridden with an environmental variable.
+	 */
+	public static MetadataCacheSettings fromEnvironment() {
+		Duration ttl = Duration.ofMinutes(1);
+		String value = System.getenv(TTL_ENV);
+		if (!Strings.isNullOrEmpty(value)) {
+			try {
+				ttl = Duration.ofSeconds(Long.parseLong(value.trim()));
+			} catch (NumberFormatException e) {
+				throw new IllegalStateException(String.format("Environmental variable '%s' must contain a number but was '%s'.",
+						TTL_ENV, value), e);
+			}
+		}
+
+		return new MetadataCacheSettings(CacheDirectory.resolve("tolgee-metadata"), ttl);
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.http;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeHosts;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the long-lived, pooled HTTP clients used to communicate with Tolgee servers. Connections are kept alive and
+ * reused between requests, so only the first request to a Tolgee host pays for the TCP and TLS handshake.
+ *
+ * Every Tolgee host (scheme, host and port of the {@code tolgee.api.url}) gets its own connection pool. All pools share
+ * a single {@link SSLContext} so TLS sessions can be resumed when a new connection has to be set up.
+ *
+ * Besides the classic (blocking) clients, asynchronous clients are available. These negotiate HTTP/2 via ALPN when the
+ * Tolgee host is reached over TLS, which allows many requests to be multiplexed over a single connection. Otherwise
+ * they fall back to HTTP/1.1 with a pool of keep-alive connections.
+ *
+ * Must be closed once when the application shuts down.
+ */
+@Singleton
+public final class TolgeeHttpClients implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(TolgeeHttpClients.class);
+
+	private final HttpClientSettings settings;
+
+	private final SSLContext sslContext;
+
+	private final ConcurrentMap<String, CloseableHttpClient> httpClients = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, CloseableHttpAsyncClient> asyncHttpClients = new ConcurrentHashMap<>();
+
+	private volatile boolean closed = false;
+
+	@Inject
+	public TolgeeHttpClients(HttpClientSettings settings) {
+		this.settings = settings;
+		this.sslContext = SSLContexts.createDefault();
+	}
+
+	/**
+	 * Returns the pooled HTTP client for the Tolgee host of the specified API URI. The returned client must not be
+	 * closed by the caller.
+	 */
+	public CloseableHttpClient httpClient(URI apiUri) {
+		if (closed) {
+			throw new IllegalStateException("HTTP clients have already been closed.");
+		}
+
+		return httpClients.computeIfAbsent(TolgeeHosts.hostKey(apiUri), this::createHttpClient);
+	}
+
+	private CloseableHttpClient createHttpClient(String hostKey) {
+		log.debug("Creating pooled HTTP client for Tolgee host '{}'.", hostKey);
+
+		PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+				.setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
+						.setSslContext(sslContext)
+						.build())
+				.setMaxConnTotal(settings.maxConnectionsTotal())
+				.setMaxConnPerRoute(settings.maxConnectionsPerRoute())
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.of(settings.connectTimeout()))
+						.setValidateAfterInactivity(TimeValue.ofSeconds(2))
+						.build())
+				.build();
+
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.of(settings.idleTimeout()))
+				.build();
+	}
+
+	/**
+	 * Returns the started, pooled asynchronous HTTP client for the Tolgee host of the specified API URI. The returned
+	 * client must not be closed by the caller.
+	 */
+	public CloseableHttpAsyncClient asyncHttpClient(URI apiUri) {
+		if (closed) {
+			throw new IllegalStateException("HTTP clients have already been closed.");
+		}
+
+		return asyncHttpClients.computeIfAbsent(TolgeeHosts.hostKey(apiUri), this::createAsyncHttpClient);
+	}
+
+	private CloseableHttpAsyncClient createAsyncHttpClient(String hostKey) {
+		log.debug("Creating pooled asynchronous HTTP client for Tolgee host '{}'.", hostKey);
+
+		PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+				.setTlsStrategy(ClientTlsStrategyBuilder.create()
+						.setSslContext(sslContext)
+						.build())
+				.setDefaultTlsConfig(TlsConfig.custom()
+						.setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+						.build())
+				.setMaxConnTotal(settings.maxConnectionsTotal())
+				.setMaxConnPerRoute(settings.maxConnectionsPerRoute())
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.of(settings.connectTimeout()))
+						.setValidateAfterInactivity(TimeValue.ofSeconds(2))
+						.build())
+				.build();
+
+		CloseableHttpAsyncClient asyncHttpClient = HttpAsyncClients.custom()
+				.setConnectionManager(connectionManager)
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.of(settings.idleTimeout()))
+				.build();
+		asyncHttpClient.start();
+
+		return asyncHttpClient;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+
+		httpClients.forEach((hostKey, httpClient) -> {
+			log.debug("Closing pooled HTTP client for Tolgee host '{}'.", hostKey);
+			httpClient.close(CloseMode.GRACEFUL);
+		});
+		httpClients.clear();
+
+		asyncHttpClients.forEach((hostKey, asyncHttpClient) -> {
+			log.debug("Closing pooled asynchronous HTTP client for Tolgee host '{}'.", hostKey);
+			asyncHttpClient.close(CloseMode.GRACEFUL);
+		});
+		asyncHttpClients.clear();
+	}
+}
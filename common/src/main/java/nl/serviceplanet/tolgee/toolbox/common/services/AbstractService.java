@@ -15,48 +15,69 @@
  */
 package nl.serviceplanet.tolgee.toolbox.common.services;
 
-import com.google.common.collect.ImmutableSet;
-import nl.serviceplanet.tolgee.toolbox.common.config.api.LocalePlaceholder;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.FilesTemplate;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFile;
-import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFilesDefinition;
+import nl.serviceplanet.tolgee.toolbox.common.discovery.DirectoryIndexes;
 import nl.serviceplanet.tolgee.toolbox.common.model.MessageFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Locale;
-import java.util.regex.Matcher;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public abstract class AbstractService {
 
 	private final Logger log = LoggerFactory.getLogger(AbstractService.class);
 
+	private final DirectoryIndexes directoryIndexes;
+
+	/**
+	 * Creates a service which walks the project directory every time message files are searched.
+	 */
 	public AbstractService() {
+		this(new DirectoryIndexes());
 	}
 
-	protected ImmutableSet<MessageFile> findSourceMessageFiles(Path projectPath, Collection<ProjectFile> sourceFiles) throws IOException {
-		ImmutableSet.Builder<MessageFile> messageFilesBuilder = ImmutableSet.builder();
+	public AbstractService(DirectoryIndexes directoryIndexes) {
+		this.directoryIndexes = directoryIndexes;
+	}
 
-		for (ProjectFile sourceFile : sourceFiles) {
-			Pattern filePattern = projectFileToPattern(sourceFile.files());
+	/**
+	 * Finds the message files of all sources of the project. They are served from the index of the base path the
+	 * project was loaded from, or otherwise found with a single walk of the project directory. Files are found by
+	 * their name, after which their path relative to the project directory must match the whole template.
+	 *
+	 * @return The message files per source they were found for.
+	 */
+	protected ImmutableSetMultimap<ProjectFile, MessageFile> findSourceMessageFiles(Project project) throws IOException {
+		Map<ProjectFile, Pattern> filePatterns = new LinkedHashMap<>();
+		for (ProjectFile sourceFile : project.projectSources()) {
+			filePatterns.put(sourceFile, sourceFile.files().template().fileNamePattern());
+		}
 
-			try (Stream<Path> fileStream = Files.walk(projectPath, 200)) {
-				messageFilesBuilder.addAll(fileStream
-						.filter(path -> filePattern.matcher(path.getFileName().toString()).matches())
-						.map(path -> toMessageFile(path, sourceFile))
-						.collect(ImmutableSet.toImmutableSet()));
+		ImmutableListMultimap<ProjectFile, Path> paths =
+				directoryIndexes.find(project.projectPath(), filePatterns, project.discovery());
+
+		ImmutableSetMultimap.Builder<ProjectFile, MessageFile> messageFilesBuilder = ImmutableSetMultimap.builder();
+		paths.forEach((sourceFile, path) -> {
+			MessageFile messageFile = toMessageFile(project, path, sourceFile);
+			if (messageFile != null) {
+				messageFilesBuilder.put(sourceFile, messageFile);
 			}
-		}
+		});
 
-		ImmutableSet<MessageFile> messageFiles = messageFilesBuilder.build();
+		ImmutableSetMultimap<ProjectFile, MessageFile> messageFiles = messageFilesBuilder.build();
 		if (log.isDebugEnabled()) {
-			String messageFileList = messageFiles.stream()
+			String messageFileList = messageFiles.values().stream()
 					.map(MessageFile::toString)
 					.collect(Collectors.joining("\n"));
 
@@ -67,113 +88,32 @@ public abstract class AbstractService {
 	}
 
 	/**
-	 * Generates a regex (i.e. a {@link Pattern}) to match message files for the specified
-	 * {@link ProjectFilesDefinition}.
+	 * Extracts the Locale from the {@link Path} based on the placeholders defined in the specified
+	 * {@link ProjectFile}.
+	 *
+	 * @return The message file, or {@code null} if the path doesn't match the template or the placeholders in the
+	 * path contain different locales.
 	 */
-	private Pattern projectFileToPattern(ProjectFilesDefinition projectFilesDefinition) {
-		// Everything between \Q and \E is escaped in a regex. We don't want the dots, etc. in the path to behave
-		// like a regex wildcard.
-		StringBuilder fullRegex = new StringBuilder("\\Q");
-		fullRegex.append(projectFilesDefinition.projectFileDefinition());
-
-		for (LocalePlaceholder localePlaceholder : projectFilesDefinition.localePlaceholders()) {
-			String regex = "\\E" + localePlaceholderToRegex(localePlaceholder) + "\\Q";
-			int index = fullRegex.indexOf(localePlaceholder.placeholder());
-			if (index < 0) {
-				throw new IllegalStateException(String.format("Can't find '%s' in '%s'.",
-						localePlaceholder.placeholder(), fullRegex));
-			}
-
-			fullRegex.replace(index, index + localePlaceholder.placeholder().length(), regex);
+	private MessageFile toMessageFile(Project project, Path path, ProjectFile sourceFile) {
+		FilesTemplate template = sourceFile.files().template();
+		String relativePath = Joiner.on('/').join(project.projectPath().relativize(path));
+		if (!template.matches(relativePath)) {
+			// Only the file name matches, not the directories of the template.
+			return null;
 		}
-		fullRegex.append("\\E");
-
-		log.trace("Generated regex '{}' for location '{}'.", fullRegex, projectFilesDefinition.projectFileDefinition());
-
-		return Pattern.compile(fullRegex.toString());
-	}
-
-	private static final String REGEX_SEP_DASH = "-";
-
-	private static final String REGEX_SEP_UNDERSCORE = "_";
-
-	private static final String REGEX_COUNTRY_LOWER = "([a-z]{2})";
 
-	private static final String REGEX_COUNTRY_UPPER = "([A-Z]{2})";
-
-	/**
-	 * Primarily extracts the Locale from {@link Path} based on the placeholders defined in the
-	 * specified {@link ProjectFile}.
-	 */
-	private MessageFile toMessageFile(Path path, ProjectFile sourceFile) {
-		if (sourceFile.files().localePlaceholders().isEmpty()) {
+		if (!template.hasPlaceholders()) {
 			// If there are no placeholders, use the locale which was specified in the configuration.
 			return new MessageFile(path, sourceFile.locale(), sourceFile.sourceMessageFormatType());
 		}
 
-		// Try to match a full locale definition such as 'en_US' in the filename.
-		LocalePlaceholder localePlaceholder = sourceFile.files().localePlaceholders().iterator().next();
-
-		// TODO: If you use multiple locale placeholders in the filename, for example "foo_en-US-bar_en-US.xliff"
-		//  this doesn't work.
-		int placeholderIndex = sourceFile.files().projectFileDefinition().indexOf(localePlaceholder.placeholder());
-		String regexStart = "\\Q" + sourceFile.files().projectFileDefinition().substring(0, placeholderIndex) + "\\E";
-
-		// Example regex: Messages_([a-z]{2})(?:_([A-Z]{2}))?\.properties
-		StringBuilder regexBuilder = new StringBuilder(regexStart);
-		regexBuilder.append(REGEX_COUNTRY_LOWER);
-		regexBuilder.append("(?:");
-		switch (localePlaceholder.separator()) {
-			case Dash -> regexBuilder.append(REGEX_SEP_DASH);
-			case Underscore -> regexBuilder.append(REGEX_SEP_UNDERSCORE);
-			case null -> throw new IllegalArgumentException("Separator must never be 'null'.");
-			default -> throw new IllegalArgumentException(String.format("Unknown separator '%s'.",
-					localePlaceholder.separator()));
-		}
-		switch (localePlaceholder.regionCase()) {
-			case Lower -> regexBuilder.append(REGEX_COUNTRY_LOWER);
-			case Upper -> regexBuilder.append(REGEX_COUNTRY_UPPER);
-			case null -> throw new IllegalArgumentException("Region case must never be 'null'.");
-			default -> throw new IllegalArgumentException(String.format("Unknown region case '%s'.",
-					localePlaceholder.separator()));
-		}
-		regexBuilder.append(")?");
-
-		Matcher matcher = Pattern.compile(regexBuilder.toString()).matcher(path.toString());
-		if (matcher.find()) {
-			Locale locale = Locale.of(matcher.group(1));
-
-			if (matcher.group(2) != null) {
-				locale = Locale.of(matcher.group(1), matcher.group(2));
-			}
-
-			return new MessageFile(path, locale, sourceFile.sourceMessageFormatType());
-		} else {
-			throw new IllegalStateException();
-		}
-	}
-
-	private String localePlaceholderToRegex(LocalePlaceholder localePlaceholder) {
-		StringBuilder regexBuilder = new StringBuilder();
-
-		regexBuilder.append(REGEX_COUNTRY_LOWER);
-
-		switch (localePlaceholder.separator()) {
-			case Dash -> regexBuilder.append(REGEX_SEP_DASH);
-			case Underscore -> regexBuilder.append(REGEX_SEP_UNDERSCORE);
-			case null -> throw new IllegalArgumentException("Separator must never be 'null'.");
-			default -> throw new IllegalArgumentException(String.format("Unknown separator '%s'.",
-					localePlaceholder.separator()));
-		}
-
-		switch (localePlaceholder.regionCase()) {
-			case Lower -> regexBuilder.append(REGEX_COUNTRY_LOWER);
-			case Upper -> regexBuilder.append(REGEX_COUNTRY_UPPER);
-			case null -> throw new IllegalArgumentException("Region case must never be 'null'.");
-			default -> throw new IllegalArgumentException(String.format("Unknown region case '%s'.",
-					localePlaceholder.separator()));
+		Locale locale = template.matchLocale(relativePath);
+		if (locale == null) {
+			log.warn("Skipping '{}', the locale placeholders of '{}' contain different locales.",
+					path, sourceFile.files().projectFileDefinition());
+			return null;
 		}
 
-		return regexBuilder.toString();
+		return new MessageFile(path, locale, sourceFile.sourceMessageFormatType());
 	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services;
+
+import com.google.common.collect.ImmutableList;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencyBudget;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.TasksFailedException.TaskFailure;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs independent tasks concurrently while limiting how many of them run at the same time. Every task runs in its
+ * own virtual thread, which is cheap since the tasks mostly wait on the Tolgee server. A failing task does not stop
+ * the other tasks; all failures are collected and returned once every task has finished.
+ */
+final class ConcurrentTasks {
+
+	/**
+	 * A task which can fail with a checked exception.
+	 */
+	@FunctionalInterface
+	interface Task {
+		void run() throws Exception;
+	}
+
+	/**
+	 * @param description Describes the task in case it fails. For example the path of a message file.
+	 */
+	record NamedTask(String description, Task task) {}
+
+	private ConcurrentTasks() {
+	}
+
+	/**
+	 * Runs all tasks, which talk to the specified Tolgee API, within the specified budget. Blocks until all tasks are
+	 * finished.
+	 *
+	 * @see #run(int, List)
+	 */
+	static ImmutableList<TaskFailure> run(int maxConcurrency,
+										  ConcurrencyBudget budget,
+										  URI apiUri,
+										  List<NamedTask> tasks) {
+		List<NamedTask> budgetedTasks = new ArrayList<>(tasks.size());
+		for (NamedTask namedTask : tasks) {
+			budgetedTasks.add(new NamedTask(namedTask.description(),
+					() -> budget.call(apiUri, () -> {
+						namedTask.task().run();
+						return null;
+					})));
+		}
+
+		return run(maxConcurrency, budgetedTasks);
+	}
+
+	/**
+	 * Runs all tasks and blocks until they are finished.
+	 *
+	 * @param maxConcurrency The maximum number of tasks which run at the same time. When {@code 1} the tasks run one
+	 *                       after another in the specified order.
+	 * @return The failures of all tasks which failed. Empty if all tasks succeeded.
+	 */
+	static ImmutableList<TaskFailure> run(int maxConcurrency, List<NamedTask> tasks) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("'maxConcurrency' must be at least 1.");
+		}
+
+		ImmutableList.Builder<TaskFailure> failures = ImmutableList.builder();
+
+		if (maxConcurrency == 1 || tasks.size() <= 1) {
+			for (NamedTask namedTask : tasks) {
+				try {
+					namedTask.task().run();
+				} catch (Exception e) {
+					failures.add(new TaskFailure(namedTask.description(), e));
+				}
+			}
+
+			return failures.build();
+		}
+
+		// A fair semaphore lets the tasks start roughly in the order in which they were specified.
+		Semaphore permits = new Semaphore(maxConcurrency, true);
+		List<Future<?>> futures = new ArrayList<>(tasks.size());
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (NamedTask namedTask : tasks) {
+				futures.add(executor.submit(() -> {
+					permits.acquire();
+					try {
+						namedTask.task().run();
+					} finally {
+						permits.release();
+					}
+
+					return null;
+				}));
+			}
+
+			for (int x = 0; x < tasks.size(); x++) {
+				try {
+					futures.get(x).get();
+				} catch (ExecutionException e) {
+					failures.add(new TaskFailure(tasks.get(x).description(), e.getCause()));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					executor.shutdownNow();
+					failures.add(new TaskFailure(tasks.get(x).description(), e));
+					break;
+				}
+			}
+		}
+
+		return failures.build();
+	}
+}
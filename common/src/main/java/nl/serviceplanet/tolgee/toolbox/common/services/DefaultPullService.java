@@ -15,25 +15,46 @@
  */
 package nl.serviceplanet.tolgee.toolbox.common.services;
 
-import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.SetMultimap;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ConfigService;
-import nl.serviceplanet.tolgee.toolbox.common.config.api.LocalePlaceholder;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFile;
+import nl.serviceplanet.tolgee.toolbox.common.convert.MessageConverter;
+import nl.serviceplanet.tolgee.toolbox.common.convert.MessageWriter;
+import nl.serviceplanet.tolgee.toolbox.common.io.AtomicFileWriter;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectSnapshot;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeNamespace;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeRestClient;
-import nl.serviceplanet.tolgee.toolbox.common.rest.gson.GsonTolgeeRestClient;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencyBudget;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.PullOptions;
 import nl.serviceplanet.tolgee.toolbox.common.services.api.PullService;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.TasksFailedException;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.TasksFailedException.TaskFailure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Singleton
 public final class DefaultPullService extends AbstractService implements PullService {
@@ -44,28 +65,63 @@ public final class DefaultPullService extends AbstractService implements PullSer
 
 	private final TolgeeRestClient tolgeeRestClient;
 
+	private final TolgeeProjectSnapshots tolgeeProjectSnapshots;
+
 	@Inject
-	public DefaultPullService(ConfigService configService, TolgeeRestClient tolgeeRestClient) {
+	public DefaultPullService(ConfigService configService,
+							  TolgeeRestClient tolgeeRestClient,
+							  TolgeeProjectSnapshots tolgeeProjectSnapshots) {
 		this.configService = configService;
 		this.tolgeeRestClient = tolgeeRestClient;
+		this.tolgeeProjectSnapshots = tolgeeProjectSnapshots;
 	}
 
 	@Override
-	public void pullMessages(Project project) throws IOException {
+	public void pullMessages(Project project, PullOptions options) throws IOException {
+		ExportPlan exportPlan = new ExportPlan();
+		addToPlan(exportPlan, project, options);
+
+		WriteCounts writeCounts = new WriteCounts(exportPlan);
+		List<ConcurrentTasks.NamedTask> exports = exportTasks(exportPlan, options, writeCounts);
+
+		ImmutableList<TaskFailure> failures = ConcurrentTasks.run(options.concurrency().maxConcurrent(), exports);
+		writeCounts.log();
+		if (!failures.isEmpty()) {
+			throw new TasksFailedException(String.format("%s of %s exports failed for project with ID %s in '%s'.",
+					failures.size(), exports.size(), project.tolgeeProjectId(), project.projectPath()), failures);
+		}
+	}
+
+	@Override
+	public void pullMessages(Collection<Project> projects, PullOptions options) throws IOException {
+		ExportPlan exportPlan = new ExportPlan();
+		for (Project project : projects) {
+			addToPlan(exportPlan, project, options);
+		}
+
+		WriteCounts writeCounts = new WriteCounts(exportPlan);
+		List<ConcurrentTasks.NamedTask> exports = exportTasks(exportPlan, options, writeCounts);
+		log.debug("Pulling {} message files of {} projects with {} exports.",
+				exportPlan.messageFileCount(), projects.size(), exports.size());
+
+		ImmutableList<TaskFailure> failures = ConcurrentTasks.run(options.concurrency().maxConcurrent(), exports);
+		writeCounts.log();
+		log.info("Pulled {} projects with {} exports.", projects.size(), exports.size());
+		if (!failures.isEmpty()) {
+			throw new TasksFailedException(String.format("%s of %s exports failed.",
+					failures.size(), exports.size()), failures);
+		}
+	}
+
+	/**
+	 * Adds a message file per language per target of the project to the plan.
+	 */
+	private void addToPlan(ExportPlan exportPlan, Project project, PullOptions options) throws IOException {
 		// Retrieve all languages and namespaces the project in Tolgee has.
-		ImmutableSet<TolgeeProjectLanguage> tolgeeProjectLanguages = tolgeeRestClient.projectLanguages(
-				project.tolgeeApiURI(),
-				configService.getTolgeeApiKey(),
-				project.tolgeeProjectId());
-		ImmutableSet<TolgeeNamespace> tolgeeNamespaces = tolgeeRestClient.projectNamespaces(
-				project.tolgeeApiURI(),
-				configService.getTolgeeApiKey(),
-				project.tolgeeProjectId());
-
-		Optional<TolgeeNamespace> tolgeeNamespaceOpt = tolgeeNamespaces.stream()
-				.filter(tolgeeNamespace -> tolgeeNamespace.tolgeeId() != 0)
-				.filter(tolgeeNamespace -> tolgeeNamespace.name().equals(project.namespace()))
-				.findFirst();
+		TolgeeProjectSnapshot snapshot = options.concurrency().budget().call(project.tolgeeApiURI(),
+				() -> tolgeeProjectSnapshots.get(project));
+
+		Optional<TolgeeNamespace> tolgeeNamespaceOpt = snapshot.namespace(project.namespace());
 
 		if (project.missingNamespaceFail() && tolgeeNamespaceOpt.isEmpty()) {
 			throw new IllegalStateException(
@@ -73,38 +129,321 @@ public final class DefaultPullService extends AbstractService implements PullSer
 							project.tolgeeProjectId(), project.namespace()));
 		}
 
-		for (TolgeeProjectLanguage tolgeeProjectLanguage : tolgeeProjectLanguages) {
-			for (ProjectFile targetProjectFile : project.projectTargets()) {
+		for (ProjectFile targetProjectFile : project.projectTargets()) {
+			for (TolgeeProjectLanguage tolgeeProjectLanguage : snapshot.languages()) {
 				if (targetProjectFile.excludedLocales().contains(tolgeeProjectLanguage.locale())) {
 					continue; // If the locale has been specified as to be excluded, skip it.
 				}
 
-				Path messageFilePath = createMessageFilePath(project, tolgeeProjectLanguage, targetProjectFile);
+				exportPlan.add(project, tolgeeProjectLanguage.locale(), targetProjectFile.targetMessageFormatType(),
+						createMessageFilePath(project, tolgeeProjectLanguage, targetProjectFile));
+			}
+		}
+	}
 
+	private List<ConcurrentTasks.NamedTask> exportTasks(ExportPlan exportPlan,
+														PullOptions options,
+														WriteCounts writeCounts) {
+		return switch (options.exportMode()) {
+			case PER_LANGUAGE -> exportTasks(exportPlan.exports(), options, writeCounts);
+			case ZIP -> zipExportTasks(exportPlan, options, writeCounts);
+			case MULTI_NAMESPACE_ZIP -> multiNamespaceZipExportTasks(exportPlan, options, writeCounts);
+			case LOCAL_CONVERSION -> localConversionExportTasks(exportPlan, options, writeCounts);
+		};
+	}
+
+	/**
+	 * Converts the languages which are needed in multiple message formats locally, and exports the other languages
+	 * per language.
+	 */
+	private List<ConcurrentTasks.NamedTask> localConversionExportTasks(ExportPlan exportPlan,
+																	   PullOptions options,
+																	   WriteCounts writeCounts) {
+		Map<ExportPlan.Export, List<Path>> messageFilePathsByExport = exportPlan.exports();
+		Map<ExportPlan.ConvertedExport, Map<ExportMessageFormatType, List<Path>>> convertedExports =
+				exportPlan.convertedExports();
+		messageFilePathsByExport.keySet().removeIf(export -> MessageConverter.supports(export.messageFormatType())
+				&& convertedExports.containsKey(ExportPlan.ConvertedExport.of(export)));
+
+		List<ConcurrentTasks.NamedTask> exports = convertedExportTasks(convertedExports, options, writeCounts);
+		exports.addAll(exportTasks(messageFilePathsByExport, options, writeCounts));
+		return exports;
+	}
+
+	/**
+	 * Creates an export per language which is needed in multiple message formats. Every export is retrieved once in
+	 * the source format of the {@link MessageConverter}, and converted to all those message formats while it is
+	 * being downloaded.
+	 */
+	private List<ConcurrentTasks.NamedTask> convertedExportTasks(
+			Map<ExportPlan.ConvertedExport, Map<ExportMessageFormatType, List<Path>>> convertedExports,
+			PullOptions options,
+			WriteCounts writeCounts) {
+		ConcurrencyBudget budget = options.concurrency().budget();
+		List<ConcurrentTasks.NamedTask> exports = new ArrayList<>();
+		convertedExports.forEach((convertedExport, messageFilePathsByFormat) -> {
+			String description = String.format("export of language '%s' for project with ID %s converted to %s",
+					convertedExport.locale().toLanguageTag(), convertedExport.tolgeeProjectId(), messageFilePathsByFormat.keySet());
+			exports.add(new ConcurrentTasks.NamedTask(description, () -> budget.call(convertedExport.apiUri(), () -> {
+				log.trace("Downloading translations for project ID {} and namespace '{}' to convert them to {}.",
+						convertedExport.tolgeeProjectId(), convertedExport.namespace(), messageFilePathsByFormat.keySet());
+
+				// Exported as a namespace, so the message files of other namespaces (which Tolgee includes in an export
+				// of the default namespace) are skipped instead of converted.
+				AtomicBoolean converted = new AtomicBoolean();
+				tolgeeRestClient.exportZip(convertedExport.apiUri(),
+						configService.getTolgeeApiKey(),
+						convertedExport.tolgeeProjectId(),
+						List.of(convertedExport.locale()),
+						List.of(convertedExport.namespace()),
+						MessageConverter.SOURCE_FORMAT,
+						(namespace, locale, content) -> {
+							if (converted.getAndSet(true)) {
+								log.warn("Export of project ID {} contains multiple message files for language '{}', only the first one is used.",
+										convertedExport.tolgeeProjectId(), locale.toLanguageTag());
+								return;
+							}
+
+							convertMessageFiles(content, messageFilePathsByFormat, options, writeCounts);
+						});
+
+				if (!converted.get()) {
+					log.warn("Export of project ID {} did not contain language '{}'.",
+							convertedExport.tolgeeProjectId(), convertedExport.locale().toLanguageTag());
+				}
+				return null;
+			})));
+		});
+
+		return exports;
+	}
+
+	/**
+	 * Creates an export per language per message format. Every export is downloaded to its first message file, which
+	 * is then copied (or linked) to the other message files.
+	 */
+	private List<ConcurrentTasks.NamedTask> exportTasks(Map<ExportPlan.Export, List<Path>> messageFilePathsByExport,
+														PullOptions options,
+														WriteCounts writeCounts) {
+		ConcurrencyBudget budget = options.concurrency().budget();
+		List<ConcurrentTasks.NamedTask> exports = new ArrayList<>();
+		messageFilePathsByExport.forEach((export, messageFilePaths) -> {
+			Path messageFilePath = messageFilePaths.getFirst();
+
+			exports.add(new ConcurrentTasks.NamedTask(messageFilePath.toString(), () -> budget.call(export.apiUri(), () -> {
 				log.trace("Downloading translations for project ID {} and namespace '{}' to: '{}'.",
-						project.tolgeeProjectId(), project.namespace(), messageFilePath);
+						export.tolgeeProjectId(), export.namespace(), messageFilePath);
 
+				boolean changed = tolgeeRestClient.export(export.apiUri(),
+						configService.getTolgeeApiKey(),
+						export.tolgeeProjectId(),
+						export.locale(),
+						export.namespace(),
+						export.messageFormatType(),
+						messageFilePath,
+						options.write().fsync());
+				writeCounts.count(messageFilePath, changed);
+
+				copyMessageFile(messageFilePath, messageFilePaths.subList(1, messageFilePaths.size()), options, writeCounts);
+				return null;
+			})));
+		});
+
+		return exports;
+	}
 
-				tolgeeRestClient.export(project.tolgeeApiURI(),
+	/**
+	 * Creates a single zipped export per Tolgee project, namespace and message format, containing all languages needed
+	 * by the targets using that format. Entries of the archive are written to their message files while the archive is
+	 * being downloaded.
+	 */
+	private List<ConcurrentTasks.NamedTask> zipExportTasks(ExportPlan exportPlan,
+														   PullOptions options,
+														   WriteCounts writeCounts) {
+		ConcurrencyBudget budget = options.concurrency().budget();
+		List<ConcurrentTasks.NamedTask> exports = new ArrayList<>();
+		exportPlan.zipExports().forEach((zipExport, messageFilePaths) -> {
+			String description = String.format("%s export of %s languages for project with ID %s",
+					zipExport.messageFormatType(), messageFilePaths.keySet().size(), zipExport.tolgeeProjectId());
+			exports.add(new ConcurrentTasks.NamedTask(description, () -> budget.call(zipExport.apiUri(), () -> {
+				log.trace("Downloading {} translations for project ID {} and namespace '{}'.",
+						zipExport.messageFormatType(), zipExport.tolgeeProjectId(), zipExport.namespace());
+
+				Set<Locale> receivedLocales = new HashSet<>();
+				tolgeeRestClient.exportZip(zipExport.apiUri(),
+						configService.getTolgeeApiKey(),
+						zipExport.tolgeeProjectId(),
+						messageFilePaths.keySet(),
+						zipExport.namespace(),
+						zipExport.messageFormatType(),
+						(locale, content) -> {
+							receivedLocales.add(locale);
+							writeMessageFiles(content, messageFilePaths.get(locale), options, writeCounts);
+						});
+
+				for (Locale locale : messageFilePaths.keySet()) {
+					if (!receivedLocales.contains(locale)) {
+						log.warn("{} export of project ID {} did not contain language '{}'.",
+								zipExport.messageFormatType(), zipExport.tolgeeProjectId(), locale.toLanguageTag());
+					}
+				}
+				return null;
+			})));
+		});
+
+		return exports;
+	}
+
+	/**
+	 * Creates a single zipped export per Tolgee project and message format, containing all namespaces and languages
+	 * needed by the targets using that format. The archive is split into the message files of every namespace and
+	 * language while it is being downloaded.
+	 */
+	private List<ConcurrentTasks.NamedTask> multiNamespaceZipExportTasks(ExportPlan exportPlan,
+																		 PullOptions options,
+																		 WriteCounts writeCounts) {
+		ConcurrencyBudget budget = options.concurrency().budget();
+		List<ConcurrentTasks.NamedTask> exports = new ArrayList<>();
+		exportPlan.multiNamespaceZipExports().forEach((zipExport, messageFilePathsByNamespace) -> {
+			Set<Locale> locales = new LinkedHashSet<>();
+			messageFilePathsByNamespace.values().forEach(messageFilePaths -> locales.addAll(messageFilePaths.keySet()));
+
+			String description = String.format("%s export of %s namespaces for project with ID %s",
+					zipExport.messageFormatType(), messageFilePathsByNamespace.size(), zipExport.tolgeeProjectId());
+			exports.add(new ConcurrentTasks.NamedTask(description, () -> budget.call(zipExport.apiUri(), () -> {
+				log.trace("Downloading {} translations of {} namespaces for project ID {}.",
+						zipExport.messageFormatType(), messageFilePathsByNamespace.size(), zipExport.tolgeeProjectId());
+
+				SetMultimap<String, Locale> receivedLocales = HashMultimap.create();
+				tolgeeRestClient.exportZip(zipExport.apiUri(),
 						configService.getTolgeeApiKey(),
-						project.tolgeeProjectId(),
-						tolgeeProjectLanguage.locale(),
-						project.namespace(),
-						targetProjectFile.targetMessageFormatType(),
-						messageFilePath);
+						zipExport.tolgeeProjectId(),
+						locales,
+						messageFilePathsByNamespace.keySet(),
+						zipExport.messageFormatType(),
+						(namespace, locale, content) -> {
+							List<Path> messageFilePaths = messageFilePathsByNamespace.get(namespace).get(locale);
+							// Every language is exported for every namespace, also when a namespace doesn't need it.
+							if (!messageFilePaths.isEmpty()) {
+								receivedLocales.put(namespace, locale);
+								writeMessageFiles(content, messageFilePaths, options, writeCounts);
+							}
+						});
+
+				messageFilePathsByNamespace.forEach((namespace, messageFilePaths) -> {
+					for (Locale locale : messageFilePaths.keySet()) {
+						if (!receivedLocales.containsEntry(namespace, locale)) {
+							log.warn("{} export of project ID {} did not contain language '{}' of namespace '{}'.",
+									zipExport.messageFormatType(), zipExport.tolgeeProjectId(), locale.toLanguageTag(), namespace);
+						}
+					}
+				});
+				return null;
+			})));
+		});
+
+		return exports;
+	}
+
+	/**
+	 * Writes the content to the first message file and copies (or links) that file to the other message files
+	 * (multiple targets with the same format).
+	 */
+	private static void writeMessageFiles(InputStream content,
+										  List<Path> messageFilePaths,
+										  PullOptions options,
+										  WriteCounts writeCounts) throws IOException {
+		Path firstMessageFilePath = messageFilePaths.getFirst();
+		log.trace("Writing translations to: '{}'.", firstMessageFilePath);
+		writeCounts.count(firstMessageFilePath,
+				AtomicFileWriter.write(firstMessageFilePath, content, options.write().fsync()));
+
+		copyMessageFile(firstMessageFilePath, messageFilePaths.subList(1, messageFilePaths.size()), options, writeCounts);
+	}
+
+	/**
+	 * Converts the content to the first message file of every message format, in a single pass over the content, and
+	 * copies (or links) those files to the other message files of the format.
+	 */
+	private static void convertMessageFiles(InputStream content,
+											Map<ExportMessageFormatType, List<Path>> messageFilePathsByFormat,
+											PullOptions options,
+											WriteCounts writeCounts) throws IOException {
+		Map<Path, AtomicFileWriter> fileWriters = new LinkedHashMap<>();
+		try {
+			List<MessageWriter> messageWriters = new ArrayList<>();
+			for (Map.Entry<ExportMessageFormatType, List<Path>> entry : messageFilePathsByFormat.entrySet()) {
+				Path messageFilePath = entry.getValue().getFirst();
+				log.trace("Writing translations to: '{}'.", messageFilePath);
+
+				AtomicFileWriter fileWriter = AtomicFileWriter.open(messageFilePath, options.write().fsync());
+				fileWriters.put(messageFilePath, fileWriter);
+				messageWriters.add(MessageConverter.writer(entry.getKey(), fileWriter.outputStream()));
+			}
+
+			MessageConverter.convert(content, messageWriters);
+
+			for (List<Path> messageFilePaths : messageFilePathsByFormat.values()) {
+				Path firstMessageFilePath = messageFilePaths.getFirst();
+				writeCounts.count(firstMessageFilePath, fileWriters.get(firstMessageFilePath).commit());
+				copyMessageFile(firstMessageFilePath, messageFilePaths.subList(1, messageFilePaths.size()), options, writeCounts);
+			}
+		} finally {
+			for (AtomicFileWriter fileWriter : fileWriters.values()) {
+				fileWriter.close();
 			}
 		}
 	}
 
+	/**
+	 * Message files which already have the same content are left untouched.
+	 */
+	private static void copyMessageFile(Path source,
+										List<Path> messageFilePaths,
+										PullOptions options,
+										WriteCounts writeCounts) throws IOException {
+		for (Path messageFilePath : messageFilePaths) {
+			log.trace("Writing translations to: '{}'.", messageFilePath);
+			writeCounts.count(messageFilePath, options.write().hardLinks()
+					? AtomicFileWriter.link(source, messageFilePath, options.write().fsync())
+					: AtomicFileWriter.copy(source, messageFilePath, options.write().fsync()));
+		}
+	}
+
 	private static Path createMessageFilePath(Project project, TolgeeProjectLanguage tolgeeProjectLanguage, ProjectFile targetProjectFile) {
-		StringBuilder targetFile = new StringBuilder(targetProjectFile.files().projectFileDefinition());
-		for (LocalePlaceholder localePlaceholder : targetProjectFile.files().localePlaceholders()) {
-			String localeString = localePlaceholder.convertToString(tolgeeProjectLanguage.locale());
+		return project.projectPath().resolve(targetProjectFile.files().template().render(tolgeeProjectLanguage.locale()));
+	}
 
-			for (int index; (index = targetFile.indexOf(localePlaceholder.placeholder())) != -1; ) {
-				targetFile.replace(index, index + localePlaceholder.placeholder().length(), localeString);
-			}
+	/**
+	 * Number of message files per project which were replaced, or left untouched because their content did not
+	 * change. Updated concurrently by the export tasks.
+	 */
+	private static final class WriteCounts {
+
+		private record Counts(AtomicInteger changed, AtomicInteger unchanged) {}
+
+		private final Map<Project, Counts> countsByProject = new LinkedHashMap<>();
+
+		private final Map<Path, Counts> countsByMessageFilePath = new HashMap<>();
+
+		/**
+		 * Only the message files of the plan can be counted; the maps are not modified afterwards.
+		 */
+		private WriteCounts(ExportPlan exportPlan) {
+			exportPlan.projects().forEach((messageFilePath, project) -> countsByMessageFilePath.put(messageFilePath,
+					countsByProject.computeIfAbsent(project, p -> new Counts(new AtomicInteger(), new AtomicInteger()))));
+		}
+
+		private void count(Path messageFilePath, boolean messageFileChanged) {
+			Counts counts = countsByMessageFilePath.get(messageFilePath);
+			(messageFileChanged ? counts.changed() : counts.unchanged()).incrementAndGet();
+		}
+
+		private void log() {
+			countsByProject.forEach((project, counts) ->
+					log.info("Pulled project with ID {} in '{}': {} message files changed, {} unchanged.",
+							project.tolgeeProjectId(), project.projectPath(), counts.changed().get(),
+							counts.unchanged().get()));
 		}
-		return project.projectPath().resolve(targetFile.toString());
 	}
 }
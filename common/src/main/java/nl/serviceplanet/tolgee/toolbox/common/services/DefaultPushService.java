@@ -16,22 +16,41 @@
 package nl.serviceplanet.tolgee.toolbox.common.services;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimaps;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ConfigService;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.discovery.DirectoryIndexes;
 import nl.serviceplanet.tolgee.toolbox.common.model.MessageFile;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportFile;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeImportLanguage;
 import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectSnapshot;
 import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeRestClient;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencyBudget;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencySettings;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.PushOptions;
 import nl.serviceplanet.tolgee.toolbox.common.services.api.PushService;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.TasksFailedException;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.TasksFailedException.TaskFailure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Singleton
 public final class DefaultPushService extends AbstractService implements PushService {
@@ -42,133 +61,353 @@ public final class DefaultPushService extends AbstractService implements PushSer
 
 	private final TolgeeRestClient tolgeeRestClient;
 
+	private final TolgeeProjectSnapshots tolgeeProjectSnapshots;
+
 	@Inject
-	public DefaultPushService(ConfigService configService, TolgeeRestClient tolgeeRestClient) {
+	public DefaultPushService(ConfigService configService,
+							  TolgeeRestClient tolgeeRestClient,
+							  DirectoryIndexes directoryIndexes,
+							  TolgeeProjectSnapshots tolgeeProjectSnapshots) {
+		super(directoryIndexes);
 		this.configService = configService;
 		this.tolgeeRestClient = tolgeeRestClient;
+		this.tolgeeProjectSnapshots = tolgeeProjectSnapshots;
 	}
 
 	@Override
-	public void pushMessages(Project project) throws IOException {
-		ImmutableSet<TolgeeProjectLanguage> tolgeeProjectLanguages = tolgeeRestClient.projectLanguages(
-				project.tolgeeApiURI(),
-				configService.getTolgeeApiKey(),
-				project.tolgeeProjectId());
-
+	public void pushMessages(Project project, PushOptions options) throws IOException {
 		if (project.missingNamespaceFail() && Strings.isNullOrEmpty(project.namespace())) {
 			throw new IllegalStateException(
 					String.format("Project with ID %s is missing namespace definition '%s' while namespace is configured as mandatory.",
 							project.tolgeeProjectId(), project.namespace()));
 		}
 
-		ImmutableSet<MessageFile> messageFiles = findSourceMessageFiles(project.projectPath(), project.projectSources());
+		// No push state is kept: the message files are only staged in the Tolgee importer, so they are not pushed
+		// until the import is applied in Tolgee.
+		ImmutableSet<MessageFile> messageFiles = ImmutableSet.copyOf(findSourceMessageFiles(project).values());
 		if (messageFiles.isEmpty()) {
 			throw new IllegalStateException("Source MessageFiles not found in: " + project.projectPath());
 		}
 
+		TolgeeProjectSnapshot snapshot = options.concurrency().budget().call(project.tolgeeApiURI(),
+				() -> tolgeeProjectSnapshots.get(project));
+
+		if (options.batch().enabled()) {
+			pushMessagesInBatches(project, options, messageFiles, snapshot);
+			return;
+		}
+
+		// Every message file is uploaded and configured (namespace and language) independently of the other
+		// message files.
+		List<ConcurrentTasks.NamedTask> uploads = new ArrayList<>(messageFiles.size());
 		for (MessageFile messageFile : messageFiles) {
-			// We prefix the filename with a UUID, so we can later find the "importFileID" of the file we just
-			// uploaded.
+			uploads.add(new ConcurrentTasks.NamedTask(messageFile.path().toString(), () -> {
+				// We prefix the filename with a UUID, so we can later find the "importFileID" of the file we just
+				// uploaded.
+				String generatedFileName = UUID.randomUUID() + "_" + messageFile.path().getFileName();
+
+				ImmutableListMultimap<String, TolgeeImportLanguage> importLanguages = indexByFilename(
+						tolgeeRestClient.importAddFile(
+								project.tolgeeApiURI(),
+								configService.getTolgeeApiKey(),
+								project.tolgeeProjectId(),
+								messageFile.path(),
+								generatedFileName));
+
+				if (!Strings.isNullOrEmpty(project.namespace())) {
+					configureNamespace(project, messageFile.path(), importLanguages.get(generatedFileName));
+				}
+
+				configureLanguage(project, messageFile, importLanguages.get(generatedFileName), snapshot);
+			}));
+		}
+
+		runUploads(project, options, uploads);
+	}
+
+	/**
+	 * Uploads the message files in as few requests as possible. The response of an upload lists the import languages
+	 * of all uploaded message files, after which every message file is configured independently of the others.
+	 */
+	private void pushMessagesInBatches(Project project,
+									   PushOptions options,
+									   ImmutableSet<MessageFile> messageFiles,
+									   TolgeeProjectSnapshot snapshot) throws IOException {
+		List<TolgeeImportFile> importFiles = new ArrayList<>(messageFiles.size());
+		for (MessageFile messageFile : messageFiles) {
+			// We prefix the filename with a UUID, so we can find the "importFileID" of every file in the batch.
 			String generatedFileName = UUID.randomUUID() + "_" + messageFile.path().getFileName();
+			importFiles.add(new TolgeeImportFile(messageFile.path(), generatedFileName,
+					messageFile.locale(), messageFile.messageFormatType()));
+		}
 
-			ImmutableSet<TolgeeImportLanguage> importLanguages = tolgeeRestClient.importAddFile(
-					project.tolgeeApiURI(),
-					configService.getTolgeeApiKey(),
-					project.tolgeeProjectId(),
-					messageFile.path(),
-					generatedFileName);
+		List<ConcurrentTasks.NamedTask> configurations = new ArrayList<>(importFiles.size());
+		long maxBatchBytes = options.batch().maxBytes();
+		for (List<TolgeeImportFile> batch : toBatches(importFiles, TolgeeImportFile::messageFile, maxBatchBytes)) {
+			// Indexed once per batch, instead of searching all import languages of the batch for every message file.
+			ImmutableListMultimap<String, TolgeeImportLanguage> importLanguages = indexByFilename(
+					options.concurrency().budget().call(project.tolgeeApiURI(),
+							() -> tolgeeRestClient.importAddFiles(
+									project.tolgeeApiURI(),
+									configService.getTolgeeApiKey(),
+									project.tolgeeProjectId(),
+									batch)));
 
-			if (!Strings.isNullOrEmpty(project.namespace())) {
-				configureNamespace(project, messageFile.path(), importLanguages, generatedFileName);
-			}
+			for (TolgeeImportFile importFile : batch) {
+				MessageFile messageFile = new MessageFile(importFile.messageFile(), importFile.locale(), importFile.formatType());
+				List<TolgeeImportLanguage> fileImportLanguages = importLanguages.get(importFile.tolgeeMessageFileName());
 
-			configureLanguage(project, messageFile, importLanguages, generatedFileName, tolgeeProjectLanguages);
+				configurations.add(new ConcurrentTasks.NamedTask(messageFile.path().toString(), () -> {
+					if (!Strings.isNullOrEmpty(project.namespace())) {
+						configureNamespace(project, messageFile.path(), fileImportLanguages);
+					}
+
+					configureLanguage(project, messageFile, fileImportLanguages, snapshot);
+				}));
+			}
 		}
+
+		runUploads(project, options, configurations);
 	}
 
 	@Override
-	public void pushMessagesInSingleStep(Project project) throws IOException {
-		ImmutableSet<MessageFile> messageFiles = findSourceMessageFiles(project.projectPath(), project.projectSources());
-		if (messageFiles.isEmpty()) {
+	public void pushMessagesInSingleStep(Project project, PushOptions options) throws IOException {
+		ImmutableSet<MessageFile> allMessageFiles = ImmutableSet.copyOf(findSourceMessageFiles(project).values());
+		if (allMessageFiles.isEmpty()) {
 			throw new IllegalStateException("Source MessageFiles not found in: " + project.projectPath());
 		}
 
+		if (project.missingNamespaceFail() && Strings.isNullOrEmpty(project.namespace())) {
+			throw new IllegalStateException(
+					String.format("Project with ID %s is missing namespace definition '%s' while namespace is configured as mandatory.",
+							project.tolgeeProjectId(), project.namespace()));
+		}
+
+		PushState pushState = PushState.load(options.state().directory(), project, options.state().force());
+		ImmutableSet<MessageFile> messageFiles = pushState.changed(allMessageFiles);
+		if (messageFiles.isEmpty()) {
+			log.info("Message files of project with ID {} in '{}' did not change since the last push.",
+					project.tolgeeProjectId(), project.projectPath());
+			return;
+		}
+
+		List<ConcurrentTasks.NamedTask> uploads = new ArrayList<>(messageFiles.size());
 		for (MessageFile messageFile : messageFiles) {
+			uploads.add(new ConcurrentTasks.NamedTask(messageFile.path().toString(), () -> {
+				// We prefix the filename with a UUID, so we can later find the "importFileID" of the file we just
+				// uploaded. In the case of [single-step-import] - opposed to [import] - this doesn't seem to lead
+				// to traceability in the UI but would be traceable in the tolgee-service database / log-files.
+				String generatedFileName = UUID.randomUUID() + "_" + messageFile.path().getFileName();
+
+				tolgeeRestClient.singleStepImport(
+						project.tolgeeApiURI(),
+						configService.getTolgeeApiKey(),
+						project.tolgeeProjectId(),
+						messageFile.path(),
+						generatedFileName,
+						project.namespace(),
+						messageFile.locale(),
+						messageFile.messageFormatType());
+				pushState.pushed(messageFile);
+			}));
+		}
+
+		runUploads(project, options, uploads, pushState);
+	}
+
+	@Override
+	public void pushMessagesInSingleStep(Collection<Project> projects, PushOptions options) throws IOException {
+		// Message files can only share a request when they go to the same Tolgee project and namespace. Converting
+		// placeholders to ICU is configured per request, so ICU and non-ICU message files are never combined.
+		Map<ImportTarget, List<PendingImport>> pendingImportsByTarget = new LinkedHashMap<>();
+		List<PushState> pushStates = new ArrayList<>(projects.size());
+		for (Project project : projects) {
+			ImmutableSet<MessageFile> allMessageFiles = ImmutableSet.copyOf(findSourceMessageFiles(project).values());
+			if (allMessageFiles.isEmpty()) {
+				throw new IllegalStateException("Source MessageFiles not found in: " + project.projectPath());
+			}
+
 			if (project.missingNamespaceFail() && Strings.isNullOrEmpty(project.namespace())) {
 				throw new IllegalStateException(
 						String.format("Project with ID %s is missing namespace definition '%s' while namespace is configured as mandatory.",
 								project.tolgeeProjectId(), project.namespace()));
 			}
 
-			// We prefix the filename with a UUID, so we can later find the "importFileID" of the file we just
-			// uploaded. In the case of [single-step-import] - opposed to [import] - this doesn't seem to lead
-			// to traceability in the UI but would be traceable in the tolgee-service database / log-files.
-			String generatedFileName = UUID.randomUUID() + "_" + messageFile.path().getFileName();
+			PushState pushState = PushState.load(options.state().directory(), project, options.state().force());
+			pushStates.add(pushState);
 
-			tolgeeRestClient.singleStepImport(
-					project.tolgeeApiURI(),
-					configService.getTolgeeApiKey(),
-					project.tolgeeProjectId(),
-					messageFile.path(),
-					generatedFileName,
-					project.namespace(),
-					messageFile.locale(),
-					messageFile.messageFormatType());
+			for (MessageFile messageFile : pushState.changed(allMessageFiles)) {
+				ImportTarget importTarget = new ImportTarget(project.tolgeeApiURI(), project.tolgeeProjectId(),
+						project.namespace(), messageFile.messageFormatType().isIcu());
+
+				// Prefixed with a UUID since message files of different projects often have the same name.
+				String generatedFileName = UUID.randomUUID() + "_" + messageFile.path().getFileName();
+
+				TolgeeImportFile importFile = new TolgeeImportFile(messageFile.path(), generatedFileName,
+						messageFile.locale(), messageFile.messageFormatType());
+				pendingImportsByTarget.computeIfAbsent(importTarget, key -> new ArrayList<>())
+						.add(new PendingImport(importFile, messageFile, pushState));
+			}
+		}
+
+		ConcurrencyBudget budget = options.concurrency().budget();
+		List<ConcurrentTasks.NamedTask> uploads = new ArrayList<>();
+		for (Map.Entry<ImportTarget, List<PendingImport>> entry : pendingImportsByTarget.entrySet()) {
+			ImportTarget importTarget = entry.getKey();
+
+			for (List<PendingImport> batch : toBatches(entry.getValue(), PendingImport::path, options.batch().maxBytes())) {
+				String description = String.format("batch of %s message files starting with '%s' for project with ID %s",
+						batch.size(), batch.getFirst().path(), importTarget.tolgeeProjectId());
+
+				List<TolgeeImportFile> importFiles = batch.stream()
+						.map(PendingImport::importFile)
+						.toList();
+
+				uploads.add(new ConcurrentTasks.NamedTask(description, () -> budget.call(importTarget.apiUri(),
+						() -> {
+							tolgeeRestClient.singleStepImport(
+									importTarget.apiUri(),
+									configService.getTolgeeApiKey(),
+									importTarget.tolgeeProjectId(),
+									importFiles,
+									importTarget.namespace());
+
+							for (PendingImport pendingImport : batch) {
+								pendingImport.pushState().pushed(pendingImport.messageFile());
+							}
+							return null;
+						})));
+			}
+		}
+
+		log.debug("Uploading changed message files of {} projects in {} batches.", projects.size(), uploads.size());
+
+		ImmutableList<TaskFailure> failures;
+		try {
+			failures = ConcurrentTasks.run(options.concurrency().maxConcurrent(), uploads);
+		} finally {
+			for (PushState pushState : pushStates) {
+				pushState.save();
+			}
+		}
+		if (!failures.isEmpty()) {
+			throw new TasksFailedException(String.format("%s of %s batches failed to upload.",
+					failures.size(), uploads.size()), failures);
 		}
 	}
 
-	private void configureLanguage(Project project,
-								   MessageFile messageFile,
-								   ImmutableSet<TolgeeImportLanguage> importLanguages,
-								   String generatedFileName,
-								   ImmutableSet<TolgeeProjectLanguage> tolgeeProjectLanguages) throws IOException {
-		for (TolgeeImportLanguage importLanguage : importLanguages) {
-			if (importLanguage.importFilename().equals(generatedFileName)) {
-				long tolgeeLanguageId = -1;
-				for (TolgeeProjectLanguage tolgeeProjectLanguage : tolgeeProjectLanguages) {
-					if (tolgeeProjectLanguage.locale().equals(messageFile.locale())) {
-						tolgeeLanguageId = tolgeeProjectLanguage.tolgeeId();
-						break;
-					}
-				}
-				if (tolgeeLanguageId == -1) {
-					throw new IllegalStateException(String.format(
-							"Could not find Tolgee language ID for locale '%s'.", messageFile.locale()));
-				}
+	/**
+	 * The Tolgee project, and its namespace, a batch of message files is imported into.
+	 */
+	private record ImportTarget(URI apiUri, long tolgeeProjectId, String namespace, boolean icu) {}
 
-				tolgeeRestClient.importSelectLanguage(project.tolgeeApiURI(),
-						configService.getTolgeeApiKey(),
-						project.tolgeeProjectId(),
-						importLanguage.id(),
-						tolgeeLanguageId
-				);
+	/**
+	 * A message file waiting to be uploaded in a batch.
+	 */
+	private record PendingImport(TolgeeImportFile importFile, MessageFile messageFile, PushState pushState) {
+
+		Path path() {
+			return messageFile.path();
+		}
+	}
+
+	/**
+	 * Splits the files, in order, into batches which are at most {@code maxBatchBytes} large.
+	 */
+	private static <T> List<List<T>> toBatches(List<T> files,
+											   Function<T, Path> pathFunction,
+											   long maxBatchBytes) throws IOException {
+		List<List<T>> batches = new ArrayList<>();
+
+		List<T> batch = new ArrayList<>();
+		long batchBytes = 0;
+		for (T file : files) {
+			long fileBytes = Files.size(pathFunction.apply(file));
+			if (!batch.isEmpty() && batchBytes + fileBytes > maxBatchBytes) {
+				batches.add(batch);
+				batch = new ArrayList<>();
+				batchBytes = 0;
 			}
+
+			batch.add(file);
+			batchBytes += fileBytes;
+		}
+		if (!batch.isEmpty()) {
+			batches.add(batch);
 		}
+
+		return batches;
 	}
 
-	private void configureNamespace(Project project,
-									Path messageFile,
-									ImmutableSet<TolgeeImportLanguage> importLanguages,
-									String generatedFileName) throws IOException {
-		boolean namespaceConfigured = false;
+	/**
+	 * Runs the uploads and afterwards saves which message files were pushed successfully.
+	 */
+	private void runUploads(Project project,
+							PushOptions options,
+							List<ConcurrentTasks.NamedTask> uploads,
+							PushState pushState) throws IOException {
+		try {
+			runUploads(project, options, uploads);
+		} finally {
+			pushState.save();
+		}
+	}
+
+	private void runUploads(Project project,
+							PushOptions options,
+							List<ConcurrentTasks.NamedTask> uploads) throws IOException {
+		ConcurrencySettings concurrency = options.concurrency();
+		ImmutableList<TaskFailure> failures =
+				ConcurrentTasks.run(concurrency.maxConcurrent(), concurrency.budget(), project.tolgeeApiURI(), uploads);
+		if (!failures.isEmpty()) {
+			throw new TasksFailedException(String.format("%s of %s message files failed to upload for project with ID %s in '%s'.",
+					failures.size(), uploads.size(), project.tolgeeProjectId(), project.projectPath()), failures);
+		}
+	}
+
+	private static ImmutableListMultimap<String, TolgeeImportLanguage> indexByFilename(
+			ImmutableSet<TolgeeImportLanguage> importLanguages) {
+		return Multimaps.index(importLanguages, TolgeeImportLanguage::importFilename);
+	}
 
+	/**
+	 * @param importLanguages The import languages of the uploaded message file.
+	 */
+	private void configureLanguage(Project project,
+								   MessageFile messageFile,
+								   List<TolgeeImportLanguage> importLanguages,
+								   TolgeeProjectSnapshot snapshot) throws IOException {
 		for (TolgeeImportLanguage importLanguage : importLanguages) {
-			if (importLanguage.importFilename().equals(generatedFileName)) {
-				tolgeeRestClient.importSelectNamespace(project.tolgeeApiURI(),
-						configService.getTolgeeApiKey(),
-						project.tolgeeProjectId(),
-						importLanguage.importFileId(),
-						project.namespace()
-				);
+			long tolgeeLanguageId = snapshot.language(messageFile.locale())
+					.map(TolgeeProjectLanguage::tolgeeId)
+					.orElseThrow(() -> new IllegalStateException(String.format(
+							"Could not find Tolgee language ID for locale '%s'.", messageFile.locale())));
 
-				namespaceConfigured = true;
-				break;
-			}
+			tolgeeRestClient.importSelectLanguage(project.tolgeeApiURI(),
+					configService.getTolgeeApiKey(),
+					project.tolgeeProjectId(),
+					importLanguage.id(),
+					tolgeeLanguageId
+			);
 		}
+	}
 
-		if (!namespaceConfigured) {
+	/**
+	 * @param importLanguages The import languages of the uploaded message file.
+	 */
+	private void configureNamespace(Project project,
+									Path messageFile,
+									List<TolgeeImportLanguage> importLanguages) throws IOException {
+		if (importLanguages.isEmpty()) {
 			throw new IllegalStateException(String.format(
 					"Unable to set namespace on Tolgee import for message file '%s'", messageFile));
 		}
+
+		tolgeeRestClient.importSelectNamespace(project.tolgeeApiURI(),
+				configService.getTolgeeApiKey(),
+				project.tolgeeProjectId(),
+				importLanguages.getFirst().importFileId(),
+				project.namespace()
+		);
 	}
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.SetMultimap;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.convert.MessageConverter;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The exports needed to pull a set of projects, and the message files every export is written to. Targets which need
+ * the same language and namespace of a Tolgee project in the same message format share a single export, also when
+ * they belong to different projects.
+ */
+final class ExportPlan {
+
+	/**
+	 * A single language of a Tolgee project in a message format. The namespace is empty for messages without a
+	 * namespace.
+	 */
+	record Export(URI apiUri,
+				  long tolgeeProjectId,
+				  Locale locale,
+				  String namespace,
+				  ExportMessageFormatType messageFormatType) {}
+
+	/**
+	 * Multiple languages of a Tolgee project in a message format, retrieved with a single zipped export.
+	 */
+	record ZipExport(URI apiUri,
+					 long tolgeeProjectId,
+					 String namespace,
+					 ExportMessageFormatType messageFormatType) {}
+
+	/**
+	 * Multiple namespaces and languages of a Tolgee project in a message format, retrieved with a single zipped export.
+	 */
+	record MultiNamespaceZipExport(URI apiUri,
+								   long tolgeeProjectId,
+								   ExportMessageFormatType messageFormatType) {}
+
+	/**
+	 * A single language of a Tolgee project which is exported once, and converted locally to multiple message formats.
+	 */
+	record ConvertedExport(URI apiUri,
+						   long tolgeeProjectId,
+						   Locale locale,
+						   String namespace) {
+
+		static ConvertedExport of(Export export) {
+			return new ConvertedExport(export.apiUri(), export.tolgeeProjectId(), export.locale(), export.namespace());
+		}
+	}
+
+	/**
+	 * A message file which is rendered by multiple targets is only written once.
+	 */
+	private final SetMultimap<Export, Path> messageFilePaths = MultimapBuilder.linkedHashKeys().linkedHashSetValues().build();
+
+	/**
+	 * The export every message file is written with, to detect message files which would be written by multiple exports.
+	 */
+	private final Map<Path, Export> exportByMessageFilePath = new HashMap<>();
+
+	/**
+	 * The project every message file belongs to. The first project which added it, when multiple projects render the
+	 * same message file.
+	 */
+	private final Map<Path, Project> projectByMessageFilePath = new LinkedHashMap<>();
+
+	/**
+	 * Adds a message file of the project which is written with the export of the language in the message format.
+	 *
+	 * @throws IllegalStateException If the message file is already written with another export. For example when two
+	 * languages render to the same file name.
+	 */
+	void add(Project project, Locale locale, ExportMessageFormatType messageFormatType, Path messageFilePath) {
+		Export export = new Export(project.tolgeeApiURI(), project.tolgeeProjectId(), locale,
+				Strings.nullToEmpty(project.namespace()), messageFormatType);
+		Export existingExport = exportByMessageFilePath.putIfAbsent(messageFilePath, export);
+		if (existingExport != null && !existingExport.equals(export)) {
+			throw new IllegalStateException(String.format("Message file '%s' would be written with both language '%s' " +
+					"(namespace '%s', format %s) and language '%s' (namespace '%s', format %s) of Tolgee project %d.",
+					messageFilePath, existingExport.locale().toLanguageTag(), existingExport.namespace(),
+					existingExport.messageFormatType(), locale.toLanguageTag(), export.namespace(), messageFormatType,
+					project.tolgeeProjectId()));
+		}
+		messageFilePaths.put(export, messageFilePath);
+		projectByMessageFilePath.putIfAbsent(messageFilePath, project);
+	}
+
+	int messageFileCount() {
+		return messageFilePaths.size();
+	}
+
+	/**
+	 * @return The project of every message file, in the order in which they were added.
+	 */
+	Map<Path, Project> projects() {
+		return Collections.unmodifiableMap(projectByMessageFilePath);
+	}
+
+	/**
+	 * @return The message files per export, in the order in which they were added.
+	 */
+	Map<Export, List<Path>> exports() {
+		Map<Export, List<Path>> exports = new LinkedHashMap<>();
+		messageFilePaths.asMap().forEach((export, paths) -> exports.put(export, new ArrayList<>(paths)));
+		return exports;
+	}
+
+	/**
+	 * @return The message files per language of every zipped export. A zipped export contains all languages of a
+	 * Tolgee project and namespace which are needed in a message format.
+	 */
+	Map<ZipExport, ListMultimap<Locale, Path>> zipExports() {
+		Map<ZipExport, ListMultimap<Locale, Path>> zipExports = new LinkedHashMap<>();
+		messageFilePaths.asMap().forEach((export, paths) -> {
+			ZipExport zipExport = new ZipExport(export.apiUri(), export.tolgeeProjectId(), export.namespace(),
+					export.messageFormatType());
+			zipExports.computeIfAbsent(zipExport, key -> MultimapBuilder.linkedHashKeys().arrayListValues().build())
+					.putAll(export.locale(), paths);
+		});
+		return zipExports;
+	}
+
+	/**
+	 * @return The message files per namespace and language of every zipped export of multiple namespaces. Such an
+	 * export contains all namespaces and languages of a Tolgee project which are needed in a message format.
+	 */
+	Map<MultiNamespaceZipExport, Map<String, ListMultimap<Locale, Path>>> multiNamespaceZipExports() {
+		Map<MultiNamespaceZipExport, Map<String, ListMultimap<Locale, Path>>> zipExports = new LinkedHashMap<>();
+		messageFilePaths.asMap().forEach((export, paths) -> {
+			MultiNamespaceZipExport zipExport = new MultiNamespaceZipExport(export.apiUri(), export.tolgeeProjectId(),
+					export.messageFormatType());
+			zipExports.computeIfAbsent(zipExport, key -> new LinkedHashMap<>())
+					.computeIfAbsent(export.namespace(), key -> MultimapBuilder.linkedHashKeys().arrayListValues().build())
+					.putAll(export.locale(), paths);
+		});
+		return zipExports;
+	}
+
+	/**
+	 * @return The message files per message format of every language which is needed in multiple message formats that
+	 * can be converted locally. Exports of languages which are only needed in a single format are not included.
+	 */
+	Map<ConvertedExport, Map<ExportMessageFormatType, List<Path>>> convertedExports() {
+		Map<ConvertedExport, Map<ExportMessageFormatType, List<Path>>> convertedExports = new LinkedHashMap<>();
+		messageFilePaths.asMap().forEach((export, paths) -> {
+			if (MessageConverter.supports(export.messageFormatType())) {
+				convertedExports.computeIfAbsent(ConvertedExport.of(export), key -> new EnumMap<>(ExportMessageFormatType.class))
+						.put(export.messageFormatType(), new ArrayList<>(paths));
+			}
+		});
+
+		convertedExports.values().removeIf(messageFilePathsByFormat -> messageFilePathsByFormat.size() < 2);
+		return convertedExports;
+	}
+}
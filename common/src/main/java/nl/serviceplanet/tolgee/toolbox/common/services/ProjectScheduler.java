@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services;
+
+import com.google.common.collect.ImmutableList;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.ConcurrencyBudget;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.TasksFailedException;
+import nl.serviceplanet.tolgee.toolbox.common.services.api.TasksFailedException.TaskFailure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Runs an action (for example a push or a pull) for all projects of a run.
+ *
+ * Projects run concurrently, where every project is a pipeline of stages (for example: retrieve the project metadata
+ * and then start the exports). The stages of all projects share the {@link ConcurrencyBudget}
+ * passed to the services, which caps the work in flight globally and per Tolgee host.
+ *
+ * Projects with the most work are started first. Long-running projects then overlap with the many small projects,
+ * instead of being the last ones running.
+ */
+public final class ProjectScheduler {
+
+	private static final Logger log = LoggerFactory.getLogger(ProjectScheduler.class);
+
+	/**
+	 * The action to perform for a single project.
+	 */
+	@FunctionalInterface
+	public interface ProjectAction {
+		void run(Project project) throws Exception;
+	}
+
+	private ProjectScheduler() {
+	}
+
+	/**
+	 * Runs the action for every project and blocks until all projects are done. A project which fails does not stop
+	 * the other projects.
+	 *
+	 * @param maxConcurrentProjects Maximum number of projects which run at the same time.
+	 * @param estimatedWork Estimates the amount of work for a project. Only the relative size matters.
+	 * @throws TasksFailedException If one or more projects failed.
+	 */
+	public static void run(Collection<Project> projects,
+						   int maxConcurrentProjects,
+						   ToLongFunction<Project> estimatedWork,
+						   ProjectAction action) {
+		List<Project> orderedProjects = new ArrayList<>(projects);
+		orderedProjects.sort(Comparator.comparingLong(estimatedWork).reversed());
+
+		List<ConcurrentTasks.NamedTask> projectTasks = new ArrayList<>(orderedProjects.size());
+		for (Project project : orderedProjects) {
+			projectTasks.add(new ConcurrentTasks.NamedTask(describe(project), () -> {
+				log.debug("Starting {}.", describe(project));
+				action.run(project);
+				log.debug("Finished {}.", describe(project));
+			}));
+		}
+
+		ImmutableList<TaskFailure> failures = ConcurrentTasks.run(maxConcurrentProjects, projectTasks);
+		if (!failures.isEmpty()) {
+			throw new TasksFailedException(String.format("%s of %s projects failed.",
+					failures.size(), projectTasks.size()), failures);
+		}
+	}
+
+	private static String describe(Project project) {
+		return String.format("project with ID %s in '%s'", project.tolgeeProjectId(), project.projectPath());
+	}
+}
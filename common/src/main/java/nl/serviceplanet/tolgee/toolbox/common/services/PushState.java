@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.io.AtomicFileWriter;
+import nl.serviceplanet.tolgee.toolbox.common.io.FileHashes;
+import nl.serviceplanet.tolgee.toolbox.common.model.MessageFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which message files of a project were pushed to Tolgee, so a later push can skip message files which
+ * did not change since.
+ *
+ * The state of a project is stored in its own file, named after the project path, Tolgee server, project ID and
+ * namespace. A message file is unchanged when its content hash, Tolgee project ID, namespace, format and locale are
+ * the same as when it was last pushed. When the size and modification time of a message file are also the same its
+ * content is not hashed again, unless it was modified shortly before it was last checked (the modification time may
+ * then not reflect a later modification).
+ */
+final class PushState {
+
+	private static final Logger log = LoggerFactory.getLogger(PushState.class);
+
+	private static final int VERSION = 2;
+
+	/**
+	 * Modification times this close to the start of checking the message files are considered unreliable.
+	 */
+	private static final long RACY_MILLIS = 2000;
+
+	private static final Gson gson = new Gson();
+
+	/**
+	 * The state of a single message file when it was last pushed.
+	 *
+	 * @param path The path of the message file relative to the project path.
+	 * @param sha256 Hash of the content of the message file.
+	 * @param checkStartedMillis When checking the message file, which determined its hash, started.
+	 */
+	private record Entry(String path,
+						 String sha256,
+						 long size,
+						 long lastModifiedMillis,
+						 long checkStartedMillis,
+						 long tolgeeProjectId,
+						 String namespace,
+						 String format,
+						 String locale) {}
+
+	private record StateFile(int version, List<Entry> entries) {}
+
+	private final Project project;
+
+	private final Path stateFile;
+
+	private final Map<String, Entry> pushedEntries;
+
+	/**
+	 * The current state of the message files which were checked by {@link #changed(ImmutableSet)}.
+	 */
+	private final Map<MessageFile, Entry> currentEntries = new ConcurrentHashMap<>();
+
+	private PushState(Project project, Path stateFile, Map<String, Entry> pushedEntries) {
+		this.project = project;
+		this.stateFile = stateFile;
+		this.pushedEntries = new ConcurrentHashMap<>(pushedEntries);
+	}
+
+	/**
+	 * Loads the state of a project.
+	 *
+	 * @param stateDirectory The directory with the state files. When {@code null} no state is kept, meaning every
+	 *                       message file is considered changed.
+	 * @param force Consider every message file changed, but still record the pushed message files.
+	 */
+	static PushState load(Path stateDirectory, Project project, boolean force) throws IOException {
+		if (stateDirectory == null) {
+			return new PushState(project, null, Map.of());
+		}
+
+		Path stateFile = stateDirectory.resolve(stateFileName(project));
+		if (force) {
+			return new PushState(project, stateFile, Map.of());
+		}
+
+		Map<String, Entry> pushedEntries = new HashMap<>();
+		try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+			StateFile state = gson.fromJson(reader, StateFile.class);
+			if (state != null && state.version() == VERSION && state.entries() != null) {
+				for (Entry entry : state.entries()) {
+					pushedEntries.put(entry.path(), entry);
+				}
+			}
+		} catch (NoSuchFileException e) {
+			log.debug("No push state for project with ID {} in '{}' yet.", project.tolgeeProjectId(), project.projectPath());
+		} catch (JsonParseException e) {
+			log.warn("Ignoring unreadable push state '{}'.", stateFile, e);
+		}
+
+		return new PushState(project, stateFile, pushedEntries);
+	}
+
+	/**
+	 * Determines which of the message files changed since they were last pushed. The content of the message files is
+	 * hashed in parallel.
+	 */
+	ImmutableSet<MessageFile> changed(ImmutableSet<MessageFile> messageFiles) {
+		if (stateFile == null) {
+			return messageFiles;
+		}
+
+		long checkStartedMillis = System.currentTimeMillis();
+		try {
+			ImmutableSet<MessageFile> changedMessageFiles = messageFiles.parallelStream()
+					.filter(messageFile -> isChanged(messageFile, checkStartedMillis))
+					.collect(ImmutableSet.toImmutableSet());
+
+			log.debug("{} of {} message files changed for project with ID {} in '{}'.", changedMessageFiles.size(),
+					messageFiles.size(), project.tolgeeProjectId(), project.projectPath());
+
+			return changedMessageFiles;
+		} catch (UncheckedIOException e) {
+			throw new IllegalStateException("Unable to determine which message files changed: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Records a message file, previously checked with {@link #changed(ImmutableSet)}, as pushed.
+	 */
+	void pushed(MessageFile messageFile) {
+		Entry entry = currentEntries.get(messageFile);
+		if (entry != null) {
+			pushedEntries.put(entry.path(), entry);
+		}
+	}
+
+	/**
+	 * Writes the state to disk, if state is kept.
+	 */
+	void save() throws IOException {
+		if (stateFile == null) {
+			return;
+		}
+
+		StateFile state = new StateFile(VERSION, ImmutableList.copyOf(pushedEntries.values()));
+		byte[] json = gson.toJson(state).getBytes(StandardCharsets.UTF_8);
+		AtomicFileWriter.write(stateFile, new ByteArrayInputStream(json), false);
+	}
+
+	private boolean isChanged(MessageFile messageFile, long checkStartedMillis) {
+		try {
+			String relativePath = project.projectPath().relativize(messageFile.path()).toString();
+			long size = Files.size(messageFile.path());
+			long lastModifiedMillis = Files.getLastModifiedTime(messageFile.path()).toMillis();
+
+			Entry pushedEntry = pushedEntries.get(relativePath);
+			String sha256;
+			if (pushedEntry != null && pushedEntry.size() == size && pushedEntry.lastModifiedMillis() == lastModifiedMillis
+					&& lastModifiedMillis < pushedEntry.checkStartedMillis() - RACY_MILLIS) {
+				sha256 = pushedEntry.sha256();
+			} else {
+				// Modified, or modified too shortly before the previous check to rely on the modification time.
+				sha256 = FileHashes.sha256(messageFile.path());
+			}
+
+			Entry currentEntry = new Entry(relativePath,
+					sha256,
+					size,
+					lastModifiedMillis,
+					checkStartedMillis,
+					project.tolgeeProjectId(),
+					project.namespace(),
+					messageFile.messageFormatType().name(),
+					messageFile.locale().toLanguageTag());
+			currentEntries.put(messageFile, currentEntry);
+
+			return pushedEntry == null || !sameContentAndDestination(pushedEntry, currentEntry);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static boolean sameContentAndDestination(Entry pushedEntry, Entry currentEntry) {
+		return pushedEntry.sha256().equals(currentEntry.sha256()) &&
+				pushedEntry.tolgeeProjectId() == currentEntry.tolgeeProjectId() &&
+				Objects.equals(pushedEntry.namespace(), currentEntry.namespace()) &&
+				Objects.equals(pushedEntry.format(), currentEntry.format()) &&
+				Objects.equals(pushedEntry.locale(), currentEntry.locale());
+	}
+
+	private static String stateFileName(Project project) {
+		String projectKey = String.join("\n",
+				project.projectPath().toAbsolutePath().normalize().toString(),
+				String.valueOf(project.tolgeeApiURI()),
+				String.valueOf(project.tolgeeProjectId()),
+				String.valueOf(project.namespace()));
+
+		return Hashing.sha256().hashString(projectKey, StandardCharsets.UTF_8) + ".json";
+	}
+}
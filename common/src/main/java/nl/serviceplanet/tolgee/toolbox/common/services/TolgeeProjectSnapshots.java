@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services;
+
+import com.google.common.collect.ImmutableSet;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ConfigService;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeNamespace;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectLanguage;
+import nl.serviceplanet.tolgee.toolbox.common.model.TolgeeProjectSnapshot;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeRestClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link TolgeeProjectSnapshot}s of the Tolgee projects used during a run. Every Tolgee project gets a single
+ * snapshot, shared by all projects which push to or pull from it.
+ */
+@Singleton
+public final class TolgeeProjectSnapshots {
+
+	private record Key(URI tolgeeApiUri, long tolgeeProjectId) {}
+
+	private final ConfigService configService;
+
+	private final TolgeeRestClient tolgeeRestClient;
+
+	private final ConcurrentMap<Key, TolgeeProjectSnapshot> snapshots = new ConcurrentHashMap<>();
+
+	@Inject
+	public TolgeeProjectSnapshots(ConfigService configService, TolgeeRestClient tolgeeRestClient) {
+		this.configService = configService;
+		this.tolgeeRestClient = tolgeeRestClient;
+	}
+
+	/**
+	 * Retrieves the languages and namespaces of the Tolgee project of the project, unless that already happened.
+	 */
+	public TolgeeProjectSnapshot get(Project project) throws IOException {
+		Key key = new Key(project.tolgeeApiURI(), project.tolgeeProjectId());
+		TolgeeProjectSnapshot snapshot = snapshots.get(key);
+		if (snapshot != null) {
+			return snapshot;
+		}
+
+		// Concurrent callers may both retrieve the snapshot (which the REST client deduplicates), only the first one
+		// is kept.
+		ImmutableSet<TolgeeProjectLanguage> languages = tolgeeRestClient.projectLanguages(
+				project.tolgeeApiURI(), configService.getTolgeeApiKey(), project.tolgeeProjectId());
+		ImmutableSet<TolgeeNamespace> namespaces = tolgeeRestClient.projectNamespaces(
+				project.tolgeeApiURI(), configService.getTolgeeApiKey(), project.tolgeeProjectId());
+		return snapshots.computeIfAbsent(key,
+				k -> TolgeeProjectSnapshot.of(project.tolgeeProjectId(), languages, namespaces));
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services.api;
+
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.TolgeeHosts;
+
+import java.net.URI;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits how much work which talks to Tolgee servers runs at the same time, across all projects of a run. Work is
+ * limited globally and per Tolgee host (scheme, host and port of the {@code tolgee.api.url}).
+ *
+ * Permits are handed out in the order in which they were requested. The permit for the host is acquired before the
+ * global permit.
+ */
+public final class ConcurrencyBudget {
+
+	/**
+	 * Work executed within the budget.
+	 */
+	@FunctionalInterface
+	public interface Work<T, E extends Exception> {
+		T call() throws E;
+	}
+
+	private static final ConcurrencyBudget UNLIMITED = new ConcurrencyBudget();
+
+	private final Semaphore globalPermits;
+
+	private final int maxConcurrentPerHost;
+
+	private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+	private ConcurrencyBudget() {
+		this.globalPermits = null;
+		this.maxConcurrentPerHost = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @param maxConcurrent The maximum amount of work which runs at the same time.
+	 * @param maxConcurrentPerHost The maximum amount of work for a single Tolgee host which runs at the same time.
+	 */
+	public ConcurrencyBudget(int maxConcurrent, int maxConcurrentPerHost) {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException("'maxConcurrent' must be at least 1.");
+		}
+		if (maxConcurrentPerHost < 1) {
+			throw new IllegalArgumentException("'maxConcurrentPerHost' must be at least 1.");
+		}
+
+		this.globalPermits = new Semaphore(maxConcurrent, true);
+		this.maxConcurrentPerHost = maxConcurrentPerHost;
+	}
+
+	/**
+	 * Returns a budget which does not limit anything.
+	 */
+	public static ConcurrencyBudget unlimited() {
+		return UNLIMITED;
+	}
+
+	/**
+	 * Executes the work for the specified Tolgee API as soon as the budget allows it. Blocks the caller thread until
+	 * the work is done.
+	 */
+	public <T, E extends Exception> T call(URI apiUri, Work<T, E> work) throws E {
+		if (globalPermits == null) {
+			return work.call();
+		}
+
+		Semaphore hostSemaphore = null;
+		if (maxConcurrentPerHost != Integer.MAX_VALUE) {
+			hostSemaphore = hostPermits.computeIfAbsent(TolgeeHosts.hostKey(apiUri),
+					hostKey -> new Semaphore(maxConcurrentPerHost, true));
+		}
+
+		// The host permit is taken first, so work waiting for a busy host doesn't hold a global permit which work for
+		// other hosts could use.
+		if (hostSemaphore != null) {
+			acquire(hostSemaphore);
+		}
+		try {
+			acquire(globalPermits);
+			try {
+				return work.call();
+			} finally {
+				globalPermits.release();
+			}
+		} finally {
+			if (hostSemaphore != null) {
+				hostSemaphore.release();
+			}
+		}
+	}
+
+	private static void acquire(Semaphore semaphore) {
+		try {
+			semaphore.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for the concurrency budget.");
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services.api;
+
+/**
+ * Limits how many requests to Tolgee run at the same time.
+ *
+ * @param maxConcurrent The maximum number of exports or uploads which run at the same time for a single project, or
+ *                      for all projects when they are processed together. {@code 1} runs them one after another.
+ * @param budget Limits the work, across all projects of a run, which talks to Tolgee at the same time.
+ */
+public record ConcurrencySettings(int maxConcurrent, ConcurrencyBudget budget) {
+
+	public ConcurrencySettings {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException("'maxConcurrent' must be at least 1.");
+		}
+		if (budget == null) {
+			throw new IllegalArgumentException("'budget' must not be null.");
+		}
+	}
+
+	public static ConcurrencySettings defaults() {
+		return new ConcurrencySettings(1, ConcurrencyBudget.unlimited());
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services.api;
+
+import nl.serviceplanet.tolgee.toolbox.common.convert.MessageConverter;
+
+/**
+ * How the message files are retrieved from Tolgee.
+ */
+public enum ExportMode {
+
+	/**
+	 * One export per language, namespace and message format.
+	 */
+	PER_LANGUAGE,
+
+	/**
+	 * All languages of a namespace and message format with a single zipped export.
+	 */
+	ZIP,
+
+	/**
+	 * All namespaces and languages of a Tolgee project which are needed in a message format with a single zipped
+	 * export, which is split into the message files of every namespace while it is downloaded.
+	 */
+	MULTI_NAMESPACE_ZIP,
+
+	/**
+	 * A language which is needed in multiple message formats is retrieved once and converted to those formats
+	 * locally, for the formats which {@link MessageConverter} supports. Other languages are retrieved
+	 * {@link #PER_LANGUAGE}.
+	 */
+	LOCAL_CONVERSION
+}
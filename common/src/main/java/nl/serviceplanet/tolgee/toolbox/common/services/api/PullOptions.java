@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services.api;
+
+/**
+ * Options which influence how messages are pulled from Tolgee.
+ *
+ * @param exportMode How the message files are retrieved.
+ * @param write How the message files are written.
+ * @param concurrency How many exports are downloaded at the same time.
+ */
+public record PullOptions(ExportMode exportMode, WriteSettings write, ConcurrencySettings concurrency) {
+
+	/**
+	 * @param fsync Flush every written message file to disk before it replaces the existing message file.
+	 * @param hardLinks Create the message files of multiple targets which have the same content as hard links of a
+	 *                  single file instead of copies, where the file system supports it.
+	 */
+	public record WriteSettings(boolean fsync, boolean hardLinks) {
+
+		public static WriteSettings defaults() {
+			return new WriteSettings(false, false);
+		}
+	}
+
+	public PullOptions {
+		if (exportMode == null) {
+			throw new IllegalArgumentException("'exportMode' must not be null.");
+		}
+		if (write == null) {
+			throw new IllegalArgumentException("'write' must not be null.");
+		}
+		if (concurrency == null) {
+			throw new IllegalArgumentException("'concurrency' must not be null.");
+		}
+	}
+
+	public static PullOptions defaults() {
+		return new PullOptions(ExportMode.PER_LANGUAGE, WriteSettings.defaults(), ConcurrencySettings.defaults());
+	}
+}
@@ -18,7 +18,7 @@ package nl.serviceplanet.tolgee.toolbox.common.services.api;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
 
 import java.io.IOException;
-import java.nio.file.Path;
+import java.util.Collection;
 
 public interface PullService {
 
@@ -26,6 +26,26 @@ public interface PullService {
 	 * Pulls all message files of a specified project location from Tolgee. Meaning they are retrieved via the
 	 * "Export" functionality in Tolgee and then written to local files.
 	 */
-	void pullMessages(Project project) throws IOException;
+	default void pullMessages(Project project) throws IOException {
+		pullMessages(project, PullOptions.defaults());
+	}
+
+	/**
+	 * Pulls all message files of a specified project location from Tolgee using the specified options.
+	 *
+	 * Exports which fail do not stop the other exports of the project. Once all exports are finished a
+	 * {@link TasksFailedException} is thrown which lists every failed export.
+	 */
+	void pullMessages(Project project, PullOptions options) throws IOException;
+
+	/**
+	 * Pulls all message files of the specified projects from Tolgee with as few exports as possible. Every distinct
+	 * combination of Tolgee project, language, namespace and message format is exported once, and written to the
+	 * message files of all targets, of all projects, which need it.
+	 *
+	 * Exports which fail do not stop the other exports. Once all exports are finished a {@link TasksFailedException}
+	 * is thrown which lists every failed export.
+	 */
+	void pullMessages(Collection<Project> projects, PullOptions options) throws IOException;
 
 }
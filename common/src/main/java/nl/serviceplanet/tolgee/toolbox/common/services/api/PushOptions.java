@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services.api;
+
+import java.nio.file.Path;
+
+/**
+ * Options which influence how messages are pushed to Tolgee.
+ *
+ * @param concurrency How many message files are uploaded (and configured in the Tolgee importer) at the same time.
+ * @param batch How message files are combined into a single upload.
+ * @param state Which message files are skipped because they did not change since the last push.
+ */
+public record PushOptions(ConcurrencySettings concurrency, BatchSettings batch, StateSettings state) {
+
+	/**
+	 * @param enabled Upload the message files of a project in batches instead of one request per message file. Single
+	 *                step imports always upload in batches.
+	 * @param maxBytes The maximum combined size of the message files uploaded with a single batched request. A message
+	 *                 file which is larger on its own is uploaded in a batch of its own.
+	 */
+	public record BatchSettings(boolean enabled, long maxBytes) {
+
+		public BatchSettings {
+			if (maxBytes < 1) {
+				throw new IllegalArgumentException("'maxBytes' must be at least 1.");
+			}
+		}
+
+		public static BatchSettings defaults() {
+			return new BatchSettings(false, 4 * 1024 * 1024);
+		}
+	}
+
+	/**
+	 * Only used by single-step imports.
+	 *
+	 * @param directory Directory in which is remembered which message files were pushed, so unchanged message files are
+	 *                  skipped by the next push. When {@code null} every message file is always pushed.
+	 * @param force Push all message files, also the ones which did not change since the last push.
+	 */
+	public record StateSettings(Path directory, boolean force) {
+
+		public static StateSettings defaults() {
+			return new StateSettings(null, false);
+		}
+	}
+
+	public PushOptions {
+		if (concurrency == null) {
+			throw new IllegalArgumentException("'concurrency' must not be null.");
+		}
+		if (batch == null) {
+			throw new IllegalArgumentException("'batch' must not be null.");
+		}
+		if (state == null) {
+			throw new IllegalArgumentException("'state' must not be null.");
+		}
+	}
+
+	public static PushOptions defaults() {
+		return new PushOptions(ConcurrencySettings.defaults(), BatchSettings.defaults(), StateSettings.defaults());
+	}
+}
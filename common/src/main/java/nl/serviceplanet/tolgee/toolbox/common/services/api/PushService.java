@@ -18,6 +18,7 @@ package nl.serviceplanet.tolgee.toolbox.common.services.api;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
 
 import java.io.IOException;
+import java.util.Collection;
 
 public interface PushService {
 
@@ -25,12 +26,49 @@ public interface PushService {
 	 * Pushes all message files of a specified project location to Tolgee. Meaning they are processed by the 
 	 * "Import" functionality in Tolgee.
 	 */
-	void pushMessages(Project project) throws IOException;
+	default void pushMessages(Project project) throws IOException {
+		pushMessages(project, PushOptions.defaults());
+	}
+
+	/**
+	 * Pushes all message files of a specified project location to Tolgee using the specified options.
+	 *
+	 * Message files which fail to upload do not stop the other message files of the project. Once all message files
+	 * are processed a {@link TasksFailedException} is thrown which lists every failed message file.
+	 *
+	 * All message files are always pushed: they are only staged in the Tolgee importer, so
+	 * {@link PushOptions#stateDirectory()} is not used.
+	 *
+	 * With {@link PushOptions#batchUploads()} the message files are uploaded in batches. Only configuring the
+	 * uploaded message files in the Tolgee importer then happens per message file.
+	 */
+	void pushMessages(Project project, PushOptions options) throws IOException;
 
 	/**
 	 * Pushes all message files of a specified project location to Tolgee. Meaning they are processed by the
 	 * "Single-Step-Import" functionality in Tolgee, which is not available in the UI.
 	 */
-	void pushMessagesInSingleStep(Project project) throws IOException;
+	default void pushMessagesInSingleStep(Project project) throws IOException {
+		pushMessagesInSingleStep(project, PushOptions.defaults());
+	}
+
+	/**
+	 * Pushes all message files of a specified project location to Tolgee's "Single-Step-Import" using the specified
+	 * options. Failures are reported the same way as {@link #pushMessages(Project, PushOptions)}.
+	 *
+	 * Message files which did not change since they were last pushed are skipped, see
+	 * {@link PushOptions#stateDirectory()}.
+	 */
+	void pushMessagesInSingleStep(Project project, PushOptions options) throws IOException;
+
+	/**
+	 * Pushes all message files of the specified projects to Tolgee's "Single-Step-Import" with as few requests as
+	 * possible. Message files of projects which share the same Tolgee project and namespace are uploaded together in
+	 * batches of at most {@link PushOptions#maxBatchBytes()}.
+	 *
+	 * Batches which fail to upload do not stop the other batches. Once all batches are processed a
+	 * {@link TasksFailedException} is thrown which lists every failed batch.
+	 */
+	void pushMessagesInSingleStep(Collection<Project> projects, PushOptions options) throws IOException;
 	
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services.api;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Indicates one or more tasks, which were executed independently of each other (for example exports of different
+ * message files), failed. Contains all failures instead of only the first one. The causes are also attached as
+ * suppressed exceptions, so their stack traces end up in the logs.
+ */
+public final class TasksFailedException extends RuntimeException {
+
+	/**
+	 * @param task Description of the task which failed. For example the path of the message file.
+	 * @param cause The reason the task failed.
+	 */
+	public record TaskFailure(String task, Throwable cause) {}
+
+	private final ImmutableList<TaskFailure> failures;
+
+	public TasksFailedException(String message, List<TaskFailure> failures) {
+		super(createMessage(message, failures));
+		this.failures = ImmutableList.copyOf(failures);
+
+		for (TaskFailure failure : failures) {
+			addSuppressed(failure.cause());
+		}
+	}
+
+	public ImmutableList<TaskFailure> getFailures() {
+		return failures;
+	}
+
+	private static String createMessage(String message, List<TaskFailure> failures) {
+		StringBuilder fullMessage = new StringBuilder(message);
+		for (TaskFailure failure : failures) {
+			fullMessage.append(System.lineSeparator())
+					.append(" - ")
+					.append(failure.task())
+					.append(": ")
+					.append(failure.cause());
+		}
+
+		return fullMessage.toString();
+	}
+}
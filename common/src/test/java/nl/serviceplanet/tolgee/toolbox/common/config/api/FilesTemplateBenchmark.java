@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.config.api;
+
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching file names against, and rendering file paths from, a {@link FilesTemplate}. Run with:
+ *
+ * <pre>
+ * mvn -f common/pom.xml test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+ * java -cp common/target/test-classes:common/target/classes:$(cat common/target/test.classpath) \
+ *   org.openjdk.jmh.Main FilesTemplateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilesTemplateBenchmark {
+
+	private static final LocalePlaceholder PLACEHOLDER = new LocalePlaceholder(
+			"${locale separator=underscore, region_case=upper}", LocalePlaceholder.Case.Upper, LocalePlaceholder.Separator.Underscore);
+
+	private FilesTemplate template;
+
+	private Locale locale;
+
+	@Setup
+	public void setup() {
+		template = new ProjectFilesDefinition("Messages_" + PLACEHOLDER.placeholder() + ".properties",
+				ImmutableSet.of(PLACEHOLDER)).template();
+		locale = Locale.of("nl", "NL");
+	}
+
+	@Benchmark
+	public Locale matchLocale() {
+		return template.matchLocale("Messages_nl_NL.properties");
+	}
+
+	@Benchmark
+	public boolean rejectFileName() {
+		return template.pattern().matcher("pom.xml").matches();
+	}
+
+	@Benchmark
+	public String render() {
+		return template.render(locale);
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.config.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ProjectIndexTest {
+
+	private static final Path BASE_PATH = Path.of("/repo");
+
+	@Test
+	public void testSelect() {
+		Project root = project("", 1, null);
+		Project moduleA = project("modules/a", 1, "a");
+		Project moduleB = project("modules/b", 2, "b");
+		Project tools = project("tools", 2, "a");
+		ProjectIndex index = new ProjectIndex(BASE_PATH, ImmutableSet.of(root, moduleA, moduleB, tools));
+
+		assertThat(index.select(ProjectFilter.all())).containsExactly(root, moduleA, moduleB, tools).inOrder();
+		assertThat(index.select(ProjectFilter.all().withProjectIds(ImmutableSet.of(2L))))
+				.containsExactly(moduleB, tools).inOrder();
+		assertThat(index.select(ProjectFilter.all().withNamespaces(ImmutableSet.of(""))))
+				.containsExactly(root);
+		assertThat(index.select(ProjectFilter.of(ImmutableList.of(1L, 2L), ImmutableList.of("a"), null)))
+				.containsExactly(moduleA, tools).inOrder();
+		assertThat(index.select(ProjectFilter.all().withPathGlobs(ImmutableList.of("modules/**"))))
+				.containsExactly(moduleA, moduleB).inOrder();
+		assertThat(index.select(ProjectFilter.of(ImmutableList.of(2L), null, ImmutableList.of("modules/*"))))
+				.containsExactly(moduleB);
+		assertThat(index.select(ProjectFilter.all().withProjectIds(ImmutableSet.of(3L)))).isEmpty();
+	}
+
+	private static Project project(String path, long tolgeeProjectId, String namespace) {
+		return new Project(BASE_PATH.resolve(path), URI.create("https://tolgee.example.com"), false, namespace,
+				tolgeeProjectId, ImmutableSet.of(), ImmutableSet.of(), DiscoverySettings.defaults());
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.config.toml;
+
+import nl.serviceplanet.tolgee.toolbox.common.discovery.DirectoryIndexes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests detecting whether the projects cached by {@link ConfigCache} are still up-to-date.
+ */
+public final class ConfigCacheTest {
+
+	private static final String CONFIG = """
+			[tolgee]
+			api.url = "https://127.0.0.1:8080"
+
+			[[projects]]
+			tolgee.id = 1
+
+			[[projects.sources]]
+			files = "Messages.properties"
+			type = "PROPERTIES_JAVA"
+			locale = "nl-NL"
+			""";
+
+	@TempDir
+	private Path tempDirectory;
+
+	private Path basePath;
+
+	private Path moduleA;
+
+	private ConfigCache configCache;
+
+	@BeforeEach
+	public void createProjects() throws Exception {
+		basePath = Files.createDirectories(tempDirectory.resolve("repo"));
+		moduleA = Files.createDirectories(basePath.resolve("module-a"));
+		Files.writeString(moduleA.resolve(TomlConfigService.TOLGEE_TOOLBOX), CONFIG, StandardCharsets.UTF_8);
+		Files.writeString(moduleA.resolve("Messages.properties"), "greeting=Hallo", StandardCharsets.UTF_8);
+
+		configCache = new ConfigCache(tempDirectory.resolve("cache"));
+	}
+
+	@Test
+	public void testUnchanged() throws Exception {
+		loadProjects(true);
+
+		assertThat(configCache.load(basePath)).isPresent();
+	}
+
+	/**
+	 * Tests that writing message files into a project directory, which modifies the directory, doesn't invalidate the
+	 * cache.
+	 */
+	@Test
+	public void testMessageFileWritten() throws Exception {
+		loadProjects(true);
+
+		Files.writeString(moduleA.resolve("Messages_en.properties"), "greeting=Hello", StandardCharsets.UTF_8);
+
+		assertThat(configCache.load(basePath)).isPresent();
+	}
+
+	@Test
+	public void testConfigFileAdded() throws Exception {
+		loadProjects(true);
+
+		Files.writeString(basePath.resolve(TomlConfigService.TOLGEE_TOOLBOX), CONFIG, StandardCharsets.UTF_8);
+
+		assertThat(configCache.load(basePath)).isEmpty();
+	}
+
+	@Test
+	public void testConfigFileRemoved() throws Exception {
+		loadProjects(true);
+
+		Files.delete(moduleA.resolve(TomlConfigService.TOLGEE_TOOLBOX));
+
+		assertThat(configCache.load(basePath)).isEmpty();
+	}
+
+	@Test
+	public void testSubdirectoryAdded() throws Exception {
+		loadProjects(true);
+
+		Files.createDirectories(moduleA.resolve("module-b"));
+
+		assertThat(configCache.load(basePath)).isEmpty();
+	}
+
+	@Test
+	public void testSameSizeEdit() throws Exception {
+		loadProjects(true);
+
+		Path configFile = moduleA.resolve(TomlConfigService.TOLGEE_TOOLBOX);
+		Files.writeString(configFile, CONFIG.replace("tolgee.id = 1", "tolgee.id = 2"), StandardCharsets.UTF_8);
+
+		assertThat(configCache.load(basePath)).isEmpty();
+	}
+
+	/**
+	 * Tests that a config file which was modified shortly before it was cached is compared by its content, as a later
+	 * modification may have left its size and modification time the same.
+	 */
+	@Test
+	public void testRacySameSizeEdit() throws Exception {
+		loadProjects(false);
+
+		Path configFile = moduleA.resolve(TomlConfigService.TOLGEE_TOOLBOX);
+		FileTime lastModifiedTime = Files.getLastModifiedTime(configFile);
+		Files.writeString(configFile, CONFIG.replace("tolgee.id = 1", "tolgee.id = 2"), StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(configFile, lastModifiedTime);
+
+		assertThat(configCache.load(basePath)).isEmpty();
+	}
+
+	/**
+	 * Loads (and caches) the projects.
+	 *
+	 * @param backdate Set the modification time of all files and directories well before loading the projects, so
+	 *                 the cache can rely on it.
+	 */
+	private void loadProjects(boolean backdate) throws Exception {
+		if (backdate) {
+			FileTime lastModifiedTime = FileTime.from(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1),
+					TimeUnit.MILLISECONDS);
+			try (Stream<Path> paths = Files.walk(basePath)) {
+				// Children first; modifying a child doesn't change the modification time of its parent.
+				List<Path> childrenFirst = paths.sorted(Comparator.reverseOrder()).toList();
+				for (Path path : childrenFirst) {
+					Files.setLastModifiedTime(path, lastModifiedTime);
+				}
+			}
+		}
+
+		assertThat(new TomlConfigService(configCache, new DirectoryIndexes()).loadProjects(basePath)).hasSize(1);
+	}
+}
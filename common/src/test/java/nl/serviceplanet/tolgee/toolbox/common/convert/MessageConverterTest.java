@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.convert;
+
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class MessageConverterTest {
+
+	private static final String SOURCE = """
+			{
+			  "greeting": "Hello {name}!",
+			  "menu.file": "File",
+			  "menu.edit": "Edit: {count, plural, one {# item} other {# items}}",
+			  "menu": "Menu",
+			  "multiline": "First line\\nSecond line \\"quoted\\"",
+			  "key with spaces": " leading space = é",
+			  "untranslated": null,
+			  "nested": {"yes": "Yes"}
+			}
+			""";
+
+	/**
+	 * Tests converting a single message file to multiple formats at once.
+	 */
+	@Test
+	public void testConvert() throws IOException {
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		ByteArrayOutputStream jsonTolgee = new ByteArrayOutputStream();
+		ByteArrayOutputStream properties = new ByteArrayOutputStream();
+		ByteArrayOutputStream yaml = new ByteArrayOutputStream();
+
+		MessageConverter.convert(new ByteArrayInputStream(SOURCE.getBytes(StandardCharsets.UTF_8)), List.of(
+				MessageConverter.writer(ExportMessageFormatType.JSON, json),
+				MessageConverter.writer(ExportMessageFormatType.JSON_TOLGEE, jsonTolgee),
+				MessageConverter.writer(ExportMessageFormatType.PROPERTIES, properties),
+				MessageConverter.writer(ExportMessageFormatType.YAML, yaml)));
+
+		// 'menu' conflicts with the nested 'menu.*' keys, so it can't be written with nested keys.
+		assertThat(json.toString(StandardCharsets.UTF_8)).isEqualTo("""
+				{
+				  "greeting": "Hello {name}!",
+				  "menu": {
+				    "file": "File",
+				    "edit": "Edit: {count, plural, one {# item} other {# items}}"
+				  },
+				  "multiline": "First line\\nSecond line \\"quoted\\"",
+				  "key with spaces": " leading space = é",
+				  "nested": {
+				    "yes": "Yes"
+				  }
+				}""");
+
+		assertThat(jsonTolgee.toString(StandardCharsets.UTF_8)).contains("""
+				  "menu.file": "File",""");
+		assertThat(jsonTolgee.toString(StandardCharsets.UTF_8)).contains("""
+				  "nested.yes": "Yes"
+				}""");
+
+		Properties loadedProperties = new Properties();
+		loadedProperties.load(new StringReader(properties.toString(StandardCharsets.UTF_8)));
+		assertThat(loadedProperties).containsExactly(
+				"greeting", "Hello {name}!",
+				"menu.file", "File",
+				"menu.edit", "Edit: {count, plural, one {# item} other {# items}}",
+				"menu", "Menu",
+				"multiline", "First line\nSecond line \"quoted\"",
+				"key with spaces", " leading space = é",
+				"nested.yes", "Yes");
+
+		assertThat(yaml.toString(StandardCharsets.UTF_8)).isEqualTo("""
+				greeting: "Hello {name}!"
+				menu:
+				  file: "File"
+				  edit: "Edit: {count, plural, one {# item} other {# items}}"
+				multiline: "First line\\nSecond line \\"quoted\\""
+				"key with spaces": " leading space = é"
+				nested:
+				  "yes": "Yes"
+				""");
+	}
+
+	@Test
+	public void testUnsupportedFormat() {
+		assertThat(MessageConverter.supports(ExportMessageFormatType.ANDROID_XML)).isFalse();
+		assertThrows(IllegalArgumentException.class,
+				() -> MessageConverter.writer(ExportMessageFormatType.ANDROID_XML, new ByteArrayOutputStream()));
+	}
+}
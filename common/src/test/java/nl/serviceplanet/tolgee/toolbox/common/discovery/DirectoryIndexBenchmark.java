@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares walking a synthetic directory tree of 100.000 files sequentially ({@code parallelism=1}) with walking it
+ * in parallel while building a {@link DirectoryIndex}. Run with:
+ *
+ * <pre>
+ * mvn -f common/pom.xml test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+ * java -cp common/target/test-classes:common/target/classes:$(cat common/target/test.classpath) \
+ *   org.openjdk.jmh.Main DirectoryIndexBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryIndexBenchmark {
+
+	private static final int DIRECTORIES = 2000;
+
+	private static final int FILES_PER_DIRECTORY = 50;
+
+	@Param({"1", "4", "16"})
+	public int parallelism;
+
+	private Path root;
+
+	@Setup
+	public void setup() throws IOException {
+		root = Files.createTempDirectory("directory-index-benchmark");
+		for (int i = 0; i < DIRECTORIES; i++) {
+			Path directory = root.resolve(String.format("module-%d/src/main/resources/package-%d", i / 10, i));
+			Files.createDirectories(directory);
+			for (int j = 0; j < FILES_PER_DIRECTORY; j++) {
+				Files.createFile(directory.resolve(String.format("File%d.java", j)));
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		MoreFiles.deleteRecursively(root, RecursiveDeleteOption.ALLOW_INSECURE);
+	}
+
+	@Benchmark
+	public DirectoryIndex build() throws IOException {
+		return DirectoryIndex.build(root, (directory, attributes) -> {}, parallelism);
+	}
+}
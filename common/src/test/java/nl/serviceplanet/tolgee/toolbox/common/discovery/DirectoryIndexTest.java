@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class DirectoryIndexTest {
+
+	@TempDir
+	private Path root;
+
+	@Test
+	public void testFindMatchesFileDiscovery() throws Exception {
+		Files.createDirectory(root.resolve(".git"));
+		for (String file : new String[]{
+				"Messages_en.properties",
+				"module/Messages_nl.properties",
+				"module/.gitignore",
+				"module/generated/Messages_de.properties",
+				"module/target/Messages_fr.properties",
+				"module/src/test/Messages_it.properties",
+				"other/build/Messages_es.properties"}) {
+			Path path = root.resolve(file);
+			Files.createDirectories(path.getParent());
+			Files.writeString(path, "");
+		}
+		Files.writeString(root.resolve("module/.gitignore"), "generated/\n");
+
+		ImmutableMap<String, Pattern> patterns = ImmutableMap.of("messages", Pattern.compile("Messages_[a-z]{2}\\.properties"));
+		DiscoverySettings settings = DiscoverySettings.defaults()
+				.withExcludes(ImmutableList.of("build", "*/src/test"))
+				.withGitIgnore(true);
+		Set<Path> visitedDirectories = ConcurrentHashMap.newKeySet();
+		DirectoryIndex index = DirectoryIndex.build(root, (directory, attributes) -> visitedDirectories.add(directory));
+
+		assertThat(visitedDirectories).containsExactly(root, root.resolve("module"), root.resolve("module/generated"),
+				root.resolve("module/src"), root.resolve("module/src/test"), root.resolve("other"),
+				root.resolve("other/build"));
+
+		assertThat(index.contains(root.resolve("module"))).isTrue();
+		assertThat(index.contains(root.resolve("module/target"))).isFalse();
+		assertThat(index.find(root, patterns, settings))
+				.containsExactlyEntriesIn(FileDiscovery.find(root, patterns, settings));
+		assertThat(index.find(root, patterns, settings).values())
+				.containsExactly(root.resolve("Messages_en.properties"), root.resolve("module/Messages_nl.properties"));
+
+		// Relative path excludes are relative to the directory which is searched.
+		Path module = root.resolve("module");
+		DiscoverySettings moduleSettings = settings.withExcludes(ImmutableList.of("src"));
+		assertThat(index.find(module, patterns, moduleSettings))
+				.containsExactlyEntriesIn(FileDiscovery.find(module, patterns, moduleSettings));
+		assertThat(index.find(module, patterns, moduleSettings.withGitIgnore(false)).values())
+				.containsExactly(module.resolve("Messages_nl.properties"), module.resolve("generated/Messages_de.properties"));
+	}
+
+	/**
+	 * Tests that files below a default exclude are found when a project overrides the default excludes, even though
+	 * the index skipped the directory.
+	 */
+	@Test
+	public void testOverriddenDefaultExcludes() throws Exception {
+		for (String file : new String[]{"Messages_en.properties", "target/Messages_nl.properties"}) {
+			Path path = root.resolve(file);
+			Files.createDirectories(path.getParent());
+			Files.writeString(path, "");
+		}
+
+		ImmutableMap<String, Pattern> patterns = ImmutableMap.of("messages", Pattern.compile("Messages_[a-z]{2}\\.properties"));
+		DirectoryIndexes indexes = new DirectoryIndexes();
+		indexes.addLazily(root);
+
+		assertThat(indexes.find(root, patterns, DiscoverySettings.defaults()).values())
+				.containsExactly(root.resolve("Messages_en.properties"));
+		DiscoverySettings settings = DiscoverySettings.defaults().withDefaultExcludes(ImmutableSet.of(".git"));
+		assertThat(indexes.find(root, patterns, settings).values())
+				.containsExactly(root.resolve("Messages_en.properties"), root.resolve("target/Messages_nl.properties"));
+	}
+}
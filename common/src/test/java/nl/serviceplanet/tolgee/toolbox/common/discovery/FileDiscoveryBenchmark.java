@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares finding message files by walking the directory tree with finding them from the git index, in a synthetic
+ * git repository of 50.000 files. Requires the git binary to create the repository. Run with:
+ *
+ * <pre>
+ * mvn -f common/pom.xml test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+ * java -cp common/target/test-classes:common/target/classes:$(cat common/target/test.classpath) \
+ *   org.openjdk.jmh.Main FileDiscoveryBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileDiscoveryBenchmark {
+
+	private static final int DIRECTORIES = 1000;
+
+	private static final int FILES_PER_DIRECTORY = 50;
+
+	private static final ImmutableMap<String, Pattern> PATTERNS =
+			ImmutableMap.of("messages", Pattern.compile("Messages_[a-z]{2}\\.properties"));
+
+	@Param({"false", "true"})
+	public boolean gitIndex;
+
+	private Path root;
+
+	private DiscoverySettings settings;
+
+	@Setup
+	public void setup() throws IOException, InterruptedException {
+		root = Files.createTempDirectory("file-discovery-benchmark");
+		for (int i = 0; i < DIRECTORIES; i++) {
+			Path directory = root.resolve(String.format("module-%d/src/main/resources/package-%d", i / 10, i));
+			Files.createDirectories(directory);
+			for (int j = 0; j < FILES_PER_DIRECTORY; j++) {
+				String fileName = j < 2 ? String.format("Messages_%s.properties", j == 0 ? "en" : "nl") :
+						String.format("File%d.java", j);
+				Files.writeString(directory.resolve(fileName), fileName);
+			}
+		}
+		git("init", "--quiet");
+		git("add", "--all");
+
+		settings = DiscoverySettings.defaults().withGitIndex(gitIndex);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		MoreFiles.deleteRecursively(root, RecursiveDeleteOption.ALLOW_INSECURE);
+	}
+
+	@Benchmark
+	public ImmutableListMultimap<String, Path> find() throws IOException {
+		return FileDiscovery.find(root, PATTERNS, settings);
+	}
+
+	private void git(String... arguments) throws IOException, InterruptedException {
+		String[] command = new String[arguments.length + 1];
+		command[0] = "git";
+		System.arraycopy(arguments, 0, command, 1, arguments.length);
+		Process process = new ProcessBuilder(command).directory(root.toFile()).inheritIO().start();
+		if (process.waitFor() != 0) {
+			throw new IllegalStateException(String.format("Command 'git %s' failed.", String.join(" ", arguments)));
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class GitIgnoreRulesTest {
+
+	private static final Path DIRECTORY = Path.of("/repo");
+
+	@Test
+	public void testMatch() throws Exception {
+		GitIgnoreRules rules = GitIgnoreRules.parse(DIRECTORY, List.of(
+				"# Build output",
+				"build/",
+				"*.generated.properties",
+				"!keep.generated.properties",
+				"/docs/**/drafts",
+				""));
+
+		assertThat(rules.match(DIRECTORY.resolve("module/build"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("module/build"), false)).isNull();
+		assertThat(rules.match(DIRECTORY.resolve("src/Messages.generated.properties"), false)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("src/keep.generated.properties"), false)).isFalse();
+		assertThat(rules.match(DIRECTORY.resolve("docs/drafts"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("docs/a/b/drafts"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("module/docs/drafts"), true)).isNull();
+		assertThat(rules.match(DIRECTORY.resolve("src/Messages.properties"), false)).isNull();
+	}
+
+	/**
+	 * Tests that a negated rule re-includes what an earlier rule ignores, and that the last matching rule wins.
+	 */
+	@Test
+	public void testNegation() {
+		GitIgnoreRules rules = GitIgnoreRules.parse(DIRECTORY, List.of(
+				"*.properties",
+				"!Messages*.properties",
+				"Messages_tmp.properties"));
+
+		assertThat(rules.match(DIRECTORY.resolve("src/application.properties"), false)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("src/Messages_en.properties"), false)).isFalse();
+		assertThat(rules.match(DIRECTORY.resolve("src/Messages_tmp.properties"), false)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("src/Messages_en.json"), false)).isNull();
+	}
+
+	/**
+	 * Tests that a rule with a leading or middle {@code /} only matches relative to the directory of the
+	 * {@code .gitignore} file, and a rule without one matches at any depth.
+	 */
+	@Test
+	public void testAnchored() {
+		GitIgnoreRules rules = GitIgnoreRules.parse(DIRECTORY, List.of(
+				"/generated",
+				"src/tmp",
+				"out"));
+
+		assertThat(rules.match(DIRECTORY.resolve("generated"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("module/generated"), true)).isNull();
+		assertThat(rules.match(DIRECTORY.resolve("src/tmp"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("module/src/tmp"), true)).isNull();
+		assertThat(rules.match(DIRECTORY.resolve("out"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("module/out"), true)).isTrue();
+		assertThat(rules.match(Path.of("/other/generated"), true)).isNull();
+	}
+
+	/**
+	 * Tests that a rule with a trailing {@code /} only matches directories.
+	 */
+	@Test
+	public void testDirectoryOnly() {
+		GitIgnoreRules rules = GitIgnoreRules.parse(DIRECTORY, List.of(
+				"cache/",
+				"/dist/"));
+
+		assertThat(rules.match(DIRECTORY.resolve("cache"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("module/cache"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("module/cache"), false)).isNull();
+		assertThat(rules.match(DIRECTORY.resolve("dist"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("dist"), false)).isNull();
+		assertThat(rules.match(DIRECTORY.resolve("module/dist"), true)).isNull();
+	}
+
+	/**
+	 * Tests that a leading {@code **}/ matches in any directory, a middle /{@code **}/ matches zero or more directories
+	 * and a trailing /{@code **} matches everything inside a directory.
+	 */
+	@Test
+	public void testDoubleAsterisk() {
+		GitIgnoreRules rules = GitIgnoreRules.parse(DIRECTORY, List.of(
+				"**/fixtures",
+				"i18n/**/Messages_xx.properties",
+				"tmp/**"));
+
+		assertThat(rules.match(DIRECTORY.resolve("fixtures"), true)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("a/b/fixtures"), false)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("i18n/Messages_xx.properties"), false)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("i18n/a/b/Messages_xx.properties"), false)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("module/i18n/Messages_xx.properties"), false)).isNull();
+		assertThat(rules.match(DIRECTORY.resolve("tmp/a/Messages_en.properties"), false)).isTrue();
+		assertThat(rules.match(DIRECTORY.resolve("tmp"), true)).isNull();
+	}
+}
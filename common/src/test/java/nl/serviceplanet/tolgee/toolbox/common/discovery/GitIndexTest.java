@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.discovery;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class GitIndexTest {
+
+	private static final int REGULAR_FILE = 0100644;
+
+	private static final int SYMBOLIC_LINK = 0120000;
+
+	@Test
+	public void testParseVersion2() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = header(bytes, 2, 4);
+		entry(out, 2, REGULAR_FILE, 0, "a/Messages_en.properties", 0);
+		entry(out, 2, SYMBOLIC_LINK, 0, "a/link", 0);
+		entry(out, 2, REGULAR_FILE, 1, "b/conflict.json", 0);
+		entry(out, 2, REGULAR_FILE, 2, "b/conflict.json", 0);
+
+		assertThat(GitIndex.parse(ByteBuffer.wrap(bytes.toByteArray())))
+				.containsExactly("a/Messages_en.properties", "b/conflict.json").inOrder();
+	}
+
+	@Test
+	public void testParseVersion4() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = header(bytes, 4, 3);
+		entry(out, 4, REGULAR_FILE, 0, "a/Messages_en.properties", 0);
+		entry(out, 4, REGULAR_FILE, 0, "nl.properties", "en.properties".length());
+		entry(out, 4, REGULAR_FILE, 0, "b", "a/Messages_nl.properties".length());
+
+		assertThat(GitIndex.parse(ByteBuffer.wrap(bytes.toByteArray())))
+				.containsExactly("a/Messages_en.properties", "a/Messages_nl.properties", "b").inOrder();
+	}
+
+	private static DataOutputStream header(ByteArrayOutputStream bytes, int version, int entryCount) throws IOException {
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeBytes("DIRC");
+		out.writeInt(version);
+		out.writeInt(entryCount);
+		return out;
+	}
+
+	/**
+	 * Writes an index entry. In version 4 {@code name} is the suffix appended after removing {@code removeLength}
+	 * bytes from the previous name.
+	 */
+	private static void entry(DataOutputStream out, int version, int mode, int stage, String name, int removeLength)
+			throws IOException {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		for (int x = 0; x < 6; x++) {
+			out.writeInt(0); // ctime, mtime, dev and ino
+		}
+		out.writeInt(mode);
+		for (int x = 0; x < 3; x++) {
+			out.writeInt(0); // uid, gid and size
+		}
+		out.write(new byte[20]); // object name
+		out.writeShort((stage << 12) | Math.min(nameBytes.length, 0xFFF));
+
+		if (version == 4) {
+			out.writeByte(removeLength);
+			out.write(nameBytes);
+			out.writeByte(0);
+		} else {
+			out.write(nameBytes);
+			int entryLength = 62 + nameBytes.length;
+			out.write(new byte[8 - entryLength % 8]);
+		}
+	}
+}
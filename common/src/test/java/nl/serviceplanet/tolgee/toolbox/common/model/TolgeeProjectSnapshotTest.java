@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.model;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class TolgeeProjectSnapshotTest {
+
+	/**
+	 * Tests that the first language of a locale is used when Tolgee lists multiple languages with the same locale.
+	 */
+	@Test
+	public void testDuplicateLocales() {
+		TolgeeProjectLanguage first = new TolgeeProjectLanguage(1, Locale.of("nl", "NL"));
+		TolgeeProjectLanguage second = new TolgeeProjectLanguage(2, Locale.of("nl", "NL"));
+		TolgeeProjectSnapshot snapshot = TolgeeProjectSnapshot.of(1, ImmutableSet.of(first, second), ImmutableSet.of());
+
+		assertThat(snapshot.languages()).containsExactly(first, second).inOrder();
+		assertThat(snapshot.language(Locale.of("nl", "NL"))).hasValue(first);
+		assertThat(snapshot.language(Locale.of("nl"))).isEmpty();
+	}
+
+	/**
+	 * Tests that languages which only differ in their script are looked up separately.
+	 */
+	@Test
+	public void testScriptLocales() {
+		TolgeeProjectLanguage traditionalTaiwan = new TolgeeProjectLanguage(1, Locale.forLanguageTag("zh-Hant-TW"));
+		TolgeeProjectLanguage taiwan = new TolgeeProjectLanguage(2, Locale.of("zh", "TW"));
+		TolgeeProjectLanguage simplified = new TolgeeProjectLanguage(3, Locale.forLanguageTag("zh-Hans"));
+		TolgeeProjectSnapshot snapshot = TolgeeProjectSnapshot.of(1,
+				ImmutableSet.of(traditionalTaiwan, taiwan, simplified), ImmutableSet.of());
+
+		assertThat(snapshot.language(Locale.forLanguageTag("zh-Hant-TW"))).hasValue(traditionalTaiwan);
+		assertThat(snapshot.language(Locale.of("zh", "TW"))).hasValue(taiwan);
+		assertThat(snapshot.language(Locale.forLanguageTag("zh-Hans"))).hasValue(simplified);
+		assertThat(snapshot.language(Locale.of("zh"))).isEmpty();
+	}
+
+	/**
+	 * Tests that the default namespace (ID 0) is never returned and the first namespace of a name is used.
+	 */
+	@Test
+	public void testNamespaces() {
+		TolgeeNamespace defaultNamespace = new TolgeeNamespace(0, "");
+		TolgeeNamespace first = new TolgeeNamespace(1, "web");
+		TolgeeNamespace second = new TolgeeNamespace(2, "web");
+		TolgeeProjectSnapshot snapshot = TolgeeProjectSnapshot.of(1, ImmutableSet.of(),
+				ImmutableSet.of(defaultNamespace, first, second));
+
+		assertThat(snapshot.namespace("")).isEmpty();
+		assertThat(snapshot.namespace(null)).isEmpty();
+		assertThat(snapshot.namespace("web")).hasValue(first);
+		assertThat(snapshot.namespace("app")).isEmpty();
+	}
+}
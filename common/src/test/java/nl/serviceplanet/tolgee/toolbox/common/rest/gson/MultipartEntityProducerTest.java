@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class MultipartEntityProducerTest {
+
+	@TempDir
+	private Path tempDirectory;
+
+	/**
+	 * Tests that the body is streamed completely, also when the channel only accepts a few bytes at a time, and that
+	 * it can be streamed again after the resources are released.
+	 */
+	@Test
+	public void testProduce() throws Exception {
+		Path messageFile = tempDirectory.resolve("Messages.properties");
+		Files.writeString(messageFile, "greeting=Hallo\n".repeat(2000), StandardCharsets.UTF_8);
+
+		MultipartEntityProducer producer = MultipartEntityProducer.builder()
+				.addFile("files", messageFile, ContentType.TEXT_PLAIN, "nl.properties")
+				.addText("params", "{\"forceMode\":\"OVERRIDE\"}", ContentType.APPLICATION_JSON)
+				.build();
+		String boundary = producer.getContentType().substring(producer.getContentType().indexOf("boundary=") + 9);
+
+		String expected = "--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"files\"; filename=\"nl.properties\"\r\n" +
+				"Content-Type: text/plain; charset=ISO-8859-1\r\n" +
+				"\r\n" +
+				Files.readString(messageFile) + "\r\n" +
+				"--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"params\"\r\n" +
+				"Content-Type: application/json; charset=UTF-8\r\n" +
+				"\r\n" +
+				"{\"forceMode\":\"OVERRIDE\"}\r\n" +
+				"--" + boundary + "--\r\n";
+
+		String body = produce(producer);
+		assertThat(body).isEqualTo(expected);
+		assertThat(producer.getContentLength()).isEqualTo(expected.length());
+
+		producer.releaseResources();
+		assertThat(produce(producer)).isEqualTo(expected);
+	}
+
+	private static String produce(MultipartEntityProducer producer) throws Exception {
+		LimitedDataStreamChannel channel = new LimitedDataStreamChannel(100);
+		while (!channel.ended) {
+			assertThat(producer.available()).isGreaterThan(0);
+			producer.produce(channel);
+		}
+		assertThat(producer.available()).isEqualTo(0);
+
+		return channel.data.toString(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Accepts at most a few bytes per call to {@link #write(ByteBuffer)}, like a congested connection.
+	 */
+	private static final class LimitedDataStreamChannel implements DataStreamChannel {
+
+		private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+		private final int maxBytesPerWrite;
+
+		private boolean ended;
+
+		private LimitedDataStreamChannel(int maxBytesPerWrite) {
+			this.maxBytesPerWrite = maxBytesPerWrite;
+		}
+
+		@Override
+		public void requestOutput() {
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			int length = Math.min(src.remaining(), maxBytesPerWrite);
+			for (int x = 0; x < length; x++) {
+				data.write(src.get());
+			}
+			return length;
+		}
+
+		@Override
+		public void endStream(List<? extends Header> trailers) {
+			ended = true;
+		}
+
+		@Override
+		public void endStream() {
+			ended = true;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import com.google.common.collect.ImmutableSet;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import static com.google.common.truth.Truth.assertThat;
+import static nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType.ANDROID_XML;
+import static nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType.APPLE_STRINGS_STRINGSDICT;
+import static nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType.FLUTTER_ARB;
+import static nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType.JSON;
+import static nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType.PROPERTIES;
+
+public final class TolgeeJsonMapperTest {
+
+	/**
+	 * Tests matching the entries of a zipped export to the requested languages.
+	 */
+	@Test
+	public void testExportEntryLocale() {
+		Locale english = Locale.of("en");
+		Locale englishUs = Locale.of("en", "US");
+		Locale dutch = Locale.of("nl", "NL");
+		ImmutableSet<Locale> locales = ImmutableSet.of(english, englishUs, dutch);
+
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("en.json", JSON, locales)).hasValue(english);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("en-US.json", JSON, locales)).hasValue(englishUs);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("nl-NL.properties", PROPERTIES, locales)).hasValue(dutch);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("nl_NL.properties", PROPERTIES, locales)).hasValue(dutch);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("de.json", JSON, locales)).isEqualTo(Optional.empty());
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("enterprise/en.json", JSON, locales)).isEqualTo(Optional.empty());
+
+		// Regions are not matched by the language alone.
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("values-en/strings.xml", ANDROID_XML, locales))
+				.hasValue(english);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("values-en-rUS/strings.xml", ANDROID_XML, locales))
+				.hasValue(englishUs);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("values-en-rGB/strings.xml", ANDROID_XML, locales))
+				.isEqualTo(Optional.empty());
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("values-b+nl+NL/strings.xml", ANDROID_XML, locales))
+				.hasValue(dutch);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("en-US.lproj/Localizable.strings", APPLE_STRINGS_STRINGSDICT,
+				locales)).hasValue(englishUs);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("en.lproj/Localizable.stringsdict", APPLE_STRINGS_STRINGSDICT,
+				locales)).hasValue(english);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("app_en_US.arb", FLUTTER_ARB, locales)).hasValue(englishUs);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("app_en.arb", FLUTTER_ARB, locales)).hasValue(english);
+	}
+
+	/**
+	 * Tests language tags with a script, which Tolgee accepts as BCP 47 language tags.
+	 */
+	@Test
+	public void testScriptLanguageTag() {
+		Locale traditionalChinese = Locale.forLanguageTag("zh-Hant-TW");
+		Locale chinese = Locale.of("zh", "TW");
+		ImmutableSet<Locale> locales = ImmutableSet.of(traditionalChinese, chinese);
+
+		assertThat(TolgeeJsonMapper.toExport(traditionalChinese, null, JSON).getLanguages())
+				.containsExactly("zh-Hant-TW");
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("zh-Hant-TW.json", JSON, locales)).hasValue(traditionalChinese);
+		assertThat(TolgeeJsonMapper.toExportEntryLocale("zh_TW.json", JSON, locales)).hasValue(chinese);
+	}
+
+	/**
+	 * Tests splitting a zipped export of multiple namespaces into the namespaces.
+	 */
+	@Test
+	public void testExportEntryNamespace() {
+		ImmutableSet<String> namespaces = ImmutableSet.of("", "admin", "shop");
+
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("admin/en.json", JSON, namespaces)).hasValue("admin");
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("shop/values-nl/strings.xml", ANDROID_XML, namespaces))
+				.hasValue("shop");
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("en.json", JSON, namespaces)).hasValue("");
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("values-en/strings.xml", ANDROID_XML, namespaces))
+				.hasValue("");
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("blog/en.json", JSON, namespaces))
+				.isEqualTo(Optional.empty());
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("en.json", JSON, ImmutableSet.of("admin")))
+				.isEqualTo(Optional.empty());
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("admin/nested/en.json", JSON, namespaces))
+				.isEqualTo(Optional.empty());
+		// An export of only the default namespace still contains the directories of the other namespaces, also of
+		// namespaces which are not known yet.
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("admin/en.json", JSON, ImmutableSet.of("")))
+				.isEqualTo(Optional.empty());
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("new/en.json", JSON, ImmutableSet.of("")))
+				.isEqualTo(Optional.empty());
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("new/en.lproj/Localizable.strings",
+				APPLE_STRINGS_STRINGSDICT, ImmutableSet.of(""))).isEqualTo(Optional.empty());
+		assertThat(TolgeeJsonMapper.toExportEntryNamespace("en.json", JSON, ImmutableSet.of(""))).hasValue("");
+
+		// A namespace named like a language is not mistaken for the language of the entry.
+		ImmutableSet<Locale> germanAndEnglish = ImmutableSet.of(Locale.GERMAN, Locale.ENGLISH);
+		String entryNamespace = TolgeeJsonMapper.toExportEntryNamespace("de/en.json", JSON, ImmutableSet.of("de"))
+				.orElseThrow();
+		assertThat(entryNamespace).isEqualTo("de");
+		String namespaceEntryName = TolgeeJsonMapper.toNamespaceEntryName("de/en.json", entryNamespace);
+		assertThat(namespaceEntryName).isEqualTo("en.json");
+		assertThat(TolgeeJsonMapper.toExportEntryLocale(namespaceEntryName, JSON, germanAndEnglish)).hasValue(Locale.ENGLISH);
+
+		// The default namespace is only exported without a namespace filter.
+		assertThat(TolgeeJsonMapper.toZipExport(ImmutableSet.of(Locale.ENGLISH), ImmutableSet.of("admin", "shop"),
+				ExportMessageFormatType.JSON_TOLGEE).getFilterNamespace()).containsExactly("admin", "shop").inOrder();
+		assertThat(TolgeeJsonMapper.toZipExport(ImmutableSet.of(Locale.ENGLISH), namespaces,
+				ExportMessageFormatType.JSON_TOLGEE).getFilterNamespace()).isNull();
+	}
+}
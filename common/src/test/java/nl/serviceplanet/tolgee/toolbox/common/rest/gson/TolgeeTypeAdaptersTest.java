@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.rest.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportAddFilesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ImportListResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectLanguagesResp;
+import nl.serviceplanet.tolgee.toolbox.common.rest.api.json.ProjectNamespacesResp;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests that the {@link TolgeeTypeAdapters} read Tolgee responses the same as GSON does through reflection.
+ */
+public final class TolgeeTypeAdaptersTest {
+
+	private final Gson adapterGson = TolgeeTypeAdapters.createGson();
+
+	private final Gson reflectiveGson = new Gson();
+
+	/**
+	 * Writes the parsed responses (through reflection, including {@code null} values) to compare them.
+	 */
+	private final Gson comparingGson = new GsonBuilder().serializeNulls().create();
+
+	@Test
+	public void testImportAddFilesResp() {
+		String json = """
+				{
+				  "errors": [],
+				  "warnings": [{"code": "unknown"}],
+				  "result": {
+				    "_embedded": {
+				      "languages": [
+				        {
+				          "id": 11,
+				          "name": "nl-NL",
+				          "existingLanguageId": null,
+				          "existingLanguageTag": null,
+				          "importFileName": "3f2c-Messages_nl_NL.properties",
+				          "importFileId": 12,
+				          "importFileIssueCount": 0,
+				          "namespace": null,
+				          "totalCount": 2,
+				          "conflictCount": 0,
+				          "resolvedCount": 0,
+				          "unknownNumber": 1.5,
+				          "unknownObject": {"nested": [1, {"deeper": null}]}
+				        },
+				        {
+				          "id": 13,
+				          "name": "en",
+				          "existingLanguageId": 2,
+				          "existingLanguageTag": "en",
+				          "existingLanguageAbbreviation": "en",
+				          "existingLanguageName": "English",
+				          "importFileName": "3f2c-Messages_en.properties",
+				          "importFileId": 14,
+				          "namespace": "web"
+				        }
+				      ]
+				    },
+				    "_links": {"self": {"href": "https://tolgee.example.com"}}
+				  }
+				}
+				""";
+
+		assertSameAsReflection(json, ImportAddFilesResp.class);
+	}
+
+	@Test
+	public void testImportListResp() {
+		assertSameAsReflection("""
+				{"_embedded": {"languages": [{"id": 1, "name": "Dutch", "tag": "nl-NL", "base": true, "flagEmoji": null}]},
+				 "page": {"size": 20, "totalElements": 1}}
+				""", ImportListResp.class);
+	}
+
+	@Test
+	public void testProjectLanguagesResp() {
+		assertSameAsReflection("""
+				{"_embedded": {"languages": [
+				  {"id": 1, "name": "Dutch", "tag": "nl-NL", "originalName": "Nederlands", "flagEmoji": "🇳🇱", "base": true},
+				  {"id": 2, "name": "Chinese", "tag": "zh-Hant-TW", "originalName": null, "base": false}]},
+				 "page": {"size": 1000, "totalElements": 2, "totalPages": 1, "number": 0}}
+				""", ProjectLanguagesResp.class);
+	}
+
+	@Test
+	public void testProjectNamespacesResp() {
+		assertSameAsReflection("""
+				{"_embedded": {"namespaces": [{"id": 0, "name": ""}, {"id": 5, "name": "web", "base": null}]}}
+				""", ProjectNamespacesResp.class);
+	}
+
+	/**
+	 * Tests responses without content. Tolgee leaves out {@code _embedded} when a list is empty.
+	 */
+	@Test
+	public void testEmptyResponses() {
+		assertSameAsReflection("{}", ProjectNamespacesResp.class);
+		assertSameAsReflection("{\"_embedded\": {}}", ProjectNamespacesResp.class);
+		assertSameAsReflection("{\"_embedded\": null, \"page\": null}", ProjectLanguagesResp.class);
+		assertSameAsReflection("{\"_embedded\": {\"languages\": []}}", ImportListResp.class);
+		assertSameAsReflection("{\"result\": {\"_embedded\": {}}}", ImportAddFilesResp.class);
+		assertSameAsReflection("null", ImportAddFilesResp.class);
+	}
+
+	/**
+	 * Through reflection GSON replaces the empty default of a list with {@code null}; the adapters keep the empty list.
+	 */
+	@Test
+	public void testNullList() {
+		ProjectNamespacesResp resp = adapterGson.fromJson("{\"_embedded\": {\"namespaces\": null}}",
+				ProjectNamespacesResp.class);
+		assertThat(resp.getEmbedded().getNamespaces()).isEmpty();
+
+		ImportAddFilesResp importResp = adapterGson.fromJson("{\"errors\": null}", ImportAddFilesResp.class);
+		assertThat(importResp.getErrors()).isEmpty();
+	}
+
+	private void assertSameAsReflection(String json, Class<?> responseType) {
+		Object adapterResult = adapterGson.fromJson(json, responseType);
+		Object reflectiveResult = reflectiveGson.fromJson(json, responseType);
+
+		assertThat(comparingGson.toJsonTree(adapterResult)).isEqualTo(comparingGson.toJsonTree(reflectiveResult));
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.model.ExportMessageFormatType;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class ExportPlanTest {
+
+	private static final Path BASE_PATH = Path.of("/repo");
+
+	private static final Locale DUTCH = Locale.of("nl", "NL");
+
+	private static final Locale ENGLISH = Locale.of("en");
+
+	/**
+	 * Tests that projects which need the same language of a Tolgee project and namespace in the same format share an
+	 * export.
+	 */
+	@Test
+	public void testExports() {
+		Project moduleA = project("a", 1, null);
+		Project moduleB = project("b", 1, "");
+		Project moduleC = project("c", 1, "c");
+
+		ExportPlan exportPlan = new ExportPlan();
+		exportPlan.add(moduleA, DUTCH, ExportMessageFormatType.JSON, path("a/nl.json"));
+		exportPlan.add(moduleA, ENGLISH, ExportMessageFormatType.JSON, path("a/en.json"));
+		exportPlan.add(moduleB, DUTCH, ExportMessageFormatType.JSON, path("b/nl.json"));
+		exportPlan.add(moduleB, DUTCH, ExportMessageFormatType.JSON, path("b/nl.json"));
+		exportPlan.add(moduleB, DUTCH, ExportMessageFormatType.PO, path("b/nl.po"));
+		exportPlan.add(moduleC, DUTCH, ExportMessageFormatType.JSON, path("c/nl.json"));
+
+		assertThat(exportPlan.messageFileCount()).isEqualTo(5);
+
+		Map<ExportPlan.Export, List<Path>> exports = exportPlan.exports();
+		assertThat(exports).containsExactly(
+				export(DUTCH, "", ExportMessageFormatType.JSON), List.of(path("a/nl.json"), path("b/nl.json")),
+				export(ENGLISH, "", ExportMessageFormatType.JSON), List.of(path("a/en.json")),
+				export(DUTCH, "", ExportMessageFormatType.PO), List.of(path("b/nl.po")),
+				export(DUTCH, "c", ExportMessageFormatType.JSON), List.of(path("c/nl.json"))).inOrder();
+
+		Map<ExportPlan.ZipExport, ListMultimap<Locale, Path>> zipExports = exportPlan.zipExports();
+		assertThat(zipExports).hasSize(3);
+		ListMultimap<Locale, Path> json = zipExports.get(
+				new ExportPlan.ZipExport(moduleA.tolgeeApiURI(), 1, "", ExportMessageFormatType.JSON));
+		assertThat(json.keySet()).containsExactly(DUTCH, ENGLISH).inOrder();
+		assertThat(json.get(DUTCH)).containsExactly(path("a/nl.json"), path("b/nl.json")).inOrder();
+
+		assertThat(exportPlan.projects()).containsExactly(
+				path("a/nl.json"), moduleA,
+				path("a/en.json"), moduleA,
+				path("b/nl.json"), moduleB,
+				path("b/nl.po"), moduleB,
+				path("c/nl.json"), moduleC).inOrder();
+	}
+
+	/**
+	 * Tests that only languages which are needed in multiple formats which can be converted locally are converted.
+	 */
+	@Test
+	public void testConvertedExports() {
+		Project moduleA = project("a", 1, null);
+		Project moduleB = project("b", 1, null);
+
+		ExportPlan exportPlan = new ExportPlan();
+		exportPlan.add(moduleA, DUTCH, ExportMessageFormatType.PROPERTIES, path("a/nl.properties"));
+		exportPlan.add(moduleB, DUTCH, ExportMessageFormatType.JSON, path("b/nl.json"));
+		exportPlan.add(moduleB, DUTCH, ExportMessageFormatType.PO, path("b/nl.po"));
+		exportPlan.add(moduleA, ENGLISH, ExportMessageFormatType.PROPERTIES, path("a/en.properties"));
+		exportPlan.add(moduleB, ENGLISH, ExportMessageFormatType.PO, path("b/en.po"));
+
+		assertThat(exportPlan.convertedExports()).containsExactly(
+				new ExportPlan.ConvertedExport(moduleA.tolgeeApiURI(), 1, DUTCH, ""), Map.of(
+						ExportMessageFormatType.JSON, List.of(path("b/nl.json")),
+						ExportMessageFormatType.PROPERTIES, List.of(path("a/nl.properties"))));
+	}
+
+	/**
+	 * Tests that two languages which would be written to the same message file are rejected.
+	 */
+	@Test
+	public void testMessageFilePathCollision() {
+		Project moduleA = project("a", 1, null);
+
+		ExportPlan exportPlan = new ExportPlan();
+		exportPlan.add(moduleA, Locale.forLanguageTag("zh-Hans"), ExportMessageFormatType.JSON, path("a/zh.json"));
+
+		assertThrows(IllegalStateException.class, () -> exportPlan.add(moduleA, Locale.forLanguageTag("zh-Hant"),
+				ExportMessageFormatType.JSON, path("a/zh.json")));
+	}
+
+	private static ExportPlan.Export export(Locale locale, String namespace, ExportMessageFormatType messageFormatType) {
+		return new ExportPlan.Export(URI.create("https://tolgee.example.com"), 1, locale, namespace, messageFormatType);
+	}
+
+	private static Path path(String path) {
+		return BASE_PATH.resolve(path);
+	}
+
+	private static Project project(String path, long tolgeeProjectId, String namespace) {
+		return new Project(BASE_PATH.resolve(path), URI.create("https://tolgee.example.com"), false, namespace,
+				tolgeeProjectId, ImmutableSet.of(), ImmutableSet.of(), DiscoverySettings.defaults());
+	}
+}
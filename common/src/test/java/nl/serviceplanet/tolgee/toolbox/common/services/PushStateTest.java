@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2024 Service Planet Rotterdam B.V. (it@ask.serviceplanet.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.serviceplanet.tolgee.toolbox.common.services;
+
+import com.google.common.collect.ImmutableSet;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.MessageFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PushStateTest {
+
+	private static final Locale DUTCH = Locale.of("nl", "NL");
+
+	@TempDir
+	private Path tempDirectory;
+
+	/**
+	 * Tests that message files which did not change since they were pushed are skipped, unless the push is forced.
+	 */
+	@Test
+	public void testUnchanged() throws Exception {
+		Project project = project(null);
+		MessageFile messageFile = messageFile(project, "Messages.properties", "greeting=Hallo", DUTCH);
+
+		push(project, messageFile);
+
+		assertThat(PushState.load(stateDirectory(), project, false).changed(ImmutableSet.of(messageFile))).isEmpty();
+		assertThat(PushState.load(stateDirectory(), project, true).changed(ImmutableSet.of(messageFile)))
+				.containsExactly(messageFile);
+		assertThat(PushState.load(null, project, false).changed(ImmutableSet.of(messageFile)))
+				.containsExactly(messageFile);
+	}
+
+	/**
+	 * Tests that a message file is pushed again when its namespace, format or locale changed.
+	 */
+	@Test
+	public void testChangedDestination() throws Exception {
+		Project project = project(null);
+		MessageFile messageFile = messageFile(project, "Messages.properties", "greeting=Hallo", DUTCH);
+
+		push(project, messageFile);
+
+		MessageFile otherLocale = new MessageFile(messageFile.path(), Locale.of("nl"), messageFile.messageFormatType());
+		MessageFile otherFormat = new MessageFile(messageFile.path(), DUTCH, ImportMessageFormatType.PROPERTIES_ICU);
+		assertThat(PushState.load(stateDirectory(), project, false).changed(ImmutableSet.of(otherLocale, otherFormat)))
+				.containsExactly(otherLocale, otherFormat);
+		assertThat(PushState.load(stateDirectory(), project("web"), false).changed(ImmutableSet.of(messageFile)))
+				.containsExactly(messageFile);
+	}
+
+	/**
+	 * Tests that only the message files which were pushed successfully are recorded.
+	 */
+	@Test
+	public void testPartialFailure() throws Exception {
+		Project project = project(null);
+		MessageFile pushed = messageFile(project, "Messages.properties", "greeting=Hallo", DUTCH);
+		MessageFile failed = messageFile(project, "Messages_en.properties", "greeting=Hello", Locale.ENGLISH);
+
+		PushState pushState = PushState.load(stateDirectory(), project, false);
+		assertThat(pushState.changed(ImmutableSet.of(pushed, failed))).containsExactly(pushed, failed);
+		pushState.pushed(pushed);
+		pushState.save();
+
+		assertThat(PushState.load(stateDirectory(), project, false).changed(ImmutableSet.of(pushed, failed)))
+				.containsExactly(failed);
+	}
+
+	/**
+	 * Tests that the content of a message file is only assumed unchanged from its size and modification time when it
+	 * was modified well before it was last checked.
+	 */
+	@Test
+	public void testRacyModification() throws Exception {
+		Project project = project(null);
+		MessageFile recent = messageFile(project, "Messages.properties", "greeting=Hallo", DUTCH);
+		MessageFile old = messageFile(project, "Messages_en.properties", "greeting=Hello", Locale.ENGLISH);
+		FileTime oldLastModifiedTime = FileTime.from(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1),
+				TimeUnit.MILLISECONDS);
+		Files.setLastModifiedTime(old.path(), oldLastModifiedTime);
+
+		push(project, recent, old);
+
+		// Modified without changing the size or modification time.
+		FileTime recentLastModifiedTime = Files.getLastModifiedTime(recent.path());
+		Files.writeString(recent.path(), "greeting=Hoi!!", StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(recent.path(), recentLastModifiedTime);
+		Files.writeString(old.path(), "greeting=Hi!!!", StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(old.path(), oldLastModifiedTime);
+
+		assertThat(PushState.load(stateDirectory(), project, false).changed(ImmutableSet.of(recent, old)))
+				.containsExactly(recent);
+	}
+
+	private void push(Project project, MessageFile... messageFiles) throws Exception {
+		PushState pushState = PushState.load(stateDirectory(), project, false);
+		assertThat(pushState.changed(ImmutableSet.copyOf(messageFiles))).containsExactlyElementsIn(messageFiles);
+		for (MessageFile messageFile : messageFiles) {
+			pushState.pushed(messageFile);
+		}
+		pushState.save();
+	}
+
+	private Path stateDirectory() {
+		return tempDirectory.resolve("push-state");
+	}
+
+	private MessageFile messageFile(Project project, String name, String content, Locale locale) throws Exception {
+		Path path = project.projectPath().resolve(name);
+		Files.writeString(path, content, StandardCharsets.UTF_8);
+		return new MessageFile(path, locale, ImportMessageFormatType.PROPERTIES_JAVA);
+	}
+
+	private Project project(String namespace) throws Exception {
+		Path projectPath = Files.createDirectories(tempDirectory.resolve("project"));
+		return new Project(projectPath, URI.create("https://tolgee.example.com"), false, namespace, 1,
+				ImmutableSet.of(), ImmutableSet.of(), DiscoverySettings.defaults());
+	}
+}
@@ -16,13 +16,26 @@
 package nl.serviceplanet.tolgee.toolbox.config;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import nl.serviceplanet.tolgee.toolbox.common.config.AbstractConfigService;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.FilesTemplate;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.LocalePlaceholder;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFile;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFilesDefinition;
+import nl.serviceplanet.tolgee.toolbox.common.model.ImportMessageFormatType;
+import nl.serviceplanet.tolgee.toolbox.common.model.MessageFile;
+import nl.serviceplanet.tolgee.toolbox.common.services.AbstractService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 import static com.google.common.truth.Truth.assertThat;
@@ -68,6 +81,93 @@ public final class AbstractServiceTest {
 				() -> placeholderParser.parseLocalePlaceholder("foo-directory_${locale region_case=upper}/Messages.properties"));
 	}
 	
+	@Test
+	public void testFilesTemplate() throws Exception {
+		DummyConfigService placeholderParser = new DummyConfigService();
+
+		String definition = "${locale separator=dash, region_case=lower}/Messages_${locale separator=underscore, region_case=upper}.properties";
+		FilesTemplate template = FilesTemplate.compile(definition, placeholderParser.parseLocalePlaceholder(definition));
+
+		assertThat(template.render(Locale.of("nl", "NL"))).isEqualTo("nl-nl/Messages_nl_NL.properties");
+		assertThat(template.render(Locale.of("nl"))).isEqualTo("nl/Messages_nl.properties");
+		assertThat(template.matchLocale("nl-nl/Messages_nl_NL.properties")).isEqualTo(Locale.of("nl", "NL"));
+		assertThat(template.matchLocale("en/Messages_en.properties")).isEqualTo(Locale.of("en"));
+		assertThat(template.matchLocale("nl-nl/Messages_en_US.properties")).isNull();
+		assertThat(template.matchLocale("nl-nl/Messages_nl_NL.xml")).isNull();
+		assertThat(template.matchLocale("module/nl-nl/Messages_nl_NL.properties")).isEqualTo(Locale.of("nl", "NL"));
+		assertThat(template.matchLocale("module-nl-nl/Messages_nl_NL.properties")).isNull();
+		assertThat(template.fileNamePattern().matcher("Messages_nl_NL.properties").matches()).isTrue();
+	}
+
+	@Test
+	public void testFilesTemplateScript() throws Exception {
+		DummyConfigService placeholderParser = new DummyConfigService();
+
+		String definition = "${locale separator=dash, region_case=lower}/Messages_${locale separator=underscore, region_case=upper}.properties";
+		FilesTemplate template = FilesTemplate.compile(definition, placeholderParser.parseLocalePlaceholder(definition));
+
+		Locale traditionalTaiwan = Locale.forLanguageTag("zh-Hant-TW");
+		Locale simplified = Locale.forLanguageTag("zh-Hans");
+		assertThat(template.render(traditionalTaiwan)).isEqualTo("zh-Hant-tw/Messages_zh_Hant_TW.properties");
+		assertThat(template.render(simplified)).isEqualTo("zh-Hans/Messages_zh_Hans.properties");
+		assertThat(template.render(Locale.of("zh", "TW"))).isEqualTo("zh-tw/Messages_zh_TW.properties");
+		assertThat(template.matchLocale("zh-Hant-tw/Messages_zh_Hant_TW.properties")).isEqualTo(traditionalTaiwan);
+		assertThat(template.matchLocale("zh-Hans/Messages_zh_Hans.properties")).isEqualTo(simplified);
+		assertThat(template.matchLocale("zh-Hans/Messages_zh_Hant.properties")).isNull();
+		assertThat(template.matchLocale("zh-tw/Messages_zh_Hant_TW.properties")).isNull();
+	}
+
+	/**
+	 * Tests finding source message files with placeholders in directory names, through the discovery of the files.
+	 */
+	@Test
+	public void testFindSourceMessageFilesInDirectories(@TempDir Path projectPath) throws Exception {
+		DummyConfigService placeholderParser = new DummyConfigService();
+
+		String definition = "${locale separator=dash, region_case=lower}/Messages_${locale separator=underscore, region_case=upper}.properties";
+		ProjectFile localeDirectories = new ProjectFile(
+				new ProjectFilesDefinition(definition, placeholderParser.parseLocalePlaceholder(definition)),
+				ImportMessageFormatType.PROPERTIES_JAVA, null, null, ImmutableSet.of());
+		ProjectFile fixedDirectory = new ProjectFile(
+				new ProjectFilesDefinition("i18n/Messages.properties", ImmutableSet.of()),
+				ImportMessageFormatType.PROPERTIES_JAVA, null, Locale.of("nl", "NL"), ImmutableSet.of());
+		Project project = new Project(projectPath, URI.create("https://127.0.0.1:8080"), false, null, 1,
+				ImmutableSet.of(localeDirectories, fixedDirectory), ImmutableSet.of(), DiscoverySettings.defaults());
+
+		for (String messageFile : List.of(
+				"nl-nl/Messages_nl_NL.properties",
+				"module/en/Messages_en.properties",
+				// The locales in the directory and the file name differ.
+				"nl-nl/Messages_en_US.properties",
+				// The directory doesn't contain a locale.
+				"other/Messages_de.properties",
+				"i18n/Messages.properties",
+				"Messages.properties")) {
+			Path path = projectPath.resolve(messageFile);
+			Files.createDirectories(path.getParent());
+			Files.writeString(path, "key=value");
+		}
+
+		ImmutableSetMultimap<ProjectFile, MessageFile> messageFiles = new DummyService().findSourceMessageFiles(project);
+
+		assertThat(messageFiles.get(localeDirectories)).containsExactly(
+				new MessageFile(projectPath.resolve("nl-nl/Messages_nl_NL.properties"), Locale.of("nl", "NL"),
+						ImportMessageFormatType.PROPERTIES_JAVA),
+				new MessageFile(projectPath.resolve("module/en/Messages_en.properties"), Locale.of("en"),
+						ImportMessageFormatType.PROPERTIES_JAVA));
+		assertThat(messageFiles.get(fixedDirectory)).containsExactly(
+				new MessageFile(projectPath.resolve("i18n/Messages.properties"), Locale.of("nl", "NL"),
+						ImportMessageFormatType.PROPERTIES_JAVA));
+	}
+
+	private static class DummyService extends AbstractService {
+		@Override
+		protected ImmutableSetMultimap<ProjectFile, MessageFile> findSourceMessageFiles(Project project)
+				throws IOException {
+			return super.findSourceMessageFiles(project);
+		}
+	}
+
 	private static class DummyConfigService extends AbstractConfigService {
 		@Override
 		public ImmutableSet<Project> loadProjects(Path basePath) {
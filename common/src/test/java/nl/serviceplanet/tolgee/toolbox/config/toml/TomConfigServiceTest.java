@@ -16,6 +16,7 @@
 package nl.serviceplanet.tolgee.toolbox.config.toml;
 
 import com.google.common.collect.ImmutableSet;
+import nl.serviceplanet.tolgee.toolbox.common.config.api.DiscoverySettings;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.Project;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFile;
 import nl.serviceplanet.tolgee.toolbox.common.config.api.ProjectFilesDefinition;
@@ -66,7 +67,8 @@ public final class TomConfigServiceTest {
 								null,
 								ExportMessageFormatType.PROPERTIES,
 								Locale.of("nl", "NL"),
-								ImmutableSet.of())))
+								ImmutableSet.of())),
+						DiscoverySettings.defaults())
 		);
 
 		assertThat(actualResult).containsExactlyElementsIn(expectedResult);